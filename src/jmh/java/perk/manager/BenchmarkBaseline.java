@@ -0,0 +1,82 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and exits with status 1
+ * if any benchmark got slower than the allowed percentage.
+ *
+ * Benchmarks are matched by name and parameters; ones missing from either file are
+ * listed but never fail the comparison. Without a baseline file it only says how to
+ * record one.
+ *
+ * Usage: BenchmarkBaseline result.json baseline.json maxRegressionPercent
+ */
+public class BenchmarkBaseline {
+
+    public static void main(String[] args) throws IOException {
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double maxRegression = Double.parseDouble(args[2]);
+        if (!Files.exists(baseline)) {
+            System.out.printf("No baseline at %s; record one with: cp %s %s%n", baseline, result, baseline);
+            return;
+        }
+
+        Map<String, JsonNode> current = read(result);
+        Map<String, JsonNode> previous = read(baseline);
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-72s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode run = entry.getValue();
+            JsonNode before = previous.get(entry.getKey());
+            double score = run.path("primaryMetric").path("score").asDouble();
+            String unit = run.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-72s %14s %14.1f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            // Throughput is better when higher; every other mode measures time, which is better when lower.
+            boolean higherIsBetter = "thrpt".equals(run.path("mode").asText());
+            double change = (score - baseScore) / baseScore * 100;
+            double slowdown = higherIsBetter ? -change : change;
+            System.out.printf("%-72s %14.1f %14.1f %+8.1f%%  %s%n", entry.getKey(), baseScore, score, change, unit);
+            if (slowdown > maxRegression) {
+                regressions.add(String.format("%s is %.1f%% slower", entry.getKey(), slowdown));
+            }
+        }
+        previous.keySet().stream().filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-72s not run%n", key));
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%d benchmarks regressed more than %.0f%%:%n", regressions.size(), maxRegression);
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH result file, keyed by benchmark name and parameters.
+     */
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String name = run.path("benchmark").asText().replace("perk.manager.", "");
+            runs.put(params.isEmpty() ? name : name + " " + params, run);
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,94 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application the benchmarks run against, started once per fork without a web
+ * server and filled by the synthetic data generator with catalogSize perks.
+ *
+ * Users and votes scale with the catalog, so lookups and rankings see the same
+ * shape of data at every size.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkCatalog {
+
+    /** A membership program every catalog has perks in, and a word common in perk titles. */
+    static final String MEMBERSHIP = "Visa";
+    static final String KEYWORD = "coffee";
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    ConfigurableApplicationContext context;
+    PerkService perkService;
+    UserService userService;
+    UserMembershipService userMembershipService;
+    /** Perk IDs from most to least voted. */
+    long[] perkIds;
+    /** IDs of the synthetic users. */
+    long[] userIds;
+    int users;
+
+    @Setup(Level.Trial)
+    public void start() {
+        users = Math.max(100, catalogSize / 100);
+        // Passed as arguments, since the synthetic profile's properties would override defaults.
+        List<String> args = new ArrayList<>(List.of("--perk.synthetic.perks=" + catalogSize,
+                "--perk.synthetic.users=" + users,
+                "--perk.synthetic.votes=" + catalogSize,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.perk.manager=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        for (String property : properties()) {
+            args.add("--" + property);
+        }
+        context = new SpringApplicationBuilder(ServingWebContentApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("synthetic")
+                .run(args.toArray(String[]::new));
+        perkService = context.getBean(PerkService.class);
+        userService = context.getBean(UserService.class);
+        userMembershipService = context.getBean(UserMembershipService.class);
+        // The ready event indexes the catalog on this thread, so it is complete here.
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        perkIds = ids(jdbcTemplate.queryForList("select id from perk order by votes desc, id", Long.class));
+        userIds = ids(jdbcTemplate.queryForList("select id from users where username like ?", Long.class,
+                SyntheticDataGenerator.USERNAME_PREFIX + "%"));
+    }
+
+    /**
+     * @return extra application properties of a benchmark's catalog
+     */
+    protected String[] properties() {
+        return new String[0];
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private static long[] ids(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return the username of the synthetic user with the given number, from 1
+     */
+    String username(int user) {
+        return SyntheticDataGenerator.USERNAME_PREFIX + user;
+    }
+}
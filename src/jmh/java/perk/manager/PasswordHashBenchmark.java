@@ -0,0 +1,60 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time a signup (encode) and a login (matches) spend hashing at each BCrypt cost,
+ * through the PasswordHasher's pool, for choosing perk.security.bcrypt-strength.
+ * Runs without the application or a catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "demo123";
+
+    @Param({"8", "10", "12"})
+    public int strength;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup(Level.Trial)
+    public void start() {
+        hasher = new PasswordHasher(strength, 2, 64);
+        stored = hasher.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public String encode() {
+        return hasher.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return hasher.matches(PASSWORD, stored);
+    }
+}
@@ -0,0 +1,45 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sorted dashboard pages PerkController renders, read through
+ * PerkService.findPerkPage in each order the dashboard offers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PerkPageBenchmark {
+
+    @Benchmark
+    public CursorPage<Perk> byVotes(BenchmarkCatalog catalog) {
+        return catalog.perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<Perk> byExpiry(BenchmarkCatalog catalog) {
+        return catalog.perkService.findPerkPage(null, null, "expiry", null, PerkService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<Perk> membershipByVotes(BenchmarkCatalog catalog) {
+        return catalog.perkService.findPerkPage(BenchmarkCatalog.MEMBERSHIP, null, "votes", null,
+                PerkService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<Perk> keywordByRelevance(BenchmarkCatalog catalog) {
+        return catalog.perkService.findPerkPage(null, BenchmarkCatalog.KEYWORD, "relevance", null,
+                PerkService.DEFAULT_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,43 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PerkService.searchPerks, once for each combination of its optional filters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PerkSearchBenchmark {
+
+    @Benchmark
+    public List<Perk> noFilter(BenchmarkCatalog catalog) {
+        return catalog.perkService.searchPerks("", "");
+    }
+
+    @Benchmark
+    public List<Perk> membership(BenchmarkCatalog catalog) {
+        return catalog.perkService.searchPerks(BenchmarkCatalog.MEMBERSHIP, "");
+    }
+
+    @Benchmark
+    public List<Perk> keyword(BenchmarkCatalog catalog) {
+        return catalog.perkService.searchPerks("", BenchmarkCatalog.KEYWORD);
+    }
+
+    @Benchmark
+    public List<Perk> membershipAndKeyword(BenchmarkCatalog catalog) {
+        return catalog.perkService.searchPerks(BenchmarkCatalog.MEMBERSHIP, BenchmarkCatalog.KEYWORD);
+    }
+}
@@ -0,0 +1,49 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PerkService.vote from several threads at once, all on the most voted perk and
+ * spread over the catalog, with votes written directly and through the write-behind buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class PerkVoteBenchmark {
+
+    public static class VoteCatalog extends BenchmarkCatalog {
+
+        @Param({"false", "true"})
+        public boolean writeBehind;
+
+        @Override
+        protected String[] properties() {
+            return new String[]{"perk.votes.write-behind.enabled=" + writeBehind};
+        }
+    }
+
+    @Benchmark
+    public void samePerk(VoteCatalog catalog) {
+        catalog.perkService.vote(catalog.perkIds[0], true);
+    }
+
+    @Benchmark
+    public void spread(VoteCatalog catalog) {
+        long[] perkIds = catalog.perkIds;
+        catalog.perkService.vote(perkIds[ThreadLocalRandom.current().nextInt(perkIds.length)], true);
+    }
+}
@@ -0,0 +1,42 @@
+package perk.manager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request user lookups: UserService.findByUsername and
+ * UserMembershipService.getMembershipsForUser, for a random synthetic user.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserLookupBenchmark {
+
+    @Benchmark
+    public Optional<User> findByUsername(BenchmarkCatalog catalog) {
+        return catalog.userService.findByUsername(randomUser(catalog));
+    }
+
+    @Benchmark
+    public List<MembershipType> membershipsForUser(BenchmarkCatalog catalog) {
+        User user = new User();
+        user.setId(catalog.userIds[ThreadLocalRandom.current().nextInt(catalog.userIds.length)]);
+        return catalog.userMembershipService.getMembershipsForUser(user);
+    }
+
+    private static String randomUser(BenchmarkCatalog catalog) {
+        return catalog.username(1 + ThreadLocalRandom.current().nextInt(catalog.users));
+    }
+}
@@ -0,0 +1,36 @@
+package perk.manager;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk perk creation.
+ *
+ * @param created the number of perks created
+ * @param failed  the number of drafts rejected
+ * @param items   one entry per draft, in the order they were posted
+ */
+public record BulkPerkResult(int created, int failed, List<Item> items) {
+
+    /**
+     * The outcome of one draft.
+     *
+     * @param index the draft's position in the request
+     * @param id    the ID of the created perk, null if it was rejected
+     * @param error why the draft was rejected, null if it was created
+     */
+    public record Item(int index, Long id, String error) {
+
+        static Item created(int index, long id) {
+            return new Item(index, id, null);
+        }
+
+        static Item failed(int index, String error) {
+            return new Item(index, null, error);
+        }
+    }
+
+    static BulkPerkResult of(List<Item> items) {
+        int failed = (int) items.stream().filter(item -> item.error() != null).count();
+        return new BulkPerkResult(items.size() - failed, failed, items);
+    }
+}
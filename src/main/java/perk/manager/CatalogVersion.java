@@ -0,0 +1,101 @@
+package perk.manager;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A version number of the perk catalog, for answering conditional GETs of perk lists.
+ *
+ * PerkService bumps the version once a created or deleted perk, a vote or an expiry
+ * sweep is visible to readers. A list response is tagged with a strong ETag derived
+ * from the version, the membership catalog's version, the date, the request path and
+ * query parameters and the logged-in user, so a client whose copy is still current
+ * gets a 304 before any perk is read or any view is rendered.
+ *
+ * The version restarts with the application, so ETags also carry the startup time
+ * and never match a response from an earlier run.
+ */
+@Component
+public class CatalogVersion {
+
+    /** Bytes of the request hash kept in the ETag. */
+    private static final int HASH_BYTES = 12;
+
+    private final MembershipCatalog membershipCatalog;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public CatalogVersion(MembershipCatalog membershipCatalog) {
+        this.membershipCatalog = membershipCatalog;
+    }
+
+    /**
+     * @return the current version, increasing with every change to the listed perks
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Moves to a new version. Call once the change is visible to readers, so a response
+     * read before it is never tagged with the new version.
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Tags a GET response with the ETag of the current catalog for this request and checks
+     * it against the request's If-None-Match. The response tells caches to revalidate
+     * every time rather than to skip storing it.
+     *
+     * @return true if the client's copy is current; the response is then a finished 304
+     */
+    public boolean notModified(ServletWebRequest request) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        return request.checkNotModified(etag(request.getRequest()));
+    }
+
+    /**
+     * @return the strong ETag of the current catalog as served for the request
+     */
+    String etag(HttpServletRequest request) {
+        // Read before the response is, so a change made meanwhile only makes the tag older.
+        long perks = version.get();
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Principal user = request.getUserPrincipal();
+        key.append('\n').append(user == null ? "" : user.getName());
+        key.append('\n').append(LocalDate.now());
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            key.append('\n').append(parameter.getKey()).append('=').append(Arrays.toString(parameter.getValue()));
+        }
+        return "\"" + epoch + "-" + perks + "-" + membershipCatalog.version() + "-" + hash(key) + "\"";
+    }
+
+    private static String hash(CharSequence key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package perk.manager;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated result.
+ *
+ * @param items      the items on this page
+ * @param nextCursor the token to request the following page with, null on the last page
+ * @param <T>        the item type
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * @return true if another page follows this one.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -1,5 +1,6 @@
 package perk.manager;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -11,44 +12,49 @@ import java.time.LocalDate;
 @Component
 public class DataLoader implements CommandLineRunner {
 
-    private final MembershipTypeRepository membershipTypeRepository;
+    private final MembershipService membershipService;
     private final UserService userService;
     private final PerkService perkService;
+    private final ObjectProvider<SyntheticDataGenerator> syntheticDataGenerator;
 
     /**
      *
-     * @param membershipTypeRepository repo which holds all membershipType data.
+     * @param membershipService object to handle services such as membership type creation.
      * @param userService object to handle services such as user registration & password verification.
      * @param perkService object to handle services such as perk creation & perk voting.
+     * @param syntheticDataGenerator generator of production-sized data, present only with the "synthetic" profile.
      */
-    public DataLoader(MembershipTypeRepository membershipTypeRepository,
+    public DataLoader(MembershipService membershipService,
                       UserService userService,
-                      PerkService perkService) {
-        this.membershipTypeRepository = membershipTypeRepository;
+                      PerkService perkService,
+                      ObjectProvider<SyntheticDataGenerator> syntheticDataGenerator) {
+        this.membershipService = membershipService;
         this.userService = userService;
         this.perkService = perkService;
+        this.syntheticDataGenerator = syntheticDataGenerator;
     }
 
     /**
      * Populate membership database with 10 unique membership types.
      * Create 4 perks to be viewed on the dashboard.
      * Register a demo user to log in with for testing.
+     * With the "synthetic" profile, also generate a production-sized catalog.
      *
      * @param args (default param)
      */
     @Override
     public void run(String... args) {
-        if (membershipTypeRepository.count() == 0) {
-            membershipTypeRepository.save(new MembershipType("Air Miles"));
-            membershipTypeRepository.save(new MembershipType("PC Optimum"));
-            membershipTypeRepository.save(new MembershipType("CAA"));
-            membershipTypeRepository.save(new MembershipType("Visa"));
-            membershipTypeRepository.save(new MembershipType("Mastercard"));
-            membershipTypeRepository.save(new MembershipType("American Express"));
-            membershipTypeRepository.save(new MembershipType("Scene+"));
-            membershipTypeRepository.save(new MembershipType("Aeroplan"));
-            membershipTypeRepository.save(new MembershipType("Costco"));
-            membershipTypeRepository.save(new MembershipType("Amazon Prime"));
+        if (membershipService.getAllMemberships().isEmpty()) {
+            membershipService.save("Air Miles");
+            membershipService.save("PC Optimum");
+            membershipService.save("CAA");
+            membershipService.save("Visa");
+            membershipService.save("Mastercard");
+            membershipService.save("American Express");
+            membershipService.save("Scene+");
+            membershipService.save("Aeroplan");
+            membershipService.save("Costco");
+            membershipService.save("Amazon Prime");
 
             System.out.println("Pre-loaded membership types");
         }
@@ -95,5 +101,7 @@ public class DataLoader implements CommandLineRunner {
             // Console print for testing
             System.out.println("Created demo user (username: demo, password: demo123) with sample perks");
         }
+
+        syntheticDataGenerator.ifAvailable(SyntheticDataGenerator::generate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package perk.manager;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory catalog of every membership type.
+ *
+ * Membership types are static reference data that only grow when an admin adds
+ * one, yet nearly every page needs them for its dropdowns. The catalog keeps an
+ * immutable snapshot with case-insensitive name and id lookups, loaded from the
+ * database on first use. A change swaps in a whole new snapshot with a higher
+ * version, so readers never see a half-updated catalog and never lock.
+ *
+ * The MembershipType instances handed out are shared and must be treated as read-only.
+ */
+@Component
+public class MembershipCatalog {
+
+    private final MembershipTypeRepository membershipTypeRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * One immutable version of the catalog.
+     *
+     * @param version increases by one with every change
+     * @param all     every membership type in id order
+     * @param byName  lower-cased name to membership type
+     * @param byId    id to membership type
+     */
+    record Snapshot(long version, List<MembershipType> all,
+                    Map<String, MembershipType> byName, Map<Long, MembershipType> byId) {
+
+        static Snapshot of(long version, Collection<MembershipType> types) {
+            List<MembershipType> all = types.stream()
+                    .sorted(Comparator.comparing(MembershipType::getId))
+                    .toList();
+            Map<String, MembershipType> byName = new HashMap<>();
+            Map<Long, MembershipType> byId = new HashMap<>();
+            for (MembershipType type : all) {
+                byName.putIfAbsent(key(type.getName()), type);
+                byId.put(type.getId(), type);
+            }
+            return new Snapshot(version, all, Map.copyOf(byName), Map.copyOf(byId));
+        }
+
+        Snapshot with(MembershipType type) {
+            Map<Long, MembershipType> types = new HashMap<>(byId);
+            types.put(type.getId(), type);
+            return of(version + 1, types.values());
+        }
+
+        /**
+         * Replaces the types with a fresh load, keeping any that were added since
+         * {@code base} was read, as the load may have missed them.
+         */
+        Snapshot reloaded(Collection<MembershipType> loaded, Snapshot base) {
+            Map<Long, MembershipType> types = new HashMap<>();
+            byId.forEach((id, type) -> {
+                if (base == null || !base.byId().containsKey(id)) {
+                    types.put(id, type);
+                }
+            });
+            loaded.forEach(type -> types.put(type.getId(), type));
+            return of(version + 1, types.values());
+        }
+    }
+
+    /**
+     * @param membershipTypeRepository the repository the catalog is loaded from
+     */
+    public MembershipCatalog(MembershipTypeRepository membershipTypeRepository) {
+        this.membershipTypeRepository = membershipTypeRepository;
+    }
+
+    /**
+     * @return every membership type, in id order.
+     */
+    public List<MembershipType> all() {
+        return snapshot().all();
+    }
+
+    /**
+     * Looks up a membership type by name, ignoring case.
+     *
+     * @param name the membership type name, may be null
+     * @return the membership type if one has that name
+     */
+    public Optional<MembershipType> findByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(snapshot().byName().get(key(name)));
+    }
+
+    /**
+     * Looks up a membership type by id.
+     *
+     * @param id the membership type id
+     * @return the membership type if it exists
+     */
+    public Optional<MembershipType> findById(long id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    /**
+     * @return the version of the current snapshot, increasing with every change.
+     */
+    public long version() {
+        return snapshot().version();
+    }
+
+    /**
+     * Publishes a newly saved membership type.
+     *
+     * @param type the saved membership type, with its generated id
+     */
+    public void add(MembershipType type) {
+        snapshot();
+        snapshot.updateAndGet(current -> current.with(type));
+    }
+
+    /**
+     * Reloads the whole catalog from the database. The load happens before the new
+     * snapshot is published, and a type added while it ran is kept.
+     */
+    public void refresh() {
+        Snapshot before = snapshot.get();
+        List<MembershipType> loaded = membershipTypeRepository.findAll();
+        snapshot.updateAndGet(current -> current == null ? Snapshot.of(1, loaded) : current.reloaded(loaded, before));
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            Snapshot loaded = load();
+            current = snapshot.compareAndSet(null, loaded) ? loaded : snapshot.get();
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        return Snapshot.of(1, membershipTypeRepository.findAll());
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -9,27 +9,31 @@ import java.util.Optional;
  * Represents the operations related to membershipType entities.
  *
  * This service acts as an intermediary between controllers and the MembershipTypeRepository,
- * handling the retrieval and persistence of membership type data.
+ * handling the retrieval and persistence of membership type data. Reads are served
+ * from the in-memory MembershipCatalog, which is updated whenever a type is saved.
  */
 @Service
 public class MembershipService {
 
     private final MembershipTypeRepository membershipTypeRepository;
+    private final MembershipCatalog membershipCatalog;
 
     /**
-     * Assigns the repository to be used by the system.
+     * Assigns the repository and catalog to be used by the system.
      *
      * @param membershipTypeRepository the repo for adding membership type data to.
+     * @param membershipCatalog the in-memory catalog membership types are read from.
      */
-    public MembershipService(MembershipTypeRepository membershipTypeRepository) {
+    public MembershipService(MembershipTypeRepository membershipTypeRepository, MembershipCatalog membershipCatalog) {
         this.membershipTypeRepository = membershipTypeRepository;
+        this.membershipCatalog = membershipCatalog;
     }
 
     /**
-     * @return all the memberships from the membershipTypeRepository.
+     * @return all the memberships in the catalog, in id order.
      */
     public List<MembershipType> getAllMemberships() {
-        return membershipTypeRepository.findAll();
+        return membershipCatalog.all();
     }
 
     /**
@@ -39,15 +43,27 @@ public class MembershipService {
      * @return the membership type.
      */
     public Optional<MembershipType> findById(long id) {
-        return membershipTypeRepository.findById(id);
+        return membershipCatalog.findById(id);
     }
 
     /**
-     * Saves a new membership type to the membershipTypeRepository.
+     * Retrieve the membership type with a given name, ignoring case.
+     *
+     * @param name the name of the MembershipType.
+     * @return the membership type.
+     */
+    public Optional<MembershipType> findByName(String name) {
+        return membershipCatalog.findByName(name);
+    }
+
+    /**
+     * Saves a new membership type to the membershipTypeRepository and publishes it in the catalog.
      * @param name the name of the new membership.
-     * @return the updated membershipTypeRepository.
+     * @return the saved membership type.
      */
     public MembershipType save(String name) {
-        return membershipTypeRepository.save(new MembershipType(name));
+        MembershipType saved = membershipTypeRepository.save(new MembershipType(name));
+        membershipCatalog.add(saved);
+        return saved;
     }
 }
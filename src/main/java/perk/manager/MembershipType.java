@@ -1,9 +1,12 @@
 package perk.manager;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents a type or category of membership that can be assigned to users.
@@ -14,6 +17,8 @@ import jakarta.persistence.Id;
  * startup to provide default membership options.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "membershipType")
 public class MembershipType {
 
     /**
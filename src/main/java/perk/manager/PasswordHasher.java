@@ -0,0 +1,147 @@
+package perk.manager;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The application's password encoder: BCrypt at a configurable cost, run on a small
+ * pool of its own instead of on request threads.
+ *
+ * BCrypt is slow on purpose, so a burst of signups or logins hashing on Tomcat threads
+ * takes the CPU and the threads the dashboard needs. Here only a few hashes run at once
+ * and a bounded number wait for a thread; past that, a hash is refused at once with a
+ * BusyException, answered with 503, rather than queued behind seconds of work.
+ *
+ * A stored hash whose cost differs from the configured one reports that it needs an
+ * upgrade, so Spring Security rehashes it when its user next logs in. The rehash is
+ * put off while hashes are waiting for a thread.
+ */
+@Component
+public class PasswordHasher implements PasswordEncoder {
+
+    /** Seconds a refused client is asked to wait before retrying. */
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates the encoder and its pool.
+     *
+     * @param strength      the BCrypt cost of new hashes, from 4 to 31; each step doubles the work
+     * @param threads       the number of hashes run at once
+     * @param queueCapacity the most hashes waiting for a thread before more are refused
+     */
+    public PasswordHasher(@Value("${perk.security.bcrypt-strength:10}") int strength,
+                          @Value("${perk.security.hash-threads:2}") int threads,
+                          @Value("${perk.security.hash-queue:32}") int queueCapacity) {
+        this.strength = strength;
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hasher-"));
+    }
+
+    /**
+     * Thrown when a password could not be hashed because the pool's queue is full.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class BusyException extends AuthenticationServiceException {
+
+        BusyException() {
+            super("Too many sign-ins at the moment, please try again shortly");
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @return whether the hash was made at another cost than the configured one,
+     *         false while hashes are waiting for a thread
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || !executor.getQueue().isEmpty()) {
+            return false;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword);
+        return cost.find() && Integer.parseInt(cost.group(1)) != strength;
+    }
+
+    <T> T run(Callable<T> hash) {
+        Future<T> result;
+        try {
+            result = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BusyException();
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the hashes waiting for a thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the hashes being computed
+     */
+    public int getActiveHashes() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return the number of hashes refused because the queue was full
+     */
+    public long getRejectedHashes() {
+        return rejected.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,7 +1,11 @@
 package perk.manager;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 /**
@@ -9,15 +13,38 @@ import java.time.LocalDate;
  *
  * A perk might include discounts, exclusive offers, or special access privileges.
  * Each perk can be limited by region, have an expiration date, and may require a specific MembershipType.
+ *
+ * The (expiryDate, id) index backs the active-perk queries. Both dashboard orderings
+ * are served by in-memory indexes, PerkLeaderboard and PerkExpiryIndex. The
+ * lastModified index backs incremental exports.
+ *
+ * Both associations are lazy. Queries that render perks name the graph they need:
+ * "Perk.card" for a full perk card and "Perk.voteSection" for the vote footer alone.
+ *
+ * Perks are kept in the "perk" second-level cache region. Vote counts are changed
+ * with native SQL that Hibernate does not see, so whoever changes them evicts the perk.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "perk")
+@NamedEntityGraph(name = "Perk.card",
+        attributeNodes = {@NamedAttributeNode("membershipType"), @NamedAttributeNode("createdBy")})
+@NamedEntityGraph(name = "Perk.voteSection", attributeNodes = @NamedAttributeNode("createdBy"))
+@Table(indexes = {
+        @Index(name = "ix_perk_expiry_id", columnList = "expiryDate, id"),
+        @Index(name = "ix_perk_last_modified", columnList = "lastModified")
+})
 public class Perk {
 
     /**
      * Automatically generate a unique ID for the perk.
+     *
+     * IDs come from a pooled sequence that hands out 50 at a time, so inserts
+     * can be batched; identity columns would force one round trip per row.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "perk_seq")
+    @SequenceGenerator(name = "perk_seq", sequenceName = "perk_seq", allocationSize = 50)
     private long id;
 
     private String title;
@@ -26,12 +53,26 @@ public class Perk {
     private LocalDate expiryDate;
     private int votes = 0;
 
+    /**
+     * When the perk was created or last changed. Set by Hibernate on every insert and
+     * update; the native vote updates set it themselves.
+     */
+    @UpdateTimestamp
+    private Instant lastModified;
+
+    /**
+     * Votes recorded in the VoteWriteBuffer but not yet written to the database.
+     * Not persisted; Hibernate uses field access, so it never makes the entity dirty.
+     */
+    @Transient
+    private int pendingVotes = 0;
+
     /**
      * The membership type required to access this perk.
      * Represents a many-to-one relationship as multiple
      * perks can belong to the same MembershipType.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private MembershipType membershipType;
 
     /**
@@ -39,7 +80,7 @@ public class Perk {
      * Represents a many-to-one relationship as multiple
      * perks can be created by the same user.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User createdBy;
 
     public Perk() {}
@@ -81,9 +122,16 @@ public class Perk {
     public LocalDate getExpiryDate() {return expiryDate;}
     public void setExpiryDate(LocalDate expiryDate) {this.expiryDate = expiryDate;}
 
-    public int getVotes() {return votes;}
+    /**
+     * @return the stored vote count plus any votes still waiting in the write-behind buffer
+     */
+    public int getVotes() {return votes + pendingVotes;}
     public void setVotes(int votes) {this.votes = votes;}
 
+    void setPendingVotes(int pendingVotes) {this.pendingVotes = pendingVotes;}
+
+    public Instant getLastModified() {return lastModified;}
+
     public MembershipType getMembershipType() {return membershipType;}
     public void setMembershipType(MembershipType membershipType) {this.membershipType = membershipType;}
 
@@ -1,11 +1,15 @@
 package perk.manager;
 
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -18,98 +22,126 @@ public class PerkController {
     private PerkService perkService;
 
     @Autowired
-    private MembershipTypeRepository membershipTypeRepository;
+    private MembershipService membershipService;
 
     @Autowired
     private UserService userService;
 
     @Autowired
-    private PerkRepository perkRepository;
+    private VoteBroadcaster voteBroadcaster;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private PerkListFragmentCache perkListFragmentCache;
 
     /**
-     * Displays the main dashboard page with all perks.
-     * Shows user authentication status and loads all available perks and membership types.
+     * Displays the main dashboard page with the first page of perks, most voted first.
+     * Shows user authentication status and loads membership types; later pages are
+     * fetched by the perk list's infinite scroll. Answers 304 if the client's copy is
+     * still current.
      *
      * @param principal the authenticated user principal, null if user is not logged in
+     * @param request   the request, checked against the catalog version's ETag
      * @param model     the Spring MVC model to pass data to the view
-     * @return the name of the dashboard view template
+     * @return the name of the dashboard view template, null if not modified
      */
     @GetMapping("/dashboard")
     public String perksPage(@AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
-                            Model model,
-                            HttpSession session) {  // Add HttpSession parameter
+                            ServletWebRequest request,
+                            Model model) {
+        if (catalogVersion.notModified(request)) {
+            return null;
+        }
+        CursorPage<Perk> page = perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE);
+
+        User user = null;
         if (principal != null) {
-            User user = userService.findByUsername(principal.getUsername()).orElse(null);
+            user = userService.findByUsername(principal.getUsername()).orElse(null);
             model.addAttribute("isLoggedIn", true);
             model.addAttribute("currentUser", user);
         } else {
             model.addAttribute("isLoggedIn", false);
         }
 
-        // Add votedPerks to the model from session
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) session.getAttribute("votedPerks");
-        if (votedPerks == null) {
-            votedPerks = new HashMap<>();
-        }
-        model.addAttribute("votedPerks", votedPerks);
-
-        model.addAttribute("perks", perkService.getAllPerks());
-        model.addAttribute("memberships", membershipTypeRepository.findAll());
+        model.addAttribute("votedPerks", votedPerks(user, page.items()));
+        model.addAttribute("perks", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("memberships", membershipService.getAllMemberships());
         return "dashboard";
     }
     /**
-     * Returns an HTMX fragment containing filtered and sorted perks.
-     * Used for dynamic updates without full page reloads.
+     * Returns an HTMX fragment containing one page of filtered and sorted perks.
+     * Used for dynamic updates without full page reloads. Without a cursor the whole
+     * perk list is rendered; with a cursor only the next page of cards is rendered,
+     * to be appended by the list's infinite scroll. Answers 304 if the client's copy is
+     * still current. A logged-in user's whole list comes from the rendered list cache,
+     * with their votes applied.
      *
      * @param membershipType optional filter by membership type name
      * @param sortBy         sorting criteria: "votes" (default), "expiry", or "relevance"
+     * @param cursor         continuation token of the page to render, null for the first page
      * @param principal      the authenticated user principal, null if user is not logged in
+     * @param request        the request, checked against the catalog version's ETag
      * @param model          the Spring MVC model to pass data to the view
-     * @return the Thymeleaf fragment path for the perk list
+     * @return the Thymeleaf fragment path for the perk list or the next page of cards, null if not modified
+     * @throws ResponseStatusException with 400 if the cursor is malformed or belongs to another ordering
      */
     @GetMapping("/search-fragment")
     public String perkSearchFragment(
             @RequestParam(required = false) String membershipType,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "votes") String sortBy,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
-            Model model,
-            HttpSession session) {  // Add HttpSession parameter
-
-        List<Perk> perks = perkService.searchPerks(membershipType, keyword);
-
-        if (sortBy.equalsIgnoreCase("votes")) {
-            perks.sort(Comparator.comparingInt(Perk::getVotes).reversed());
-        } else if (sortBy.equalsIgnoreCase("expiry")) {
-            perks.sort(Comparator.comparing(Perk::getExpiryDate));
+            ServletWebRequest request,
+            Model model) {
+        if (catalogVersion.notModified(request)) {
+            return null;
         }
 
+        User user = null;
         if (principal != null) {
-            User user = userService.findByUsername(principal.getUsername()).orElse(null);
+            user = userService.findByUsername(principal.getUsername()).orElse(null);
             model.addAttribute("isLoggedIn", true);
             model.addAttribute("currentUser", user);
         } else {
             model.addAttribute("isLoggedIn", false);
         }
 
-        // Add votedPerks to the model from session
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) session.getAttribute("votedPerks");
-        if (votedPerks == null) {
-            votedPerks = new HashMap<>();
+        if (user != null && (cursor == null || cursor.isEmpty()) && perkListFragmentCache.isEnabled()) {
+            PerkListFragmentCache.Fragment list = perkListFragmentCache.get(membershipType, keyword, sortBy, request,
+                    () -> perkService.findPerkPage(membershipType, keyword, sortBy, null, PerkService.DEFAULT_PAGE_SIZE));
+            Map<Long, Boolean> votes = perkService.findUserVotesOn(user.getId(), list.perkIds());
+            model.addAttribute("perkListHtml", perkListFragmentCache.withVotes(list, votes, request));
+            return "fragments/perk-list :: rendered-perk-list";
+        }
+
+        CursorPage<Perk> page;
+        try {
+            page = perkService.findPerkPage(membershipType, keyword, sortBy, cursor, PerkService.DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
-        model.addAttribute("votedPerks", votedPerks);
 
-        model.addAttribute("perks", perks);
+        model.addAttribute("votedPerks", votedPerks(user, page.items()));
+
+        model.addAttribute("perks", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
         model.addAttribute("sortBy", sortBy);
         model.addAttribute("selectedMembership", membershipType);
         model.addAttribute("keyword", keyword);
 
+        if (cursor != null && !cursor.isEmpty()) {
+            return "fragments/perk-list :: perk-page";
+        }
         return "fragments/perk-list :: perk-list";
     }
 
     /**
      * Performs a full page search and filtering of perks.
-     * Returns the complete dashboard with filtered and sorted results.
+     * Returns the complete dashboard with the first page of filtered and sorted results.
      *
      * @param membershipType optional filter by membership type name
      * @param sortBy         sorting criteria: "votes" (default), "expiry", or "relevance"
@@ -123,35 +155,25 @@ public class PerkController {
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "votes") String sortBy,
             @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
-            Model model,
-            HttpSession session) {  // Add HttpSession parameter
-
-        List<Perk> perks = perkService.searchPerks(membershipType, keyword);
+            Model model) {
 
-        if (sortBy.equalsIgnoreCase("votes")) {
-            perks.sort(Comparator.comparingInt(Perk::getVotes).reversed());
-        } else if (sortBy.equalsIgnoreCase("expiry")) {
-            perks.sort(Comparator.comparing(Perk::getExpiryDate));
-        }
+        CursorPage<Perk> page = perkService.findPerkPage(membershipType, keyword, sortBy, null, PerkService.DEFAULT_PAGE_SIZE);
 
+        User user = null;
         if (principal != null) {
-            User user = userService.findByUsername(principal.getUsername()).orElse(null);
+            user = userService.findByUsername(principal.getUsername()).orElse(null);
             model.addAttribute("isLoggedIn", true);
             model.addAttribute("currentUser", user);
         } else {
             model.addAttribute("isLoggedIn", false);
         }
 
-        // Add votedPerks to the model from session
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) session.getAttribute("votedPerks");
-        if (votedPerks == null) {
-            votedPerks = new HashMap<>();
-        }
-        model.addAttribute("votedPerks", votedPerks);
+        model.addAttribute("votedPerks", votedPerks(user, page.items()));
 
-        model.addAttribute("perks", perks);
+        model.addAttribute("perks", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
         model.addAttribute("sortBy", sortBy);
-        model.addAttribute("memberships", membershipTypeRepository.findAll());
+        model.addAttribute("memberships", membershipService.getAllMemberships());
         model.addAttribute("selectedMembership", membershipType);
         model.addAttribute("keyword", keyword);
 
@@ -173,7 +195,7 @@ public class PerkController {
             return "redirect:/login";
         }
 
-        model.addAttribute("memberships", membershipTypeRepository.findAll());
+        model.addAttribute("memberships", membershipService.getAllMemberships());
         return "fragments/new-perk-form :: new-perk-form";
     }
 
@@ -212,7 +234,7 @@ public class PerkController {
         if (!expiryDate.isAfter(LocalDate.now())) {
             model.addAttribute("error", "Expiry date must be a future date.");
             model.addAttribute("hxTrigger", "invalidDate");
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
 
@@ -221,7 +243,7 @@ public class PerkController {
             return "redirect:/perks/dashboard";
         } catch (Exception e) {
             model.addAttribute("error", "Failed to create perk: " + e.getMessage());
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
     }
@@ -252,14 +274,14 @@ public class PerkController {
         // Check for user authentication
         if (principal == null) {
             model.addAttribute("error", "Please log in to create perks");
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
 
         User user = userService.findByUsername(principal.getUsername()).orElse(null);
         if (user == null) {
             model.addAttribute("error", "User not found");
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
 
@@ -272,7 +294,7 @@ public class PerkController {
             model.addAttribute("region", region);
             model.addAttribute("selectedMembership", membershipType);
 
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
         // -------------------------------------------------------------
@@ -282,157 +304,126 @@ public class PerkController {
             return "fragments/new-perk-form :: success-message";
         } catch (Exception e) {
             model.addAttribute("error", "Failed to create perk: " + e.getMessage());
-            model.addAttribute("memberships", membershipTypeRepository.findAll());
+            model.addAttribute("memberships", membershipService.getAllMemberships());
             return "fragments/new-perk-form :: new-perk-form";
         }
     }
 
     /**
      * Handles upvoting a perk via HTMX fragment request.
-     * Returns the updated vote section fragment with new vote count.
+     * Toggles the user's upvote and returns the updated vote section fragment with new vote count.
      *
-     * @param perkId the ID of the perk to upvote
-     * @param sesh   the HTTP session for storing vote state
-     * @param model  the Spring MVC model to pass data to the view
+     * @param perkId    the ID of the perk to upvote
+     * @param principal the authenticated user principal
+     * @param model     the Spring MVC model to pass data to the view
      * @return the Thymeleaf fragment path for the vote section
      */
     @PostMapping("/{perkId}/upvote-fragment")
-    public String upvotePerkFragment(@PathVariable Long perkId, HttpSession sesh, Model model) {
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) sesh.getAttribute("votedPerks");
-        if (votedPerks == null){
-            votedPerks = new HashMap<>();
-        }
-
-        Boolean lastVote = votedPerks.get(perkId);
-
-        if (lastVote == null){
-            perkService.vote(perkId, true);
-            votedPerks.put(perkId, true);
-        } else if (lastVote == true) {
-            perkService.vote(perkId, false);
-            votedPerks.remove(perkId);
-        } else if (lastVote == false) {
-            perkService.vote(perkId, true);
-            perkService.vote(perkId, true);
-            votedPerks.put(perkId, true);
-        }
-
-        sesh.setAttribute("votedPerks", votedPerks);
-
-        Optional<Perk> perkOpt = perkRepository.findById(perkId);
-        if (perkOpt.isPresent()) {
-            model.addAttribute("perk", perkOpt.get());
-        }
-
-        model.addAttribute("votedPerks", votedPerks);
-
-        return "fragments/perk-list :: vote-section";
+    public String upvotePerkFragment(@PathVariable Long perkId,
+                                     @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
+                                     Model model) {
+        return voteFragment(perkId, true, principal, model);
     }
 
     /**
      * Handles downvoting a perk via HTMX fragment request.
-     * Returns the updated vote section fragment with new vote count.
+     * Toggles the user's downvote and returns the updated vote section fragment with new vote count.
      *
-     * @param perkId the ID of the perk to downvote
-     * @param sesh   the HTTP session for storing vote state
-     * @param model  the Spring MVC model to pass data to the view
+     * @param perkId    the ID of the perk to downvote
+     * @param principal the authenticated user principal
+     * @param model     the Spring MVC model to pass data to the view
      * @return the Thymeleaf fragment path for the vote section
      */
     @PostMapping("/{perkId}/downvote-fragment")
-    public String downvotePerkFragment(@PathVariable Long perkId, HttpSession sesh, Model model) {
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) sesh.getAttribute("votedPerks");
-        if (votedPerks == null){
-            votedPerks = new HashMap<>();
-        }
-
-        Boolean lastVote = votedPerks.get(perkId);
-
-        if (lastVote == null){
-            perkService.vote(perkId, false);
-            votedPerks.put(perkId, false);
-        } else if (lastVote == false) {
-            perkService.vote(perkId, true);
-            votedPerks.remove(perkId);
-        } else if (lastVote == true) {
-            perkService.vote(perkId, false);
-            perkService.vote(perkId, false);
-            votedPerks.put(perkId, false);
-        }
-
-        sesh.setAttribute("votedPerks", votedPerks);
-
-        Optional<Perk> perkOpt = perkRepository.findById(perkId);
-        if (perkOpt.isPresent()) {
-            model.addAttribute("perk", perkOpt.get());
-        }
-
-        model.addAttribute("votedPerks", votedPerks);
-
-        return "fragments/perk-list :: vote-section";
+    public String downvotePerkFragment(@PathVariable Long perkId,
+                                       @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
+                                       Model model) {
+        return voteFragment(perkId, false, principal, model);
     }
 
 
     /**
      * Handles upvoting a perk with full page navigation.
-     * Increments the vote count and redirects back to the dashboard.
+     * Toggles the user's upvote and redirects back to the dashboard.
      *
-     * @param perkId the ID of the perk to upvote
-     * @return redirect to the dashboard page
+     * @param perkId    the ID of the perk to upvote
+     * @param principal the authenticated user principal
+     * @return redirect to the dashboard page, or to login if not authenticated
      */
     @PostMapping("/{perkId}/upvote")
-    public String upvotePerk(@PathVariable Long perkId, HttpSession sesh) {
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) sesh.getAttribute("votedPerks");
-        if (votedPerks == null){
-            votedPerks = new HashMap<>();
-        }
-
-        Boolean lastVote = votedPerks.get(perkId);
-
-        if (lastVote == null){
-            perkService.vote(perkId, true);
-            votedPerks.put(perkId, true);
-        } else if (lastVote == true) {
-            perkService.vote(perkId, false);
-            votedPerks.remove(perkId);
-        } else if (lastVote == false) {
-            perkService.vote(perkId, true);
-            perkService.vote(perkId, true);
-            votedPerks.put(perkId, true);
+    public String upvotePerk(@PathVariable Long perkId,
+                             @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal) {
+        User user = principal == null ? null : userService.findByUsername(principal.getUsername()).orElse(null);
+        if (user == null) {
+            return "redirect:/login";
         }
-
-        sesh.setAttribute("votedPerks", votedPerks);
+        perkService.castVote(user.getId(), perkId, true);
         return "redirect:/perks/dashboard";
     }
 
     /**
      * Handles downvoting a perk with full page navigation.
-     * Decrements the vote count and redirects back to the dashboard.
+     * Toggles the user's downvote and redirects back to the dashboard.
      *
-     * @param perkId the ID of the perk to downvote
-     * @return redirect to the dashboard page
+     * @param perkId    the ID of the perk to downvote
+     * @param principal the authenticated user principal
+     * @return redirect to the dashboard page, or to login if not authenticated
      */
     @PostMapping("/{perkId}/downvote")
-    public String downvotePerk(@PathVariable Long perkId, HttpSession sesh) {
-        HashMap<Long, Boolean> votedPerks = (HashMap<Long, Boolean>) sesh.getAttribute("votedPerks");
-        if (votedPerks == null) {
-            votedPerks = new HashMap<>();
+    public String downvotePerk(@PathVariable Long perkId,
+                               @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal) {
+        User user = principal == null ? null : userService.findByUsername(principal.getUsername()).orElse(null);
+        if (user == null) {
+            return "redirect:/login";
+        }
+        perkService.castVote(user.getId(), perkId, false);
+        return "redirect:/perks/dashboard";
+    }
+
+    /**
+     * Streams live vote counts to an open dashboard as Server-Sent Events, so other
+     * viewers' votes update the counters without reloading the list.
+     *
+     * @return the event stream, one perk-votes-ID event per changed perk and broadcast interval
+     */
+    @GetMapping(value = "/votes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter voteStream() {
+        return voteBroadcaster.subscribe();
+    }
+
+    /**
+     * Casts a vote for the current user and renders the perk's vote section.
+     * Anonymous requests render the current count without voting.
+     */
+    private String voteFragment(Long perkId, boolean upvote,
+                                org.springframework.security.core.userdetails.User principal, Model model) {
+        User user = principal == null ? null : userService.findByUsername(principal.getUsername()).orElse(null);
+        Map<Long, Boolean> votedPerks = new HashMap<>();
+        if (user != null) {
+            perkService.castVote(user.getId(), perkId, upvote).ifPresent(vote -> votedPerks.put(perkId, vote));
         }
 
-        Boolean lastVote = votedPerks.get(perkId);
-
-        if (lastVote == null) {
-            perkService.vote(perkId, false);
-            votedPerks.put(perkId, false);
-        } else if (lastVote == false) {
-            perkService.vote(perkId, true);
-            votedPerks.remove(perkId);
-        } else if (lastVote) {
-            perkService.vote(perkId, false);
-            perkService.vote(perkId, false);
-            votedPerks.put(perkId, false);
+        Optional<Perk> perkOpt = perkService.findPerk(perkId);
+        if (perkOpt.isPresent()) {
+            model.addAttribute("perk", perkOpt.get());
         }
 
-        sesh.setAttribute("votedPerks", votedPerks);
-        return "redirect:/perks/dashboard";
+        model.addAttribute("votedPerks", votedPerks);
+
+        return "fragments/perk-list :: vote-section";
+    }
+
+    /**
+     * Looks up the current user's votes on the perks being rendered.
+     *
+     * @param user  the logged-in user, null if anonymous
+     * @param perks the perks on the page
+     * @return perk ID to vote direction, empty for anonymous users
+     */
+    private Map<Long, Boolean> votedPerks(User user, List<Perk> perks) {
+        if (user == null) {
+            return new HashMap<>();
+        }
+        return perkService.findUserVotes(user.getId(), perks);
     }
-}
\ No newline at end of file
+}
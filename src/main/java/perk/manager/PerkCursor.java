@@ -0,0 +1,116 @@
+package perk.manager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for paging through perks.
+ *
+ * A cursor remembers the sort key and ID of the last perk on a page, so the
+ * next page starts strictly after it with a seek into an ordered index instead
+ * of an offset. Votes are paged on (votes desc, id desc) and expiry on
+ * (expiryDate asc, id asc). Relevance ordering only exists for keyword
+ * searches, which are ranked in memory, so its key is a position in the ranking.
+ *
+ * @param sort the ordering the cursor belongs to
+ * @param key  the votes, expiry epoch day or ranking position of the last perk returned
+ * @param id   the ID of the last perk returned
+ */
+public record PerkCursor(Sort sort, long key, long id) {
+
+    /**
+     * An entry of an in-memory perk ordering that a page can end at.
+     */
+    interface Position {
+        /**
+         * @return the ID of the perk.
+         */
+        long id();
+
+        /**
+         * @return the cursor that continues a page ending at this entry.
+         */
+        PerkCursor cursor();
+    }
+
+    /**
+     * The orderings a perk list can be paged in.
+     */
+    public enum Sort {
+        VOTES, EXPIRY, RELEVANCE;
+
+        /**
+         * Resolves the sortBy request parameter, defaulting to votes.
+         *
+         * @param sortBy "votes", "expiry" or "relevance", case-insensitive, may be null
+         * @return the matching ordering
+         */
+        public static Sort from(String sortBy) {
+            if ("expiry".equalsIgnoreCase(sortBy)) {
+                return EXPIRY;
+            }
+            if ("relevance".equalsIgnoreCase(sortBy)) {
+                return RELEVANCE;
+            }
+            return VOTES;
+        }
+
+        /**
+         * @return whether the key can be the votes, expiry epoch day or ranking position of a perk
+         */
+        boolean accepts(long key) {
+            return switch (this) {
+                case VOTES -> key >= Integer.MIN_VALUE && key <= Integer.MAX_VALUE;
+                case EXPIRY -> key >= LocalDate.MIN.toEpochDay() && key <= LocalDate.MAX.toEpochDay();
+                case RELEVANCE -> key >= 0 && key <= Integer.MAX_VALUE;
+            };
+        }
+    }
+
+    /**
+     * @return the votes of the last perk returned.
+     */
+    public int votes() {
+        return (int) key;
+    }
+
+    /**
+     * @return the expiry date of the last perk returned.
+     */
+    public LocalDate expiryDate() {
+        return LocalDate.ofEpochDay(key);
+    }
+
+    /**
+     * @return the URL-safe token handed to clients.
+     */
+    public String encode() {
+        String raw = sort.name().charAt(0) + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}.
+     *
+     * @param token    the token sent by the client
+     * @param expected the ordering of the current request
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed, belongs to another ordering or has a key out of range
+     */
+    public static PerkCursor decode(String token, Sort expected) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3 || parts[0].length() != 1 || parts[0].charAt(0) != expected.name().charAt(0)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            long key = Long.parseLong(parts[1]);
+            if (!expected.accepts(key)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PerkCursor(expected, key, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package perk.manager;
+
+import java.time.LocalDate;
+
+/**
+ * One perk to create, as posted to the bulk creation API.
+ *
+ * @param title          the perk title
+ * @param description    the perk description
+ * @param region         the region the perk is valid in
+ * @param membershipType the name of the membership the perk belongs to
+ * @param userId         the ID of the user creating the perk
+ * @param expiryDate     the date the perk expires
+ */
+public record PerkDraft(String title, String description, String region, String membershipType,
+                        Long userId, LocalDate expiryDate) {
+}
@@ -0,0 +1,180 @@
+package perk.manager;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of the active perks, ordered by expiry date, overall and per membership type.
+ *
+ * A perk is active while its expiry date is today or later. Each ordering is a
+ * skip list on (expiryDate asc, id asc), the order the dashboard pages in by
+ * expiry, so a page, or every perk expiring within N days, is an O(log n + N)
+ * walk. The same ordering makes the soonest-expiring perks the head of the
+ * list, so the midnight sweep pops exactly the perks that just expired.
+ */
+@Component
+public class PerkExpiryIndex {
+
+    /**
+     * A perk's position in an ordering.
+     *
+     * @param expiryDate the perk's expiry date
+     * @param id         the perk ID, breaking ties between equal dates
+     */
+    public record Entry(LocalDate expiryDate, long id) implements Comparable<Entry>, PerkCursor.Position {
+
+        private static final Comparator<Entry> ORDER =
+                Comparator.comparing(Entry::expiryDate).thenComparingLong(Entry::id);
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public PerkCursor cursor() {
+            return new PerkCursor(PerkCursor.Sort.EXPIRY, expiryDate.toEpochDay(), id);
+        }
+    }
+
+    /** Where a perk currently sits, so it can be found again in both orderings. */
+    private record Indexed(Entry entry, String membershipKey) {}
+
+    private final NavigableSet<Entry> global = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<Entry>> byMembership = new ConcurrentHashMap<>();
+    private final Map<Long, Indexed> perks = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a perk, or moves it if it is already indexed. Perks without an expiry date are ignored.
+     *
+     * @param perk the perk to index
+     */
+    public void add(Perk perk) {
+        if (perk.getExpiryDate() == null) {
+            return;
+        }
+        String membershipKey = perk.getMembershipType() == null ? null : key(perk.getMembershipType().getName());
+        Entry entry = new Entry(perk.getExpiryDate(), perk.getId());
+        perks.compute(perk.getId(), (id, old) -> {
+            unlink(old);
+            Indexed indexed = new Indexed(entry, membershipKey);
+            link(indexed);
+            return indexed;
+        });
+    }
+
+    /**
+     * Removes a perk from every ordering. Unknown IDs are ignored.
+     *
+     * @param perkId the ID of the perk
+     */
+    public void remove(long perkId) {
+        perks.computeIfPresent(perkId, (id, old) -> {
+            unlink(old);
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the index with the given perks.
+     *
+     * @param active every perk that is currently active
+     */
+    public synchronized void rebuild(Iterable<Perk> active) {
+        perks.clear();
+        global.clear();
+        byMembership.clear();
+        for (Perk perk : active) {
+            add(perk);
+        }
+    }
+
+    /**
+     * Returns perks in expiry order, optionally of one membership type, starting after a cursor.
+     *
+     * @param membershipType the membership type name to page within, null or empty for all perks
+     * @param from           the earliest expiry date returned, normally today
+     * @param after          the expiry cursor of the previous page, null to start at from
+     * @param through        the latest expiry date returned, null for no limit
+     * @param limit          the maximum number of entries to return
+     * @return up to limit entries, soonest expiry first
+     */
+    public List<Entry> page(String membershipType, LocalDate from, PerkCursor after, LocalDate through, int limit) {
+        NavigableSet<Entry> ordering = membershipType == null || membershipType.isEmpty()
+                ? global
+                : byMembership.getOrDefault(key(membershipType), Collections.emptyNavigableSet());
+        Entry start = new Entry(from, Long.MIN_VALUE);
+        Entry cursor = after == null ? null : new Entry(after.expiryDate(), after.id());
+        NavigableSet<Entry> range = cursor != null && cursor.compareTo(start) >= 0
+                ? ordering.tailSet(cursor, false)
+                : ordering.tailSet(start, true);
+
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : range) {
+            if (entries.size() == limit || (through != null && entry.expiryDate().isAfter(through))) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Removes every perk that expired before the given day.
+     *
+     * @param today the first day on which perks are still active
+     * @return the IDs of the removed perks
+     */
+    public List<Long> expireBefore(LocalDate today) {
+        List<Long> expired = new ArrayList<>();
+        for (Entry entry : global.headSet(new Entry(today, Long.MIN_VALUE), false)) {
+            remove(entry.id());
+            expired.add(entry.id());
+        }
+        return expired;
+    }
+
+    /**
+     * @param perkId the ID of the perk
+     * @return the perk's current position, empty if it is not indexed
+     */
+    public Optional<Entry> entry(long perkId) {
+        Indexed indexed = perks.get(perkId);
+        return indexed == null ? Optional.empty() : Optional.of(indexed.entry());
+    }
+
+    /**
+     * @return the number of indexed perks.
+     */
+    public int size() {
+        return perks.size();
+    }
+
+    private void link(Indexed indexed) {
+        global.add(indexed.entry());
+        if (indexed.membershipKey() != null) {
+            byMembership.computeIfAbsent(indexed.membershipKey(), m -> new ConcurrentSkipListSet<>()).add(indexed.entry());
+        }
+    }
+
+    private void unlink(Indexed indexed) {
+        if (indexed == null) {
+            return;
+        }
+        global.remove(indexed.entry());
+        if (indexed.membershipKey() != null) {
+            NavigableSet<Entry> ordering = byMembership.get(indexed.membershipKey());
+            if (ordering != null) {
+                ordering.remove(indexed.entry());
+            }
+        }
+    }
+
+    private static String key(String membershipType) {
+        return membershipType.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,123 @@
+package perk.manager;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the whole perk catalog as newline-delimited JSON.
+ *
+ * Rows are read through a forward-only, read-only JDBC cursor and each one is
+ * written to the output as soon as it is read, so memory use does not grow with
+ * the catalog and the first line goes out before the last row is fetched. No
+ * entities are loaded, so the export neither fills the persistence context nor
+ * churns the second-level cache.
+ *
+ * Expired perks are included: the export is a full copy of the catalog for
+ * partners to sync from, not the list users browse.
+ */
+@Component
+public class PerkExporter {
+
+    /** Rows the driver fetches per round trip. */
+    static final int FETCH_SIZE = 500;
+
+    private static final String SELECT = "select p.id, p.title, p.description, p.region, p.expiry_date, p.votes, " +
+            "m.name, u.username, p.last_modified from perk p " +
+            "left join membership_type m on m.id = p.membership_type_id left join users u on u.id = p.created_by_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VoteWriteBuffer voteWriteBuffer;
+    private final ObjectMapper objectMapper;
+
+    public PerkExporter(JdbcTemplate jdbcTemplate, VoteWriteBuffer voteWriteBuffer, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.voteWriteBuffer = voteWriteBuffer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes one JSON object per perk, in ID order, each followed by a newline.
+     *
+     * Each object has the fields of a PerkSummary plus lastModified, the instant the
+     * perk was created or last changed. Passing the latest lastModified of one export
+     * as modifiedSince of the next fetches only what changed in between.
+     *
+     * @param membershipType only export perks of this membership, case-insensitive, or null for all
+     * @param modifiedSince  only export perks changed at or after this instant, or null for all
+     * @param out            the stream to write to; flushed but not closed
+     * @return the number of perks written
+     * @throws IOException if writing to the stream fails
+     */
+    public long export(String membershipType, Instant modifiedSince, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>();
+        if (membershipType != null) {
+            sql.append(args.isEmpty() ? " where " : " and ").append("lower(m.name) = lower(?)");
+            args.add(membershipType);
+        }
+        if (modifiedSince != null) {
+            sql.append(args.isEmpty() ? " where " : " and ").append("p.last_modified >= ?");
+            args.add(Timestamp.from(modifiedSince));
+        }
+        sql.append(" order by p.id");
+
+        long[] written = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < args.size(); i++) {
+                    statement.setObject(i + 1, args.get(i));
+                }
+                return statement;
+            }, row -> {
+                try {
+                    writePerk(json, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        return written[0];
+    }
+
+    private void writePerk(JsonGenerator json, ResultSet row) throws SQLException, IOException {
+        long id = row.getLong(1);
+        Date expiryDate = row.getDate(5);
+        Timestamp lastModified = row.getTimestamp(9);
+
+        json.writeStartObject();
+        json.writeNumberField("id", id);
+        json.writeStringField("title", row.getString(2));
+        json.writeStringField("description", row.getString(3));
+        json.writeStringField("region", row.getString(4));
+        json.writeStringField("expiryDate", expiryDate == null ? null : expiryDate.toLocalDate().toString());
+        json.writeNumberField("votes", row.getInt(6) + voteWriteBuffer.pendingVotes(id));
+        json.writeStringField("membershipType", row.getString(7));
+        json.writeStringField("createdBy", row.getString(8));
+        json.writeStringField("lastModified", lastModified == null ? null : lastModified.toInstant().toString());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+}
@@ -0,0 +1,459 @@
+package perk.manager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Parses a partner's perk feed, CSV or NDJSON, into PerkDrafts.
+ *
+ * The file is mapped into memory one segment at a time rather than read through
+ * a stream, so a multi-gigabyte feed never passes through a Java heap buffer. A
+ * record cut off at the end of a segment is re-read from the start of the next.
+ * Each record is copied once into a reusable scratch array and parsed in place:
+ * CSV quotes are unescaped within it, and the membership name and expiry date are
+ * matched and parsed straight from its bytes, so only the title, description and
+ * region ever become Strings.
+ *
+ * CSV feeds start with a header naming their columns, in any order:
+ * title, description, region, membershipType and expiryDate (yyyy-MM-dd).
+ * NDJSON feeds have one object per line with the same fields.
+ *
+ * A reader keeps parsing state and is used for one file by one thread.
+ */
+class PerkFeedReader {
+
+    /**
+     * The feed formats that can be read.
+     */
+    enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Resolves the requested format, falling back to the file extension.
+         *
+         * @param format "csv" or "ndjson", case-insensitive, may be null
+         * @param file   the feed file
+         * @return the format of the feed
+         * @throws IllegalArgumentException if neither names a known format
+         */
+        static Format from(String format, Path file) {
+            String name = format != null ? format : extension(file);
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "ndjson", "jsonl" -> NDJSON;
+                default -> throw new IllegalArgumentException("Format must be csv or ndjson");
+            };
+        }
+
+        private static String extension(Path file) {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            return dot < 0 ? "" : name.substring(dot + 1);
+        }
+    }
+
+    /**
+     * Receives the records of a feed in file order.
+     */
+    interface Sink {
+        /**
+         * @param line  the line the record starts on, counting from 1
+         * @param draft the perk the record describes
+         */
+        void accept(long line, PerkDraft draft);
+
+        /**
+         * @param line   the line the record starts on, counting from 1
+         * @param reason why the record cannot be imported
+         */
+        void reject(long line, String reason);
+    }
+
+    private static final int TITLE = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int REGION = 2;
+    private static final int MEMBERSHIP = 3;
+    private static final int EXPIRY = 4;
+    private static final List<String> COLUMNS = List.of("title", "description", "region", "membershiptype", "expirydate");
+
+    private final Format format;
+    private final int segmentBytes;
+    private final JsonFactory jsonFactory;
+    private final Long userId;
+    private final LocalDate today;
+
+    /** Lower-cased UTF-8 membership names, matched against CSV bytes, and the names they stand for. */
+    private final byte[][] membershipKeys;
+    private final String[] membershipNames;
+    private final Map<String, String> membershipsByKey = new HashMap<>();
+
+    private byte[] scratch = new byte[4096];
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private int fieldCount;
+    /** The field index of each CSV column, -1 when absent; null until the header is read. */
+    private int[] columns;
+
+    /**
+     * @param format       the format of the feed
+     * @param segmentBytes how much of the file to map at a time; also the longest record accepted
+     * @param jsonFactory  the factory NDJSON records are parsed with
+     * @param memberships  the membership types perks may belong to
+     * @param userId       the user the imported perks are created by
+     * @param today        the date expiry dates must be after
+     */
+    PerkFeedReader(Format format, int segmentBytes, JsonFactory jsonFactory, List<MembershipType> memberships,
+                   Long userId, LocalDate today) {
+        this.format = format;
+        this.segmentBytes = segmentBytes;
+        this.jsonFactory = jsonFactory;
+        this.userId = userId;
+        this.today = today;
+        this.membershipKeys = new byte[memberships.size()][];
+        this.membershipNames = new String[memberships.size()];
+        for (int i = 0; i < memberships.size(); i++) {
+            String name = memberships.get(i).getName();
+            membershipNames[i] = name;
+            membershipKeys[i] = name.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+            membershipsByKey.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+        }
+    }
+
+    /**
+     * Reads every record of a feed.
+     *
+     * @param file     the feed file
+     * @param sink     receives each record
+     * @param progress receives the number of bytes fully read after each record
+     * @throws IOException if the file cannot be read, a record does not fit in a segment,
+     *                     or a CSV feed has no usable header
+     */
+    void read(Path file, Sink sink, LongConsumer progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long line = 1;
+            while (position < size) {
+                long length = Math.min(segmentBytes, size - position);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int start = position == 0 ? byteOrderMarkLength(segment) : 0;
+                boolean last = position + length == size;
+
+                int recordStart = start;
+                int newlinesInRecord = 0;
+                boolean quoted = false;
+                int limit = segment.limit();
+                for (int i = start; i < limit; i++) {
+                    byte b = segment.get(i);
+                    if (b == '"' && format == Format.CSV) {
+                        quoted = !quoted;
+                    } else if (b == '\n') {
+                        if (quoted) {
+                            newlinesInRecord++;
+                        } else {
+                            record(segment, recordStart, i, line, sink);
+                            line += newlinesInRecord + 1;
+                            newlinesInRecord = 0;
+                            recordStart = i + 1;
+                            progress.accept(position + recordStart);
+                        }
+                    }
+                }
+                if (last && recordStart < limit) {
+                    record(segment, recordStart, limit, line, sink);
+                    recordStart = limit;
+                }
+                if (recordStart == 0 && !last) {
+                    throw new IOException("Record on line " + line + " is longer than " + segmentBytes + " bytes");
+                }
+                position += recordStart;
+                progress.accept(position);
+            }
+        }
+        if (format == Format.CSV && columns == null) {
+            throw new IOException("CSV feed has no header");
+        }
+    }
+
+    private static int byteOrderMarkLength(MappedByteBuffer segment) {
+        boolean bom = segment.limit() >= 3 && segment.get(0) == (byte) 0xEF
+                && segment.get(1) == (byte) 0xBB && segment.get(2) == (byte) 0xBF;
+        return bom ? 3 : 0;
+    }
+
+    private void record(MappedByteBuffer segment, int start, int end, long line, Sink sink) throws IOException {
+        int length = end - start;
+        if (length > 0 && segment.get(end - 1) == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        segment.get(start, scratch, 0, length);
+        if (format == Format.CSV) {
+            csvRecord(length, line, sink);
+        } else {
+            jsonRecord(length, line, sink);
+        }
+    }
+
+    private void csvRecord(int length, long line, Sink sink) throws IOException {
+        splitFields(length);
+        if (columns == null) {
+            readHeader();
+            return;
+        }
+
+        String error = null;
+        String membership = null;
+        LocalDate expiryDate = null;
+        int membershipField = columns[MEMBERSHIP];
+        int expiryField = columns[EXPIRY];
+        if (isBlank(columns[TITLE])) {
+            error = "Title is required";
+        } else if (isBlank(expiryField)) {
+            error = "Expiry date is required";
+        } else if ((expiryDate = parseDate(fieldStart[expiryField], fieldEnd[expiryField])) == null) {
+            error = "Invalid expiry date";
+        } else if (membershipField >= fieldCount
+                || (membership = matchMembership(fieldStart[membershipField], fieldEnd[membershipField])) == null) {
+            error = "Membership Type not found";
+        }
+        emit(line, error, field(TITLE), field(DESCRIPTION), field(REGION), membership, expiryDate, sink);
+    }
+
+    private void jsonRecord(int length, long line, Sink sink) {
+        String title = null;
+        String description = null;
+        String region = null;
+        String membershipType = null;
+        String expiry = null;
+        try (JsonParser parser = jsonFactory.createParser(scratch, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                sink.reject(line, "Record is not a JSON object");
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "title" -> title = parser.getValueAsString();
+                    case "description" -> description = parser.getValueAsString();
+                    case "region" -> region = parser.getValueAsString();
+                    case "membershipType" -> membershipType = parser.getValueAsString();
+                    case "expiryDate" -> expiry = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            sink.reject(line, "Malformed JSON: " + e.getOriginalMessage());
+            return;
+        } catch (IOException e) {
+            throw new IllegalStateException("Parsing an in-memory record failed", e);
+        }
+
+        String error = null;
+        String membership = null;
+        LocalDate expiryDate = null;
+        if (title == null || title.isBlank()) {
+            error = "Title is required";
+        } else if (expiry == null || expiry.isBlank()) {
+            error = "Expiry date is required";
+        } else if ((expiryDate = parseDate(expiry.strip())) == null) {
+            error = "Invalid expiry date";
+        } else if (membershipType == null
+                || (membership = membershipsByKey.get(membershipType.strip().toLowerCase(Locale.ROOT))) == null) {
+            error = "Membership Type not found";
+        }
+        emit(line, error, title, description, region, membership, expiryDate, sink);
+    }
+
+    private void emit(long line, String error, String title, String description, String region,
+                      String membership, LocalDate expiryDate, Sink sink) {
+        if (error == null && !expiryDate.isAfter(today)) {
+            error = "Expiry date must be a future date";
+        }
+        if (error != null) {
+            sink.reject(line, error);
+        } else {
+            sink.accept(line, new PerkDraft(title, description, region, membership, userId, expiryDate));
+        }
+    }
+
+    /**
+     * Splits the record in the scratch array into fields, unescaping quoted fields in place.
+     */
+    private void splitFields(int length) {
+        fieldCount = 0;
+        int read = 0;
+        int write = 0;
+        while (true) {
+            if (fieldCount == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+            }
+            fieldStart[fieldCount] = write;
+            if (read < length && scratch[read] == '"') {
+                read++;
+                while (read < length) {
+                    byte b = scratch[read++];
+                    if (b != '"') {
+                        scratch[write++] = b;
+                    } else if (read < length && scratch[read] == '"') {
+                        scratch[write++] = '"';
+                        read++;
+                    } else {
+                        break;
+                    }
+                }
+                while (read < length && scratch[read] != ',') {
+                    read++;
+                }
+            } else {
+                while (read < length && scratch[read] != ',') {
+                    scratch[write++] = scratch[read++];
+                }
+            }
+            fieldEnd[fieldCount++] = write;
+            if (read >= length) {
+                return;
+            }
+            read++;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        columns = new int[COLUMNS.size()];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < fieldCount; i++) {
+            String name = new String(scratch, fieldStart[i], fieldEnd[i] - fieldStart[i], StandardCharsets.UTF_8)
+                    .replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT);
+            int column = COLUMNS.indexOf(name);
+            if (column >= 0 && columns[column] < 0) {
+                columns[column] = i;
+            }
+        }
+        if (columns[TITLE] < 0 || columns[MEMBERSHIP] < 0 || columns[EXPIRY] < 0) {
+            throw new IOException("CSV header must name the title, membershipType and expiryDate columns");
+        }
+    }
+
+    private String field(int column) {
+        int index = columns[column];
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        return new String(scratch, fieldStart[index], fieldEnd[index] - fieldStart[index], StandardCharsets.UTF_8);
+    }
+
+    private boolean isBlank(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return true;
+        }
+        for (int i = fieldStart[index]; i < fieldEnd[index]; i++) {
+            if (scratch[i] != ' ' && scratch[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the membership named by a range of the scratch array, ignoring ASCII case
+     * and surrounding spaces.
+     */
+    private String matchMembership(int start, int end) {
+        while (start < end && scratch[start] == ' ') {
+            start++;
+        }
+        while (end > start && scratch[end - 1] == ' ') {
+            end--;
+        }
+        for (int m = 0; m < membershipKeys.length; m++) {
+            byte[] key = membershipKeys[m];
+            if (key.length != end - start) {
+                continue;
+            }
+            int i = 0;
+            while (i < key.length && lowerCase(scratch[start + i]) == key[i]) {
+                i++;
+            }
+            if (i == key.length) {
+                return membershipNames[m];
+            }
+        }
+        return null;
+    }
+
+    private static byte lowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Parses a yyyy-MM-dd date from a range of the scratch array, ignoring surrounding spaces.
+     *
+     * @return the date, or null if the range does not hold a valid one
+     */
+    private LocalDate parseDate(int start, int end) {
+        while (start < end && scratch[start] == ' ') {
+            start++;
+        }
+        while (end > start && scratch[end - 1] == ' ') {
+            end--;
+        }
+        if (end - start != 10 || scratch[start + 4] != '-' || scratch[start + 7] != '-') {
+            return null;
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            if (scratch[i] < '0' || scratch[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (scratch[i] - '0');
+        }
+        return value;
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
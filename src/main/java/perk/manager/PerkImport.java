@@ -0,0 +1,144 @@
+package perk.manager;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One run of the PerkImporter over a feed file.
+ *
+ * The reader thread and the workers saving its chunks update the counters
+ * concurrently, and callers can take a consistent-enough Status at any time
+ * while the import runs.
+ */
+public class PerkImport {
+
+    /** Rejected rows kept for the report; later rejections are only counted. */
+    static final int MAX_REJECTIONS_KEPT = 1_000;
+
+    /**
+     * The lifecycle of an import.
+     */
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * A row that was not imported.
+     *
+     * @param line   the line of the feed the row starts on
+     * @param reason why it was rejected
+     */
+    public record Rejection(long line, String reason) {}
+
+    /**
+     * A point-in-time view of an import.
+     *
+     * @param id            the import ID
+     * @param file          the feed file, relative to the import directory
+     * @param format        the feed format
+     * @param state         where the import is in its lifecycle
+     * @param totalBytes    the size of the feed
+     * @param bytesRead     how much of the feed has been parsed
+     * @param rowsRead      the records parsed so far, valid or not
+     * @param created       the perks created so far
+     * @param rejected      the rows rejected so far, by the parser or the database
+     * @param rowsPerSecond records parsed per second since the import started
+     * @param startedAt     when the import started running, null while queued
+     * @param finishedAt    when the import completed or failed, null while it runs
+     * @param error         why the import failed, null unless it did
+     */
+    public record Status(long id, String file, PerkFeedReader.Format format, State state, long totalBytes,
+                         long bytesRead, long rowsRead, long created, long rejected, long rowsPerSecond,
+                         Instant startedAt, Instant finishedAt, String error) {}
+
+    private final long id;
+    private final String file;
+    private final PerkFeedReader.Format format;
+    private final long totalBytes;
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String error;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger rejectionsKept = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Rejection> rejections = new ConcurrentLinkedQueue<>();
+
+    PerkImport(long id, String file, PerkFeedReader.Format format, long totalBytes) {
+        this.id = id;
+        this.file = file;
+        this.format = format;
+        this.totalBytes = totalBytes;
+    }
+
+    public long getId() {return id;}
+
+    PerkFeedReader.Format getFormat() {return format;}
+
+    /**
+     * @return the current progress of the import.
+     */
+    public Status status() {
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        long elapsed = startNanos == 0 ? 0 : end - startNanos;
+        long rows = rowsRead.get();
+        long rowsPerSecond = elapsed == 0 ? 0 : (long) (rows * 1_000_000_000.0 / elapsed);
+        return new Status(id, file, format, state, totalBytes, bytesRead.get(), rows, created.get(),
+                rejected.get(), rowsPerSecond, startedAt, finishedAt, error);
+    }
+
+    /**
+     * @return the first MAX_REJECTIONS_KEPT rejected rows, in line order.
+     */
+    public List<Rejection> rejections() {
+        return rejections.stream().sorted(Comparator.comparingLong(Rejection::line)).toList();
+    }
+
+    void started() {
+        startNanos = System.nanoTime();
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void progress(long bytes) {
+        bytesRead.set(bytes);
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void created(int count) {
+        created.addAndGet(count);
+    }
+
+    void reject(long line, String reason) {
+        rejected.incrementAndGet();
+        if (rejectionsKept.getAndIncrement() < MAX_REJECTIONS_KEPT) {
+            rejections.add(new Rejection(line, reason));
+        }
+    }
+
+    void completed() {
+        finish(State.COMPLETED, null);
+    }
+
+    void failed(String error) {
+        finish(State.FAILED, error);
+    }
+
+    private void finish(State state, String error) {
+        finishNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        this.error = error;
+        this.state = state;
+    }
+}
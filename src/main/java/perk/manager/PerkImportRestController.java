@@ -0,0 +1,87 @@
+package perk.manager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for importing partner perk feeds.
+ *
+ * Feeds are files placed in the import directory by the partner's upload job.
+ * An import runs in the background; clients start it, then poll its status for
+ * progress, throughput and the rows that were rejected.
+ */
+@RestController
+@RequestMapping("/api/perks/imports")
+public class PerkImportRestController {
+
+    @Autowired
+    private PerkImporter perkImporter;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Starts importing a feed, creating its perks as the current user.
+     *
+     * @param file      the feed file, relative to the import directory
+     * @param format    "csv" or "ndjson", omitted to go by the file extension
+     * @param principal the authenticated user
+     * @return ResponseEntity containing the status of the queued import, or an error message
+     */
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestParam String file,
+                                         @RequestParam(required = false) String format,
+                                         @AuthenticationPrincipal org.springframework.security.core.userdetails.User principal) {
+        User user = principal == null ? null : userService.findByUsername(principal.getUsername()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not logged in"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(perkImporter.start(file, format, user.getId()).status());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * @return ResponseEntity containing the status of every import since the application started
+     */
+    @GetMapping
+    public ResponseEntity<List<PerkImport.Status>> getImports() {
+        return ResponseEntity.ok(perkImporter.all().stream().map(PerkImport::status).toList());
+    }
+
+    /**
+     * Reports the progress of an import: bytes and rows read, perks created,
+     * rows rejected and rows per second.
+     *
+     * @param id the import ID
+     * @return ResponseEntity containing the import status, or 404 if there is no such import
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<PerkImport.Status> getImport(@PathVariable long id) {
+        return perkImporter.find(id)
+                .map(perkImport -> ResponseEntity.ok(perkImport.status()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Lists the rows of an import that were rejected so far, with the line each
+     * starts on and why. Only the first 1,000 are kept.
+     *
+     * @param id the import ID
+     * @return ResponseEntity containing the rejected rows in line order, or 404 if there is no such import
+     */
+    @GetMapping("/{id}/rejections")
+    public ResponseEntity<List<PerkImport.Rejection>> getRejections(@PathVariable long id) {
+        return perkImporter.find(id)
+                .map(perkImport -> ResponseEntity.ok(perkImport.rejections()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
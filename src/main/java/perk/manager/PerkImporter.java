@@ -0,0 +1,245 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports partner perk feeds from files in the import directory.
+ *
+ * Each import runs in the background: a reader thread parses the feed with a
+ * PerkFeedReader and hands valid rows, BULK_CHUNK_SIZE at a time, to a fixed
+ * pool of workers that save them through PerkService.createPerks. The pool's
+ * queue is bounded and a full queue makes the reader save the chunk itself, so
+ * parsing never runs more than a few chunks ahead of the database and memory
+ * stays bounded however large the feed is.
+ *
+ * Only files inside the import directory can be imported.
+ */
+@Component
+public class PerkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PerkImporter.class);
+
+    private final PerkService perkService;
+    private final MembershipCatalog membershipCatalog;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int segmentBytes;
+    private final ExecutorService readers;
+    private final ThreadPoolExecutor workers;
+
+    private final Map<Long, PerkImport> imports = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    public PerkImporter(PerkService perkService,
+                        MembershipCatalog membershipCatalog,
+                        ObjectMapper objectMapper,
+                        @Value("${perk.import.directory:imports}") String directory,
+                        @Value("${perk.import.workers:4}") int workers,
+                        @Value("${perk.import.max-concurrent:2}") int maxConcurrent,
+                        @Value("${perk.import.segment-bytes:67108864}") int segmentBytes) {
+        this.perkService = perkService;
+        this.membershipCatalog = membershipCatalog;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.segmentBytes = segmentBytes;
+        this.readers = Executors.newFixedThreadPool(maxConcurrent,
+                new CustomizableThreadFactory("perk-import-reader-"));
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), new CustomizableThreadFactory("perk-import-worker-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queues a feed for import.
+     *
+     * @param file   the feed file, relative to the import directory
+     * @param format "csv" or "ndjson", or null to go by the file extension
+     * @param userId the user the imported perks are created by
+     * @return the queued import
+     * @throws IllegalArgumentException if the file is outside the import directory,
+     *                                  does not exist, or is in an unknown format
+     */
+    public PerkImport start(String file, String format, long userId) {
+        if (file == null || file.isBlank()) {
+            throw new IllegalArgumentException("File is required");
+        }
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new IllegalArgumentException("File must be inside the import directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("File not found");
+        }
+        PerkFeedReader.Format feedFormat = PerkFeedReader.Format.from(format, path);
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        PerkImport perkImport = new PerkImport(nextId.incrementAndGet(), directory.relativize(path).toString(),
+                feedFormat, size);
+        imports.put(perkImport.getId(), perkImport);
+        readers.execute(() -> run(perkImport, path, userId));
+        return perkImport;
+    }
+
+    /**
+     * @param id the import ID
+     * @return the import with that ID, if one was started since the application started
+     */
+    public Optional<PerkImport> find(long id) {
+        return Optional.ofNullable(imports.get(id));
+    }
+
+    /**
+     * @return every import started since the application started, oldest first.
+     */
+    public List<PerkImport> all() {
+        return imports.values().stream().sorted(Comparator.comparingLong(PerkImport::getId)).toList();
+    }
+
+    void run(PerkImport perkImport, Path path, long userId) {
+        perkImport.started();
+        log.info("Importing {} as {}", path, perkImport.getFormat());
+        PerkFeedReader reader = new PerkFeedReader(perkImport.getFormat(), segmentBytes, objectMapper.getFactory(),
+                membershipCatalog.all(), userId, LocalDate.now());
+        ChunkingSink sink = new ChunkingSink(perkImport);
+        try {
+            reader.read(path, sink, perkImport::progress);
+            sink.finish();
+            sink.await();
+            perkImport.completed();
+            log.info("Imported {}: {}", path, perkImport.status());
+        } catch (IOException | RuntimeException e) {
+            sink.awaitQuietly();
+            perkImport.failed(e.getMessage());
+            log.warn("Import of {} failed", path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            perkImport.failed("Interrupted");
+        }
+    }
+
+    /**
+     * Counts parsed rows and hands valid ones to the workers a chunk at a time.
+     * Chunks still being saved are parties of a Phaser, registered on submit and
+     * deregistered when saved, so nothing is kept per chunk once it is done.
+     */
+    private final class ChunkingSink implements PerkFeedReader.Sink {
+        private final PerkImport perkImport;
+        /** The reader thread plus one party per chunk not yet saved. */
+        private final Phaser outstanding = new Phaser(1);
+        private List<PerkDraft> drafts = new ArrayList<>();
+        private List<Long> lines = new ArrayList<>();
+
+        ChunkingSink(PerkImport perkImport) {
+            this.perkImport = perkImport;
+        }
+
+        @Override
+        public void accept(long line, PerkDraft draft) {
+            perkImport.rowRead();
+            drafts.add(draft);
+            lines.add(line);
+            if (drafts.size() == PerkService.BULK_CHUNK_SIZE) {
+                finish();
+            }
+        }
+
+        @Override
+        public void reject(long line, String reason) {
+            perkImport.rowRead();
+            perkImport.reject(line, reason);
+        }
+
+        /**
+         * Submits the rows collected since the last chunk, if any.
+         */
+        void finish() {
+            if (drafts.isEmpty()) {
+                return;
+            }
+            List<PerkDraft> chunk = drafts;
+            List<Long> chunkLines = lines;
+            drafts = new ArrayList<>();
+            lines = new ArrayList<>();
+            outstanding.register();
+            try {
+                workers.execute(() -> {
+                    try {
+                        save(perkImport, chunk, chunkLines);
+                    } finally {
+                        outstanding.arriveAndDeregister();
+                    }
+                });
+            } catch (RuntimeException e) {
+                outstanding.arriveAndDeregister();
+                throw e;
+            }
+        }
+
+        /**
+         * Waits until every submitted chunk has been saved. Called once, by the reader.
+         */
+        void await() throws InterruptedException {
+            outstanding.awaitAdvanceInterruptibly(outstanding.arrive());
+        }
+
+        void awaitQuietly() {
+            try {
+                await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void save(PerkImport perkImport, List<PerkDraft> drafts, List<Long> lines) {
+        try {
+            BulkPerkResult result = perkService.createPerks(drafts);
+            perkImport.created(result.created());
+            for (BulkPerkResult.Item item : result.items()) {
+                if (item.error() != null) {
+                    perkImport.reject(lines.get(item.index()), item.error());
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Long line : lines) {
+                perkImport.reject(line, "Could not be saved: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+        workers.shutdown();
+    }
+}
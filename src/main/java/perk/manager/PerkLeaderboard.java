@@ -0,0 +1,182 @@
+package perk.manager;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory vote rankings of every perk, overall and per membership type.
+ *
+ * Each ranking is a skip list ordered by (votes desc, id desc), the same order
+ * the dashboard pages in, so the top N perks of a membership, or the N after a
+ * cursor, are an O(log n + N) walk with no database sort. Votes, creates and
+ * deletes update the rankings incrementally.
+ *
+ * Updates to one perk are serialized by its entry in the perk map; a concurrent
+ * reader may briefly miss a perk while it moves to its new position.
+ */
+@Component
+public class PerkLeaderboard {
+
+    /**
+     * A perk's position in a ranking.
+     *
+     * @param votes the perk's vote count
+     * @param id    the perk ID, breaking ties between equal counts
+     */
+    public record Entry(int votes, long id) implements Comparable<Entry>, PerkCursor.Position {
+
+        private static final Comparator<Entry> ORDER =
+                Comparator.comparingInt(Entry::votes).thenComparingLong(Entry::id).reversed();
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public PerkCursor cursor() {
+            return new PerkCursor(PerkCursor.Sort.VOTES, votes, id);
+        }
+    }
+
+    /** Where a perk currently sits, so it can be found again in both rankings. */
+    private record Ranked(Entry entry, String membershipKey) {}
+
+    private final NavigableSet<Entry> global = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<Entry>> byMembership = new ConcurrentHashMap<>();
+    private final Map<Long, Ranked> perks = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a perk, or moves it if it is already ranked.
+     *
+     * @param perk the perk to rank by its current vote count
+     */
+    public void add(Perk perk) {
+        String membershipKey = perk.getMembershipType() == null ? null : key(perk.getMembershipType().getName());
+        Entry entry = new Entry(perk.getVotes(), perk.getId());
+        perks.compute(perk.getId(), (id, old) -> {
+            unlink(old);
+            Ranked ranked = new Ranked(entry, membershipKey);
+            link(ranked);
+            return ranked;
+        });
+    }
+
+    /**
+     * Moves a ranked perk by a vote delta. Unranked perks are ignored.
+     *
+     * @param perkId the ID of the perk voted on
+     * @param delta  the signed change to its vote count
+     */
+    public void applyDelta(long perkId, int delta) {
+        perks.computeIfPresent(perkId, (id, old) -> {
+            unlink(old);
+            Ranked ranked = new Ranked(new Entry(old.entry().votes() + delta, id), old.membershipKey());
+            link(ranked);
+            return ranked;
+        });
+    }
+
+    /**
+     * Removes a perk from every ranking. Unknown IDs are ignored.
+     *
+     * @param perkId the ID of the deleted perk
+     */
+    public void remove(long perkId) {
+        perks.computeIfPresent(perkId, (id, old) -> {
+            unlink(old);
+            return null;
+        });
+    }
+
+    /**
+     * Replaces all rankings with the given perks.
+     *
+     * @param all every perk that should be ranked
+     */
+    public synchronized void rebuild(Iterable<Perk> all) {
+        perks.clear();
+        global.clear();
+        byMembership.clear();
+        for (Perk perk : all) {
+            add(perk);
+        }
+    }
+
+    /**
+     * Returns the highest-voted perks, optionally of one membership type, starting after a cursor.
+     *
+     * @param membershipType the membership type name to rank within, null or empty for all perks
+     * @param after          the votes cursor of the previous page, null to start at the top
+     * @param limit          the maximum number of entries to return
+     * @return up to limit entries, most votes first
+     */
+    public List<Entry> top(String membershipType, PerkCursor after, int limit) {
+        NavigableSet<Entry> ranking = membershipType == null || membershipType.isEmpty()
+                ? global
+                : byMembership.getOrDefault(key(membershipType), Collections.emptyNavigableSet());
+        if (after != null) {
+            ranking = ranking.tailSet(new Entry(after.votes(), after.id()), false);
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : ranking) {
+            if (entries.size() == limit) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * @param perkId the ID of the perk
+     * @return the perk's ranked vote count, empty if it is not ranked
+     */
+    public Optional<Integer> votes(long perkId) {
+        Ranked ranked = perks.get(perkId);
+        return ranked == null ? Optional.empty() : Optional.of(ranked.entry().votes());
+    }
+
+    /**
+     * @param perkId the ID of the perk
+     * @return the perk's current position, empty if it is not ranked
+     */
+    public Optional<Entry> entry(long perkId) {
+        Ranked ranked = perks.get(perkId);
+        return ranked == null ? Optional.empty() : Optional.of(ranked.entry());
+    }
+
+    /**
+     * @return the number of ranked perks.
+     */
+    public int size() {
+        return perks.size();
+    }
+
+    private void link(Ranked ranked) {
+        global.add(ranked.entry());
+        if (ranked.membershipKey() != null) {
+            byMembership.computeIfAbsent(ranked.membershipKey(), m -> new ConcurrentSkipListSet<>()).add(ranked.entry());
+        }
+    }
+
+    private void unlink(Ranked ranked) {
+        if (ranked == null) {
+            return;
+        }
+        global.remove(ranked.entry());
+        if (ranked.membershipKey() != null) {
+            NavigableSet<Entry> ranking = byMembership.get(ranked.membershipKey());
+            if (ranking != null) {
+                ranking.remove(ranked.entry());
+            }
+        }
+    }
+
+    private static String key(String membershipType) {
+        return membershipType.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,206 @@
+package perk.manager;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, least-recently-used cache of rendered perk lists, the first page of a search
+ * as returned to the dashboard's search box.
+ *
+ * A list is rendered once per membership filter, keyword and sort order and shared by
+ * every user: it is rendered as if nobody had voted, and each user's votes are applied
+ * by swapping in the highlighted buttons of the few perks they voted on. Entries are
+ * keyed by the catalog version, so any change to the perks makes every entry stale; the
+ * cache empties as soon as a newer version is asked for.
+ *
+ * The cache holds at most the configured number of bytes of UTF-8 markup, and is
+ * disabled when that is 0.
+ */
+@Component
+public class PerkListFragmentCache {
+
+    static final String TEMPLATE = "fragments/perk-list";
+
+    private final ITemplateEngine templateEngine;
+    private final CatalogVersion catalogVersion;
+    private final MembershipCatalog membershipCatalog;
+    private final long maxBytes;
+
+    private final Map<Key, Fragment> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long version = -1;
+    private long bytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache holding at most the configured number of bytes.
+     *
+     * @param maxBytes the most bytes of rendered markup kept before the least recently used list is evicted
+     */
+    public PerkListFragmentCache(ITemplateEngine templateEngine,
+                                 CatalogVersion catalogVersion,
+                                 MembershipCatalog membershipCatalog,
+                                 @Value("${perk.fragments.cache-bytes:16777216}") long maxBytes) {
+        this.templateEngine = templateEngine;
+        this.catalogVersion = catalogVersion;
+        this.membershipCatalog = membershipCatalog;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The search a list was rendered for, and the versions of the catalog it shows.
+     */
+    record Key(String membershipType, String keyword, String sortBy, long version, long membershipVersion) {
+    }
+
+    /**
+     * A perk list rendered without any user's votes, and the IDs of the perks on it.
+     */
+    record Fragment(byte[] markup, List<Long> perkIds) {
+
+        String html() {
+            return new String(markup, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return whether lists are cached at all
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Returns the rendered first page of a search, rendering and caching it on a miss.
+     *
+     * @param request the request the list is served for, whose context path its links use
+     * @param page    loads the first page of the search on a miss
+     */
+    public Fragment get(String membershipType, String keyword, String sortBy,
+                        ServletWebRequest request, Supplier<CursorPage<Perk>> page) {
+        // Read before the perks are, so a change made meanwhile only makes the entry older.
+        Key key = new Key(membershipType, keyword, sortBy, catalogVersion.current(), membershipCatalog.version());
+        synchronized (entries) {
+            if (key.version() > version) {
+                entries.clear();
+                bytes = 0;
+                version = key.version();
+            }
+            Fragment cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        CursorPage<Perk> perks = page.get();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("perks", perks.items());
+        variables.put("nextCursor", perks.nextCursor());
+        variables.put("sortBy", sortBy);
+        variables.put("selectedMembership", membershipType);
+        variables.put("keyword", keyword);
+        variables.put("isLoggedIn", true);
+        variables.put("votedPerks", Map.of());
+        Fragment rendered = new Fragment(
+                render("perk-list", variables, request).getBytes(StandardCharsets.UTF_8),
+                perks.items().stream().map(Perk::getId).toList());
+
+        synchronized (entries) {
+            if (key.version() == version && rendered.markup().length <= maxBytes && !entries.containsKey(key)) {
+                entries.put(key, rendered);
+                bytes += rendered.markup().length;
+                for (Iterator<Fragment> eldest = entries.values().iterator(); bytes > maxBytes; ) {
+                    bytes -= eldest.next().markup().length;
+                    eldest.remove();
+                }
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * Applies a user's votes to a shared list by highlighting their vote buttons.
+     *
+     * @param votes perk ID to true for an upvote or false for a downvote, as shown to the user
+     * @return the list's markup as the user sees it
+     */
+    public String withVotes(Fragment fragment, Map<Long, Boolean> votes, ServletWebRequest request) {
+        String html = fragment.html();
+        for (Map.Entry<Long, Boolean> vote : votes.entrySet()) {
+            html = html.replace(voteButton(vote.getKey(), vote.getValue(), false, request),
+                    voteButton(vote.getKey(), vote.getValue(), true, request));
+        }
+        return html;
+    }
+
+    private String voteButton(long perkId, boolean upvote, boolean active, ServletWebRequest request) {
+        return render("vote-button", Map.of("perkId", perkId, "upvote", upvote, "active", active), request);
+    }
+
+    private String render(String fragment, Map<String, Object> variables, ServletWebRequest request) {
+        // Shared markup never carries a session ID rewritten into its links.
+        HttpServletResponse response = new HttpServletResponseWrapper(request.getResponse()) {
+            @Override
+            public String encodeURL(String url) {
+                return url;
+            }
+        };
+        WebContext context = new WebContext(JakartaServletWebApplication
+                .buildApplication(request.getRequest().getServletContext())
+                .buildExchange(request.getRequest(), response), request.getLocale(), variables);
+        return templateEngine.process(TEMPLATE, Set.of(fragment), context);
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, 0 before the first one
+     */
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the bytes of rendered markup currently cached
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * @return the number of lists currently cached.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
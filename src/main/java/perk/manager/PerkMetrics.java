@@ -0,0 +1,151 @@
+package perk.manager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Application metrics that Spring Boot does not record on its own.
+ *
+ * Request timers, the HikariCP pool, Tomcat sessions, repository calls and
+ * Hibernate statistics are registered by Actuator. This class adds counters for
+ * votes, perk creations and searches, and gauges for the size of each in-memory
+ * index and cache, for write-behind flushes, for the live vote streams, the rendered perk list cache and the
+ * password hashing pool, read from the structures whenever the registry is scraped.
+ */
+@Component
+public class PerkMetrics {
+
+    private final Counter upvotes;
+    private final Counter downvotes;
+    private final Counter createdSingly;
+    private final Counter createdInBulk;
+    private final Counter keywordSearches;
+    private final Counter membershipSearches;
+    private final Counter unfilteredSearches;
+
+    public PerkMetrics(MeterRegistry registry,
+                       PerkSearchIndex searchIndex,
+                       PerkLeaderboard leaderboard,
+                       PerkExpiryIndex expiryIndex,
+                       PerkVoteStore voteStore,
+                       UserPrincipalCache principalCache,
+                       MembershipCatalog membershipCatalog,
+                       VoteWriteBuffer voteWriteBuffer,
+                       VoteBroadcaster voteBroadcaster,
+                       PerkListFragmentCache fragmentCache,
+                       PasswordHasher passwordHasher) {
+        upvotes = votes(registry, "up");
+        downvotes = votes(registry, "down");
+        createdSingly = created(registry, "single");
+        createdInBulk = created(registry, "bulk");
+        keywordSearches = searches(registry, "keyword");
+        membershipSearches = searches(registry, "membership");
+        unfilteredSearches = searches(registry, "all");
+
+        indexSize(registry, "search-index", searchIndex, PerkSearchIndex::size);
+        indexSize(registry, "leaderboard", leaderboard, PerkLeaderboard::size);
+        indexSize(registry, "expiry-index", expiryIndex, PerkExpiryIndex::size);
+        cacheSize(registry, "user-votes", voteStore, PerkVoteStore::size);
+        cacheSize(registry, "principals", principalCache, UserPrincipalCache::size);
+        cacheSize(registry, "memberships", membershipCatalog, catalog -> catalog.all().size());
+        Gauge.builder("perk.votes.pending", voteWriteBuffer, VoteWriteBuffer::getPendingPerks)
+                .description("Perks with a vote delta waiting in the write-behind buffer").register(registry);
+        FunctionCounter.builder("perk.votes.flushed", voteWriteBuffer, VoteWriteBuffer::getFlushedVotes)
+                .description("Votes written by write-behind flushes").register(registry);
+        FunctionCounter.builder("perk.votes.flushes", voteWriteBuffer, VoteWriteBuffer::getFlushCount)
+                .description("Write-behind flushes that wrote at least one delta").register(registry);
+        Gauge.builder("perk.votes.flush.batch", voteWriteBuffer, VoteWriteBuffer::getLastBatchSize)
+                .baseUnit("perks").description("Perks written by the most recent write-behind flush").register(registry);
+        TimeGauge.builder("perk.votes.flush.lag", voteWriteBuffer, TimeUnit.MILLISECONDS,
+                        VoteWriteBuffer::getLastFlushLagMillis)
+                .description("How long the oldest vote of the most recent flush waited in the buffer").register(registry);
+        Gauge.builder("perk.votes.subscribers", voteBroadcaster, VoteBroadcaster::getSubscriberCount)
+                .description("Dashboards streaming live vote counts").register(registry);
+        FunctionCounter.builder("perk.votes.broadcast.dropped", voteBroadcaster, VoteBroadcaster::getDroppedCounts)
+                .description("Vote counts dropped from a slow dashboard's full buffer").register(registry);
+        FunctionCounter.builder("perk.votes.broadcast.stalled", voteBroadcaster, VoteBroadcaster::getStalledSubscribers)
+                .description("Dashboards dropped because a send stayed blocked too long").register(registry);
+        cacheSize(registry, "perk-lists", fragmentCache, PerkListFragmentCache::size);
+        FunctionCounter.builder("perk.fragments.lookups", fragmentCache, PerkListFragmentCache::getHits)
+                .description("Rendered perk list lookups, by result").tag("result", "hit").register(registry);
+        FunctionCounter.builder("perk.fragments.lookups", fragmentCache, PerkListFragmentCache::getMisses)
+                .description("Rendered perk list lookups, by result").tag("result", "miss").register(registry);
+        Gauge.builder("perk.fragments.hit.ratio", fragmentCache, PerkListFragmentCache::getHitRatio)
+                .description("Share of rendered perk list lookups answered from the cache").register(registry);
+        Gauge.builder("perk.fragments.bytes", fragmentCache, PerkListFragmentCache::getBytes)
+                .baseUnit("bytes").description("Rendered perk list markup held by the cache").register(registry);
+        Gauge.builder("perk.passwords.queued", passwordHasher, PasswordHasher::getQueueDepth)
+                .description("Password hashes waiting for a hashing thread").register(registry);
+        Gauge.builder("perk.passwords.active", passwordHasher, PasswordHasher::getActiveHashes)
+                .description("Password hashes being computed").register(registry);
+        FunctionCounter.builder("perk.passwords.rejected", passwordHasher, PasswordHasher::getRejectedHashes)
+                .description("Password hashes refused with 503 because the queue was full").register(registry);
+    }
+
+    private static Counter votes(MeterRegistry registry, String direction) {
+        return Counter.builder("perk.votes").description("Changes to perk vote counts, by direction")
+                .tag("direction", direction).register(registry);
+    }
+
+    private static Counter created(MeterRegistry registry, String mode) {
+        return Counter.builder("perk.creations").description("Perks created")
+                .tag("mode", mode).register(registry);
+    }
+
+    private static Counter searches(MeterRegistry registry, String filter) {
+        return Counter.builder("perk.searches").description("Perk searches by the filter that drove them")
+                .tag("filter", filter).register(registry);
+    }
+
+    private static <T> void indexSize(MeterRegistry registry, String index, T structure, ToDoubleFunction<T> size) {
+        Gauge.builder("perk.index.size", structure, size)
+                .description("Active perks held by an in-memory index").tag("index", index).register(registry);
+    }
+
+    private static <T> void cacheSize(MeterRegistry registry, String cache, T structure, ToDoubleFunction<T> size) {
+        Gauge.builder("perk.cache.size", structure, size)
+                .description("Entries in an in-memory cache").tag("cache", cache).register(registry);
+    }
+
+    /**
+     * Counts a change to a perk's vote count.
+     *
+     * @param delta the signed change applied; positive counts as an upvote
+     */
+    public void voted(int delta) {
+        (delta > 0 ? upvotes : downvotes).increment();
+    }
+
+    /**
+     * Counts perks created one at a time through the form or the API.
+     */
+    public void created() {
+        createdSingly.increment();
+    }
+
+    /**
+     * Counts perks saved by a bulk creation.
+     *
+     * @param count the number of drafts that were created
+     */
+    public void createdInBulk(int count) {
+        createdInBulk.increment(count);
+    }
+
+    /**
+     * Counts a perk search.
+     *
+     * @param keyword whether the search had a keyword
+     * @param membership whether the search was filtered by membership
+     */
+    public void searched(boolean keyword, boolean membership) {
+        (keyword ? keywordSearches : membership ? membershipSearches : unfilteredSearches).increment();
+    }
+}
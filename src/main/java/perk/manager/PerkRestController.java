@@ -1,10 +1,15 @@
 package perk.manager;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -26,28 +31,93 @@ public class PerkRestController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PerkExporter perkExporter;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     /**
-     * Retrieves all perks available in the system
+     * Retrieves one page of the perks available in the system.
+     *
+     * Pages are keyset-paginated: the response carries an opaque nextCursor that
+     * is passed back to fetch the following page, and is null on the last page.
+     * Each perk is returned as a PerkSummary.
      *
-     * @return ResponseEntity containing the list of all perks
+     * @param sortBy "votes" (default) or "expiry"
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @param size    the maximum number of perks to return, at most 100
+     * @param request the request, checked against the catalog version's ETag
+     * @return ResponseEntity containing the page of perks, or an error message for an invalid cursor;
+     *         null if the client's copy is still current, answered with 304
      */
     @GetMapping
-    public ResponseEntity<List<Perk>> getAllPerks() {
-        return ResponseEntity.ok(perkService.getAllPerks());
+    public ResponseEntity<?> getAllPerks(@RequestParam(defaultValue = "votes") String sortBy,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "" + PerkService.DEFAULT_PAGE_SIZE) int size,
+                                         ServletWebRequest request) {
+        if (catalogVersion.notModified(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(perkService.findPerkSummaryPage(null, sortBy, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /**
      * Searches for perks matching the given membership type.
      *
      * @param membershipType the membership category to filter perks by
-     * @return ResponseEntity containing the filtered list of perks
+     * @return ResponseEntity containing summaries of the filtered perks
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Perk>> searchPerks(@RequestParam String membershipType) {
-        List<Perk> perks = perkService.searchByMembership(membershipType);
+    public ResponseEntity<List<PerkSummary>> searchPerks(@RequestParam String membershipType) {
+        List<PerkSummary> perks = perkService.searchSummariesByMembership(membershipType);
         return ResponseEntity.ok(perks);
     }
 
+    /**
+     * Retrieves one page of the active perks expiring within the next days, soonest first.
+     *
+     * Paged like {@link #getAllPerks}: pass the nextCursor back to fetch the following page.
+     *
+     * @param days   how many days after today to look ahead, 0 for perks expiring today
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @param size   the maximum number of perks to return, at most 100
+     * @return ResponseEntity containing the page of perks, or an error message for invalid parameters
+     */
+    @GetMapping("/expiring")
+    public ResponseEntity<?> getExpiringPerks(@RequestParam(defaultValue = "7") int days,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "" + PerkService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(perkService.findExpiringSummaries(days, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Exports every perk, including expired ones, as newline-delimited JSON.
+     *
+     * The response is streamed from a database cursor as it is read, one PerkSummary
+     * object plus its lastModified instant per line. It is gzip-compressed when the
+     * client sends Accept-Encoding: gzip.
+     *
+     * @param membershipType only export perks of this membership, omitted for all
+     * @param modifiedSince  only export perks changed at or after this ISO-8601 instant, omitted for all
+     * @return ResponseEntity streaming the perks
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportPerks(
+            @RequestParam(required = false) String membershipType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant modifiedSince) {
+        StreamingResponseBody body = out -> perkExporter.export(membershipType, modifiedSince, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     /**
      * Creates a new perk using the provided JSON payload.
      *
@@ -60,7 +130,7 @@ public class PerkRestController {
      * expiryDate – ISO-formatted date representing when the perk expires
      *
      * @param payload a map of perk fields posted by the client
-     * @return {@link ResponseEntity} containing the created perk or an error message
+     * @return {@link ResponseEntity} containing a summary of the created perk or an error message
      */
     @PostMapping
     public ResponseEntity<?> createPerk(@RequestBody Map<String, Object> payload) {
@@ -73,12 +143,32 @@ public class PerkRestController {
             LocalDate expiryDate = LocalDate.parse((String) payload.get("expiryDate"));
 
             Perk perk = perkService.createPerk(title, description, region, membershipType, userId, expiryDate);
-            return ResponseEntity.status(HttpStatus.CREATED).body(perk);
+            return ResponseEntity.status(HttpStatus.CREATED).body(PerkSummary.from(perk));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    /**
+     * Creates many perks in one request, for onboarding a partner's catalog.
+     *
+     * The body is a JSON array of objects with the same fields as {@link #createPerk}.
+     * Drafts that fail validation or cannot be saved are reported individually and
+     * do not stop the others from being created.
+     *
+     * @param drafts the perks to create, at most 50,000
+     * @return ResponseEntity containing the created and failed counts and one result per draft,
+     *         or an error message if the request is empty or too large
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createPerks(@RequestBody List<PerkDraft> drafts) {
+        try {
+            return ResponseEntity.ok(perkService.createPerks(drafts));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Submits an upvote or downvote for a given perk.
      *
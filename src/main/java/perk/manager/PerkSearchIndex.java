@@ -0,0 +1,255 @@
+package perk.manager;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over perk titles and descriptions.
+ *
+ * Each term maps to a posting list of perk IDs with their term frequency, and
+ * each membership type keeps its own posting list so a membership filter is a
+ * set intersection rather than a second query. Matches are ranked with BM25,
+ * counting title terms twice so a hit in the title outranks one in the description.
+ *
+ * Query terms of at least {@value #MIN_PREFIX_LENGTH} characters are matched as
+ * a prefix, so partially typed words from the dashboard's search-as-you-type box
+ * still find results; shorter terms must match a whole word, since a one-letter
+ * prefix would expand to a large share of the vocabulary. The index is updated
+ * incrementally as perks are created and deleted.
+ */
+@Component
+public class PerkSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    /** Terms are kept sorted so a prefix maps to a contiguous range. */
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<String, Set<Long>> membershipPostings = new HashMap<>();
+    private final Map<Long, IndexedPerk> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * The terms and membership of a perk as they were indexed, kept so the perk
+     * can be removed from its posting lists without re-reading it.
+     */
+    private record IndexedPerk(Map<String, Integer> termFrequencies, int length, String membershipKey) {}
+
+    /**
+     * Adds a perk to the index, replacing any previous entry with the same ID.
+     *
+     * @param perk the perk to index
+     */
+    public void add(Perk perk) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(perk.getTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(perk.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        String membershipKey = perk.getMembershipType() == null ? null : normalize(perk.getMembershipType().getName());
+        IndexedPerk document = new IndexedPerk(frequencies, length, membershipKey);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(perk.getId());
+            documents.put(perk.getId(), document);
+            totalLength += length;
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(perk.getId(), tf));
+            if (membershipKey != null) {
+                membershipPostings.computeIfAbsent(membershipKey, m -> new HashSet<>()).add(perk.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a perk from the index. Unknown IDs are ignored.
+     *
+     * @param perkId the ID of the perk to remove
+     */
+    public void remove(Long perkId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(perkId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given perks.
+     *
+     * @param perks every perk that should be searchable
+     */
+    public void rebuild(Iterable<Perk> perks) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            membershipPostings.clear();
+            documents.clear();
+            totalLength = 0;
+            for (Perk perk : perks) {
+                add(perk);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the perks whose title or description contain every word of the keyword,
+     * optionally limited to one membership type.
+     *
+     * @param membershipType the membership type name to filter by, may be null or empty
+     * @param keyword        the search words, each matched as a term prefix
+     * @return matching perk IDs ordered from most to least relevant
+     */
+    public List<Long> search(String membershipType, String keyword) {
+        List<String> queryTerms = tokenize(keyword).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            if (membershipType != null && !membershipType.isEmpty()) {
+                candidates = new HashSet<>(membershipPostings.getOrDefault(normalize(membershipType), Set.of()));
+            }
+
+            List<SortedMap<String, Map<Long, Integer>>> expansions = new ArrayList<>();
+            for (String queryTerm : queryTerms) {
+                SortedMap<String, Map<Long, Integer>> matches = expand(queryTerm);
+                Set<Long> matching = new HashSet<>();
+                matches.values().forEach(list -> matching.addAll(list.keySet()));
+                if (candidates == null) {
+                    candidates = matching;
+                } else {
+                    candidates.retainAll(matching);
+                }
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+                expansions.add(matches);
+            }
+
+            double averageLength = documents.isEmpty() ? 1 : (double) totalLength / documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (SortedMap<String, Map<Long, Integer>> matches : expansions) {
+                for (Map<Long, Integer> list : matches.values()) {
+                    double idf = Math.log(1 + (documents.size() - list.size() + 0.5) / (list.size() + 0.5));
+                    // Walk whichever side is smaller and probe the other.
+                    if (list.size() <= candidates.size()) {
+                        for (Map.Entry<Long, Integer> posting : list.entrySet()) {
+                            if (candidates.contains(posting.getKey())) {
+                                score(scores, posting.getKey(), posting.getValue(), idf, averageLength);
+                            }
+                        }
+                    } else {
+                        for (Long perkId : candidates) {
+                            Integer tf = list.get(perkId);
+                            if (tf != null) {
+                                score(scores, perkId, tf, idf, averageLength);
+                            }
+                        }
+                    }
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(candidates);
+            ranked.sort(Comparator.comparingDouble((Long id) -> scores.getOrDefault(id, 0.0)).reversed()
+                    .thenComparing(Comparator.reverseOrder()));
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of perks in the index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param queryTerm a normalized query term
+     * @return the posting lists the term matches: every term it prefixes, or only
+     *         itself when it is shorter than {@value #MIN_PREFIX_LENGTH} characters
+     */
+    private SortedMap<String, Map<Long, Integer>> expand(String queryTerm) {
+        if (queryTerm.length() < MIN_PREFIX_LENGTH) {
+            return postings.subMap(queryTerm, true, queryTerm, true);
+        }
+        return postings.subMap(queryTerm, queryTerm + Character.MAX_VALUE);
+    }
+
+    private void score(Map<Long, Double> scores, Long perkId, int tf, double idf, double averageLength) {
+        double norm = K1 * (1 - B + B * documents.get(perkId).length() / averageLength);
+        scores.merge(perkId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+    }
+
+    private void removeLocked(Long perkId) {
+        IndexedPerk document = documents.remove(perkId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        for (String term : document.termFrequencies().keySet()) {
+            Map<Long, Integer> list = postings.get(term);
+            list.remove(perkId);
+            if (list.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        if (document.membershipKey() != null) {
+            Set<Long> list = membershipPostings.get(document.membershipKey());
+            list.remove(perkId);
+            if (list.isEmpty()) {
+                membershipPostings.remove(document.membershipKey());
+            }
+        }
+    }
+
+    /**
+     * Splits text into lower-case terms on anything that is not a letter or digit.
+     *
+     * @param text the text to split, may be null
+     * @return the terms in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,89 +1,503 @@
 package perk.manager;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Service class that manages operations related to perks.
  *
  * This service provides methods for retrieving perks, filtering perks
  * by membership type or keyword, creating new perks, updating votes, and deleting perks.
+ *
+ * Listings only show active perks, those whose expiry date is today or later.
+ * The in-memory search index, leaderboard and expiry index hold only active
+ * perks; a sweep at midnight drops the perks that expired that day.
  */
 @Service
 public class PerkService {
+    /** Number of perks on a page when the caller does not ask for a size. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    /** Largest page a caller may request. */
+    public static final int MAX_PAGE_SIZE = 100;
+    /** Most drafts a single bulk creation may contain. */
+    public static final int MAX_BULK_SIZE = 50_000;
+    /** Drafts saved per transaction during a bulk creation. */
+    static final int BULK_CHUNK_SIZE = 1_000;
+    /** Active perks read per query while indexing the catalog at startup. */
+    static final int INDEX_PAGE_SIZE = 5_000;
+    /** Index positions read per step while walking an ordering for keyword matches. */
+    static final int INDEX_WALK_SIZE = 1_000;
+    /** The query cache region of the cacheable perk finders. */
+    private static final String PERK_QUERIES = "perk-queries";
+
     private final PerkRepository perkRepository;
-    private final MembershipTypeRepository membershipTypeRepository;
+    private final MembershipCatalog membershipCatalog;
     private final UserRepository userRepository;
+    private final PerkSearchIndex searchIndex;
+    private final VoteWriteBuffer voteWriteBuffer;
+    private final PerkVoteStore voteStore;
+    private final PerkLeaderboard leaderboard;
+    private final PerkExpiryIndex expiryIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PerkMetrics metrics;
+    private final VoteBroadcaster voteBroadcaster;
+    private final CatalogVersion catalogVersion;
 
     /**
      * Creates a new instance of the perk service.
      *
      * @param perkRepository repository used for perk storage and retrieval
-     * @param membershipTypeRepository repository used to access membership types
+     * @param membershipCatalog the cached catalog used to resolve membership types by name
      * @param userRepository repository used to access user data
+     * @param searchIndex the in-memory index used for keyword search
+     * @param voteWriteBuffer the optional write-behind buffer for vote counts
+     * @param voteStore the store of each user's votes
+     * @param leaderboard the in-memory vote rankings that pages by votes are read from
+     * @param expiryIndex the in-memory expiry ordering that pages by expiry are read from
+     * @param transactionTemplate runs a vote change and its count update as one transaction
+     * @param entityManagerFactory used to evict perks from the second-level cache after a vote
+     * @param metrics counts votes, creations and searches
+     * @param voteBroadcaster pushes changed vote counts to open dashboards
+     * @param catalogVersion moved on with every change to the listed perks
      */
     public PerkService(PerkRepository perkRepository,
-                       MembershipTypeRepository membershipTypeRepository,
-                       UserRepository userRepository) {
+                       MembershipCatalog membershipCatalog,
+                       UserRepository userRepository,
+                       PerkSearchIndex searchIndex,
+                       VoteWriteBuffer voteWriteBuffer,
+                       PerkVoteStore voteStore,
+                       PerkLeaderboard leaderboard,
+                       PerkExpiryIndex expiryIndex,
+                       TransactionTemplate transactionTemplate,
+                       EntityManagerFactory entityManagerFactory,
+                       PerkMetrics metrics,
+                       VoteBroadcaster voteBroadcaster,
+                       CatalogVersion catalogVersion) {
         this.perkRepository = perkRepository;
-        this.membershipTypeRepository = membershipTypeRepository;
+        this.membershipCatalog = membershipCatalog;
         this.userRepository = userRepository;
+        this.searchIndex = searchIndex;
+        this.voteWriteBuffer = voteWriteBuffer;
+        this.voteStore = voteStore;
+        this.leaderboard = leaderboard;
+        this.expiryIndex = expiryIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.metrics = metrics;
+        this.voteBroadcaster = voteBroadcaster;
+        this.catalogVersion = catalogVersion;
     }
 
     /**
-     * Retrieves all perks available in the system.
+     * Loads every active perk into the search index, the leaderboard and the
+     * expiry index once the application has started.
      *
-     * @return a list of all perks
+     * Perks are read a page at a time in ID order, so a catalog of millions of
+     * perks is never held in memory as entities all at once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexCatalog() {
+        LocalDate today = LocalDate.now();
+        searchIndex.rebuild(List.of());
+        leaderboard.rebuild(List.of());
+        expiryIndex.rebuild(List.of());
+        List<Perk> page = perkRepository.findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                today, 0L, Limit.of(INDEX_PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (Perk perk : page) {
+                searchIndex.add(perk);
+                leaderboard.add(perk);
+                expiryIndex.add(perk);
+            }
+            page = page.size() < INDEX_PAGE_SIZE ? List.of()
+                    : perkRepository.findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                            today, page.get(page.size() - 1).getId(), Limit.of(INDEX_PAGE_SIZE));
+        }
+        catalogVersion.bump();
+    }
+
+    /**
+     * Drops the perks that expired yesterday from the in-memory structures.
+     * The perks stay in the database; they are only no longer listed or searched.
+     *
+     * @return the number of perks swept
+     */
+    @Scheduled(cron = "${perk.expiry.sweep-cron:0 0 0 * * *}")
+    public int sweepExpired() {
+        List<Long> expired = expiryIndex.expireBefore(LocalDate.now());
+        for (Long perkId : expired) {
+            searchIndex.remove(perkId);
+            leaderboard.remove(perkId);
+        }
+        if (!expired.isEmpty()) {
+            catalogVersion.bump();
+        }
+        return expired.size();
+    }
+
+    /**
+     * Retrieves all active perks.
+     *
+     * @return a list of the perks that have not expired
      */
     public List<Perk> getAllPerks() {
-        return perkRepository.findAll();
+        return voteWriteBuffer.overlay(perkRepository.findByExpiryDateGreaterThanEqual(LocalDate.now()));
+    }
+
+    /**
+     * Retrieves a single perk by its ID, with what its vote section renders.
+     *
+     * @param perkId the ID of the perk
+     * @return an optional containing the perk if found
+     */
+    public Optional<Perk> findPerk(Long perkId) {
+        Optional<Perk> perk = perkRepository.findForVoteSectionById(perkId);
+        perk.ifPresent(p -> voteWriteBuffer.overlay(List.of(p)));
+        return perk;
     }
 
     /**
-     * Searches for perks matching a specific membership type.
+     * Searches for active perks matching a specific membership type.
      *
      * @param membershipName the name of the membership type to filter by
      * @return a list of perks associated with the specified membership
      */
     public List<Perk> searchByMembership(String membershipName){
-        return perkRepository.findByMembershipType_NameIgnoreCase(membershipName);
+        return voteWriteBuffer.overlay(perkRepository.findByMembershipType_NameIgnoreCaseAndExpiryDateGreaterThanEqual(
+                membershipName, LocalDate.now()));
+    }
+
+    /**
+     * Searches for active perks matching a specific membership type, selecting only the summary columns.
+     *
+     * @param membershipName the name of the membership type to filter by
+     * @return summaries of the perks associated with the specified membership
+     */
+    public List<PerkSummary> searchSummariesByMembership(String membershipName) {
+        return voteWriteBuffer.overlaySummaries(perkRepository.findSummariesByMembership(membershipName, LocalDate.now()));
+    }
+
+    /**
+     * Returns one page of the active perks that expire within the given number of
+     * days, soonest first, read from the expiry index.
+     *
+     * @param days the number of days after today to include; 0 means perks expiring today
+     * @param cursor the nextCursor of the previous page, null or empty for the first page
+     * @param size the maximum number of perks to return, clamped to 1..MAX_PAGE_SIZE
+     * @return the page and the cursor of the following page
+     * @throws IllegalArgumentException if days is negative or the cursor is malformed or not an expiry cursor
+     */
+    public CursorPage<PerkSummary> findExpiringSummaries(int days, String cursor, int size) {
+        if (days < 0) {
+            throw new IllegalArgumentException("days must not be negative");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PerkCursor after = cursor == null || cursor.isEmpty() ? null : PerkCursor.decode(cursor, PerkCursor.Sort.EXPIRY);
+        LocalDate today = LocalDate.now();
+        return indexedPage(expiryIndex.page(null, today, after, today.plusDays(days), limit + 1), limit,
+                this::findSummaries, voteWriteBuffer::overlaySummaries);
     }
 
     /**
      * Searches for perks using optional membership type and keyword filters.
      *
-     * If both membershipType and keyword are provided, the results are filtered
-     * by membership and then refined based on keyword matching in the title or description.
+     * A keyword is resolved through the search index, optionally intersected with
+     * the membership's posting list, and the matching perks are returned in
+     * relevance order. Without a keyword the membership filter is a plain query.
      *
      * @param membershipType the name of the membership type, may be empty
      * @param keyword a search term for title or description, may be empty
      * @return a list of perks matching the provided filters
      */
     public List<Perk> searchPerks(String membershipType, String keyword) {
-        if (membershipType != null && !membershipType.isEmpty() && keyword != null && !keyword.isEmpty()) {
-            List<Perk> byMembership = perkRepository.findByMembershipType_NameIgnoreCase(membershipType);
-            String k = keyword.toLowerCase();
-            return byMembership.stream()
-                    .filter(p -> p.getTitle().toLowerCase().contains(k) || p.getDescription().toLowerCase().contains(k))
-                    .collect(Collectors.toList());
+        metrics.searched(keyword != null && !keyword.isEmpty(), membershipType != null && !membershipType.isEmpty());
+        if (keyword != null && !keyword.isEmpty()) {
+            return voteWriteBuffer.overlay(findRanked(searchIndex.search(membershipType, keyword)));
         } else if (membershipType != null && !membershipType.isEmpty()) {
-            return perkRepository.findByMembershipType_NameIgnoreCase(membershipType);
-        } else if (keyword != null && !keyword.isEmpty()) {
-            return perkRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword);
+            return searchByMembership(membershipType);
         } else {
-            return perkRepository.findAll();
+            return getAllPerks();
+        }
+    }
+
+    /**
+     * Returns one page of perks matching the optional filters, in the requested order.
+     *
+     * Without a keyword, a page by votes is read from the leaderboard and a page by
+     * expiry from the expiry index; both seek past the cursor, so a deep page costs
+     * the same as the first one, and only the perks on the page are loaded. A keyword
+     * is resolved to its matching IDs through the search index; a page by relevance is
+     * cut straight out of that ranking, and a page by votes or expiry either walks the
+     * index past the cursor keeping only the matches or, when the matches are sparse,
+     * ranks the matches' own index positions. Either way only the perks on the page
+     * are loaded. A search is counted once, on its first page.
+     *
+     * @param membershipType the name of the membership type, may be empty
+     * @param keyword a search term for title or description, may be empty
+     * @param sortBy "votes" (default), "expiry" or "relevance"; relevance only applies to keyword searches
+     * @param cursor the token returned with the previous page, null for the first page
+     * @param size the maximum number of perks to return, clamped to 1..MAX_PAGE_SIZE
+     * @return the page and the cursor of the following page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another ordering
+     */
+    public CursorPage<Perk> findPerkPage(String membershipType, String keyword, String sortBy, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean hasKeyword = keyword != null && !keyword.isEmpty();
+        PerkCursor.Sort sort = PerkCursor.Sort.from(sortBy);
+        if (sort == PerkCursor.Sort.RELEVANCE && !hasKeyword) {
+            sort = PerkCursor.Sort.VOTES;
+        }
+        PerkCursor after = cursor == null || cursor.isEmpty() ? null : PerkCursor.decode(cursor, sort);
+
+        if (!hasKeyword) {
+            return indexedPage(indexPage(membershipType, sort, after, limit + 1), limit,
+                    this::findRanked, voteWriteBuffer::overlay);
         }
+
+        if (after == null) {
+            metrics.searched(true, membershipType != null && !membershipType.isEmpty());
+        }
+        List<Long> matches = searchIndex.search(membershipType, keyword);
+        List<? extends PerkCursor.Position> positions = sort == PerkCursor.Sort.RELEVANCE
+                ? rankedPage(matches, after, limit + 1)
+                : matchingPage(matches, membershipType, sort, after, limit + 1);
+        return indexedPage(positions, limit, this::findRanked, voteWriteBuffer::overlay);
+    }
+
+    /**
+     * A perk's place in a keyword search's relevance ranking.
+     */
+    private record Ranked(long id, int rank) implements PerkCursor.Position {
+        @Override
+        public PerkCursor cursor() {
+            return new PerkCursor(PerkCursor.Sort.RELEVANCE, rank, id);
+        }
+    }
+
+    /**
+     * Cuts the positions of one page out of a relevance ranking.
+     */
+    private static List<Ranked> rankedPage(List<Long> rankedIds, PerkCursor after, int limit) {
+        int offset = after == null ? 0 : (int) Math.min(after.key() + 1, rankedIds.size());
+        int end = (int) Math.min(rankedIds.size(), (long) offset + limit);
+        List<Ranked> page = new ArrayList<>(end - offset);
+        for (int rank = offset; rank < end; rank++) {
+            page.add(new Ranked(rankedIds.get(rank), rank));
+        }
+        return page;
+    }
+
+    /**
+     * Reads the positions of one page of keyword matches in votes or expiry order.
+     *
+     * Dense matches are found by walking the index past the cursor, which reads about
+     * limit * indexSize / matches entries. Sparse matches are looked up one by one and
+     * the first limit past the cursor kept, which costs one lookup per match instead.
+     */
+    private List<? extends PerkCursor.Position> matchingPage(List<Long> matches, String membershipType,
+                                                             PerkCursor.Sort sort, PerkCursor after, int limit) {
+        int indexSize = sort == PerkCursor.Sort.EXPIRY ? expiryIndex.size() : leaderboard.size();
+        if (walkIsCheaper(matches.size(), indexSize, limit)) {
+            return matchingIndexPage(new HashSet<>(matches), membershipType, sort, after, limit);
+        }
+        if (sort == PerkCursor.Sort.EXPIRY) {
+            LocalDate today = LocalDate.now();
+            PerkExpiryIndex.Entry from = after == null ? null : new PerkExpiryIndex.Entry(after.expiryDate(), after.id());
+            return firstAfter(matches, expiryIndex::entry, from, entry -> !entry.expiryDate().isBefore(today), limit);
+        }
+        PerkLeaderboard.Entry from = after == null ? null : new PerkLeaderboard.Entry(after.votes(), after.id());
+        return firstAfter(matches, leaderboard::entry, from, entry -> true, limit);
+    }
+
+    /**
+     * @return whether walking an index of indexSize entries for a page of matches is expected
+     *         to read fewer entries than looking every match up
+     */
+    static boolean walkIsCheaper(int matches, int indexSize, int limit) {
+        return matches > 0 && (long) limit * indexSize / matches <= matches;
+    }
+
+    /**
+     * Looks up each matching perk's index position and keeps the first limit positions
+     * after the cursor, in index order, using a heap of limit entries.
+     */
+    private static <E extends Comparable<E> & PerkCursor.Position> List<E> firstAfter(
+            List<Long> matches, Function<Long, Optional<E>> entryOf, E after, Predicate<E> listed, int limit) {
+        PriorityQueue<E> kept = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+        for (Long perkId : matches) {
+            entryOf.apply(perkId)
+                    .filter(entry -> (after == null || entry.compareTo(after) > 0) && listed.test(entry))
+                    .ifPresent(entry -> {
+                        kept.add(entry);
+                        if (kept.size() > limit) {
+                            kept.poll();
+                        }
+                    });
+        }
+        List<E> page = new ArrayList<>(kept);
+        Collections.sort(page);
+        return page;
+    }
+
+    /**
+     * Walks the leaderboard or the expiry index past the cursor, keeping only the
+     * positions of the given perks, until a page is full or the index runs out.
+     */
+    private List<PerkCursor.Position> matchingIndexPage(Set<Long> matches, String membershipType,
+                                                        PerkCursor.Sort sort, PerkCursor after, int limit) {
+        List<PerkCursor.Position> page = new ArrayList<>(limit);
+        if (matches.isEmpty()) {
+            return page;
+        }
+        PerkCursor from = after;
+        while (page.size() < limit) {
+            List<? extends PerkCursor.Position> batch = indexPage(membershipType, sort, from, INDEX_WALK_SIZE);
+            for (PerkCursor.Position position : batch) {
+                if (matches.contains(position.id())) {
+                    page.add(position);
+                    if (page.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            if (batch.size() < INDEX_WALK_SIZE) {
+                break;
+            }
+            from = batch.get(batch.size() - 1).cursor();
+        }
+        return page;
+    }
+
+    /**
+     * Returns one page of perk summaries for the REST API, paged the same way as
+     * {@link #findPerkPage} without a keyword, but selecting only the summary columns.
+     *
+     * @param membershipType the name of the membership type to filter by, may be null or empty
+     * @param sortBy "votes" (default) or "expiry"
+     * @param cursor the nextCursor of the previous page, null or empty for the first page
+     * @param size the maximum number of perks to return, clamped to MAX_PAGE_SIZE
+     * @return the page and the cursor of the following page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another ordering
+     */
+    public CursorPage<PerkSummary> findPerkSummaryPage(String membershipType, String sortBy, String cursor, int size) {
+        CursorPage<Long> ids = findSummaryPageIds(membershipType, sortBy, cursor, size);
+        return new CursorPage<>(new ArrayList<>(voteWriteBuffer.overlaySummaries(findSummaries(ids.items()))),
+                ids.nextCursor());
+    }
+
+    /**
+     * Reads which perks are on a page of {@link #findPerkSummaryPage} from the leaderboard
+     * or the expiry index, without loading any rows. The reactive API loads the rows itself.
+     *
+     * @return the IDs on the page, in order, and the cursor of the following page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another ordering
+     */
+    CursorPage<Long> findSummaryPageIds(String membershipType, String sortBy, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PerkCursor.Sort sort = PerkCursor.Sort.from(sortBy) == PerkCursor.Sort.EXPIRY
+                ? PerkCursor.Sort.EXPIRY
+                : PerkCursor.Sort.VOTES;
+        PerkCursor after = cursor == null || cursor.isEmpty() ? null : PerkCursor.decode(cursor, sort);
+        return idPage(indexPage(membershipType, sort, after, limit + 1), limit);
+    }
+
+    /**
+     * Reads the positions of one page from the leaderboard or the expiry index.
+     */
+    private List<? extends PerkCursor.Position> indexPage(String membershipType, PerkCursor.Sort sort,
+                                                          PerkCursor after, int limit) {
+        return sort == PerkCursor.Sort.EXPIRY
+                ? expiryIndex.page(membershipType, LocalDate.now(), after, null, limit)
+                : leaderboard.top(membershipType, after, limit);
+    }
+
+    /**
+     * Loads just the perks at the given index positions.
+     *
+     * @param positions up to limit + 1 positions read from an index, the extra one signalling a next page
+     * @param limit the page size
+     * @param load loads the rows of the given IDs, in the order of the IDs
+     * @param overlay adds pending votes to the loaded rows
+     * @return the page and the cursor of the following page
+     */
+    private <T> CursorPage<T> indexedPage(List<? extends PerkCursor.Position> positions, int limit,
+                                          Function<List<Long>, List<T>> load, Function<List<T>, List<T>> overlay) {
+        CursorPage<Long> ids = idPage(positions, limit);
+        return new CursorPage<>(new ArrayList<>(overlay.apply(load.apply(ids.items()))), ids.nextCursor());
+    }
+
+    /**
+     * Cuts index positions down to the IDs on a page and the cursor of the following page.
+     */
+    private static CursorPage<Long> idPage(List<? extends PerkCursor.Position> positions, int limit) {
+        List<? extends PerkCursor.Position> onPage = positions.subList(0, Math.min(positions.size(), limit));
+        String nextCursor = positions.size() > limit ? onPage.get(limit - 1).cursor().encode() : null;
+        return new CursorPage<>(onPage.stream().map(PerkCursor.Position::id).toList(), nextCursor);
+    }
+
+    /**
+     * Loads the summaries of the perks with the given IDs, keeping the order of the IDs.
+     */
+    private List<PerkSummary> findSummaries(List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inOrder(rankedIds, perkRepository.findSummariesByIdIn(rankedIds), PerkSummary::id);
+    }
+
+    /**
+     * Loads the perks with the given IDs, keeping the order of the IDs.
+     *
+     * @param rankedIds perk IDs in the order they should be returned
+     * @return a mutable list of the perks that still exist
+     */
+    private List<Perk> findRanked(List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return inOrder(rankedIds, perkRepository.findByIdIn(rankedIds), Perk::getId);
+    }
+
+    /**
+     * Puts rows loaded by ID back into the order of the IDs, skipping IDs that were not found.
+     */
+    static <T> List<T> inOrder(List<Long> rankedIds, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> ranked = new ArrayList<>(byId.size());
+        for (Long id : rankedIds) {
+            T row = byId.get(id);
+            if (row != null) {
+                ranked.add(row);
+            }
+        }
+        return ranked;
     }
 
     /**
      * Creates a new perk using the provided details.
      *
      * The method resolves the membership type and user, creates a new perk object,
-     * and saves it to the database.
+     * saves it to the database and, unless it has already expired, adds it to the
+     * search index, the leaderboard and the expiry index.
      *
      * @param title the title of the perk
      * @param description a description of the perk
@@ -94,16 +508,131 @@ public class PerkService {
      * @return the created perk object
      */
     public Perk createPerk(String title, String description, String region, String membershipName, Long userId, LocalDate expiryDate){
-        MembershipType membership = membershipTypeRepository.findAll().stream()
-                .filter(m -> m.getName().equalsIgnoreCase(membershipName))
-                .findFirst()
+        MembershipType membership = membershipCatalog.findByName(membershipName)
                 .orElseThrow(() -> new RuntimeException("Membership Type not found"));
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Perk perk = new Perk(title, description, region, expiryDate, membership, user);
-        return perkRepository.save(perk);
+        Perk perk = perkRepository.save(new Perk(title, description, region, expiryDate, membership, user));
+        indexIfActive(perk);
+        catalogVersion.bump();
+        metrics.created();
+        return perk;
+    }
+
+    /**
+     * Creates many perks at once, reporting the outcome of each draft.
+     *
+     * Membership types and users are resolved once for the whole request. Valid
+     * drafts are saved BULK_CHUNK_SIZE per transaction, which Hibernate writes as
+     * JDBC batches using pooled sequence IDs. If the database rejects a chunk, its
+     * drafts are retried one at a time so only the offending drafts fail.
+     *
+     * @param drafts the perks to create
+     * @return the created count, the failed count and one result per draft, in request order
+     * @throws IllegalArgumentException if there are no drafts or more than MAX_BULK_SIZE
+     */
+    public BulkPerkResult createPerks(List<PerkDraft> drafts) {
+        if (drafts == null || drafts.isEmpty() || drafts.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BULK_SIZE + " perks can be created at once");
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (PerkDraft draft : drafts) {
+            if (draft != null && draft.userId() != null) {
+                userIds.add(draft.userId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+
+        BulkPerkResult.Item[] results = new BulkPerkResult.Item[drafts.size()];
+        List<Integer> indexes = new ArrayList<>(BULK_CHUNK_SIZE);
+        List<Perk> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        for (int i = 0; i < drafts.size(); i++) {
+            PerkDraft draft = drafts.get(i);
+            String error = validate(draft, users);
+            if (error != null) {
+                results[i] = BulkPerkResult.Item.failed(i, error);
+                continue;
+            }
+            indexes.add(i);
+            chunk.add(new Perk(draft.title(), draft.description(), draft.region(), draft.expiryDate(),
+                    membershipCatalog.findByName(draft.membershipType()).orElseThrow(), users.get(draft.userId())));
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                saveChunk(indexes, chunk, results);
+                indexes.clear();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(indexes, chunk, results);
+        }
+        BulkPerkResult result = BulkPerkResult.of(Arrays.asList(results));
+        metrics.createdInBulk(result.created());
+        return result;
+    }
+
+    private String validate(PerkDraft draft, Map<Long, User> users) {
+        if (draft == null) {
+            return "Perk is required";
+        }
+        if (draft.title() == null || draft.title().isBlank()) {
+            return "Title is required";
+        }
+        if (draft.expiryDate() == null) {
+            return "Expiry date is required";
+        }
+        if (membershipCatalog.findByName(draft.membershipType()).isEmpty()) {
+            return "Membership Type not found";
+        }
+        if (draft.userId() == null || !users.containsKey(draft.userId())) {
+            return "User not found";
+        }
+        return null;
+    }
+
+    /**
+     * Saves one chunk in a single transaction, falling back to one transaction per
+     * perk if the database rejects the chunk.
+     */
+    private void saveChunk(List<Integer> indexes, List<Perk> chunk, BulkPerkResult.Item[] results) {
+        try {
+            List<Perk> saved = transactionTemplate.execute(status -> perkRepository.saveAll(chunk));
+            for (int i = 0; i < saved.size(); i++) {
+                results[indexes.get(i)] = BulkPerkResult.Item.created(indexes.get(i), saved.get(i).getId());
+                indexIfActive(saved.get(i));
+            }
+            catalogVersion.bump();
+        } catch (DataAccessException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Perk perk = chunk.get(i);
+                // A rolled-back persist keeps the ID it was given; clear it so the perk is inserted afresh.
+                perk.setId(0);
+                try {
+                    Perk saved = transactionTemplate.execute(status -> perkRepository.save(perk));
+                    results[indexes.get(i)] = BulkPerkResult.Item.created(indexes.get(i), saved.getId());
+                    indexIfActive(saved);
+                } catch (DataAccessException itemFailure) {
+                    results[indexes.get(i)] = BulkPerkResult.Item.failed(indexes.get(i),
+                            "Could not be saved: " + itemFailure.getMostSpecificCause().getMessage());
+                }
+            }
+            catalogVersion.bump();
+        }
+    }
+
+    /**
+     * Adds a newly created perk to the in-memory structures unless it has already expired.
+     */
+    private void indexIfActive(Perk perk) {
+        if (perk.getExpiryDate() != null && !perk.getExpiryDate().isBefore(LocalDate.now())) {
+            searchIndex.add(perk);
+            leaderboard.add(perk);
+            expiryIndex.add(perk);
+        }
     }
 
     /**
@@ -116,12 +645,168 @@ public class PerkService {
      * @param upvote true to upvote, false to downvote
      */
     public void vote(Long perkId, boolean upvote) {
-        Optional<Perk> optionalPerk = perkRepository.findById(perkId);
-        if (optionalPerk.isPresent()) {
-            Perk perk = optionalPerk.get();
-            perk.setVotes(perk.getVotes() + (upvote ? 1 : -1));
-            perkRepository.save(perk);
+        applyVoteDelta(perkId, upvote ? 1 : -1);
+    }
+
+    /**
+     * Toggles a user's vote on a perk.
+     *
+     * Voting the same way twice withdraws the vote, and voting the other way flips
+     * it. The stored vote and the perk's count change in one transaction while the
+     * user's lock is held, so rapid repeated clicks are applied in order.
+     *
+     * @param userId the ID of the voting user
+     * @param perkId the ID of the perk to vote on
+     * @param upvote true to upvote, false to downvote
+     * @return the user's vote after the change, empty if they no longer have one or the perk does not exist
+     */
+    public Optional<Boolean> castVote(Long userId, Long perkId, boolean upvote) {
+        if (!perkRepository.existsById(perkId)) {
+            return Optional.empty();
+        }
+        Lock lock = voteStore.lockFor(userId);
+        lock.lock();
+        try {
+            Boolean previous = voteStore.get(userId, perkId);
+            Boolean next = Objects.equals(previous, upvote) ? null : upvote;
+            int delta = direction(next) - direction(previous);
+            transactionTemplate.executeWithoutResult(status -> {
+                voteStore.save(userId, perkId, next);
+                applyVoteDelta(perkId, delta);
+            });
+            return Optional.ofNullable(next);
+        } catch (RuntimeException e) {
+            voteStore.evict(userId);
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up how a user voted on the given perks.
+     *
+     * @param userId the ID of the user
+     * @param perks  the perks being shown to the user
+     * @return perk ID to true for an upvote or false for a downvote; perks without a vote are absent
+     */
+    public Map<Long, Boolean> findUserVotes(Long userId, List<Perk> perks) {
+        return findUserVotesOn(userId, perks.stream().map(Perk::getId).toList());
+    }
+
+    /**
+     * Looks up how a user voted on the perks with the given IDs.
+     *
+     * @param userId  the ID of the user
+     * @param perkIds the IDs of the perks being shown to the user
+     * @return perk ID to true for an upvote or false for a downvote; perks without a vote are absent
+     */
+    public Map<Long, Boolean> findUserVotesOn(Long userId, List<Long> perkIds) {
+        if (perkIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return voteStore.votesFor(userId, perkIds);
+    }
+
+    private static int direction(Boolean upvote) {
+        return upvote == null ? 0 : upvote ? 1 : -1;
+    }
+
+    /**
+     * Atomically adjusts a perk's vote count.
+     *
+     * A delta of one casts or withdraws a vote; a delta of two flips an existing
+     * vote to the opposite direction. The change is a single UPDATE statement,
+     * so concurrent votes on the same perk are never lost. When write-behind is
+     * enabled the delta is only recorded in the VoteWriteBuffer and written with
+     * the next batch; votes on perks that do not exist are not buffered. The
+     * delta is buffered, the leaderboard moves the perk, and a directly written
+     * perk is evicted from the second-level cache, once the surrounding
+     * transaction, if any, has committed.
+     *
+     * @param perkId the ID of the perk to vote on
+     * @param delta the signed change: -2, -1, 1 or 2
+     * @return the new vote count, or empty if the perk does not exist or the vote was buffered
+     * @throws IllegalArgumentException if the delta is not one of the allowed values
+     */
+    public Optional<Integer> applyVoteDelta(Long perkId, int delta) {
+        if (delta == 0 || Math.abs(delta) > 2) {
+            throw new IllegalArgumentException("Vote delta must be -2, -1, 1 or 2");
+        }
+        boolean buffered = voteWriteBuffer.isEnabled();
+        Optional<Integer> votes;
+        if (buffered) {
+            // Active perks are on the leaderboard; only expired or unknown IDs need the database.
+            if (leaderboard.votes(perkId).isEmpty() && !perkRepository.existsById(perkId)) {
+                return Optional.empty();
+            }
+            votes = Optional.empty();
+        } else {
+            votes = perkRepository.addVotes(perkId, delta);
+            if (votes.isEmpty()) {
+                return votes;
+            }
+        }
+        afterVoteCommitted(perkId, delta, !buffered);
+        metrics.voted(delta);
+        return votes;
+    }
+
+    /**
+     * Applies a vote delta to the leaderboard and either evicts the stale cached perk,
+     * if the count was written, or records the delta in the write-behind buffer.
+     * Inside a transaction all of this waits for the commit, so a rolled-back vote
+     * never moves the perk or reaches the buffer, and no reader can re-cache the old
+     * count after the eviction. Deltas commute, so applying them in commit order rather
+     * than statement order is fine. Open dashboards are then sent the new count.
+     */
+    private void afterVoteCommitted(long perkId, int delta, boolean written) {
+        Runnable committed = () -> {
+            if (written) {
+                entityManagerFactory.getCache().evict(Perk.class, perkId);
+            } else {
+                voteWriteBuffer.record(perkId, delta);
+            }
+            leaderboard.applyDelta(perkId, delta);
+            catalogVersion.bump();
+            voteBroadcaster.changed(perkId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                committed.run();
+            }
+        });
+    }
+
+    /**
+     * Makes a perk inserted without Hibernate, by the reactive API, visible to this service:
+     * indexes it unless it has expired and drops the cached perk queries, which Hibernate
+     * only invalidates for its own writes.
+     *
+     * @param perk the inserted perk, with its ID, membership type and expiry date set
+     */
+    void insertedElsewhere(Perk perk) {
+        indexIfActive(perk);
+        entityManagerFactory.getCache().unwrap(Cache.class).evictQueryRegion(PERK_QUERIES);
+        catalogVersion.bump();
+        metrics.created();
+    }
+
+    /**
+     * Moves a perk on the leaderboard and evicts it from the second-level cache after a
+     * vote was written without Hibernate, by the reactive API.
+     *
+     * @param perkId the ID of the perk voted on
+     * @param delta  the signed change written to its vote count
+     */
+    void votesWrittenElsewhere(long perkId, int delta) {
+        afterVoteCommitted(perkId, delta, true);
+        metrics.voted(delta);
     }
 
     /**
@@ -131,5 +816,11 @@ public class PerkService {
      */
     public void deletePerk(Long perkId) {
         perkRepository.deleteById(perkId);
+        searchIndex.remove(perkId);
+        voteWriteBuffer.discard(perkId);
+        voteStore.removePerk(perkId);
+        leaderboard.remove(perkId);
+        expiryIndex.remove(perkId);
+        catalogVersion.bump();
     }
 }
@@ -0,0 +1,45 @@
+package perk.manager;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of a perk returned by the REST API.
+ *
+ * Perks are served as this flat record rather than the entity so the response
+ * never pulls in the creator's account, their memberships or their other perks,
+ * and the list queries only select these columns.
+ *
+ * @param id             the perk ID
+ * @param title          the perk title
+ * @param description    the perk description
+ * @param region         the region the perk is valid in
+ * @param expiryDate     the date the perk expires
+ * @param votes          the net vote count
+ * @param membershipType the name of the membership the perk belongs to
+ * @param createdBy      the username of the perk's creator
+ */
+public record PerkSummary(Long id, String title, String description, String region, LocalDate expiryDate,
+                          int votes, String membershipType, String createdBy) {
+
+    /**
+     * Builds the summary of an already loaded perk.
+     *
+     * @param perk the perk entity
+     * @return its summary
+     */
+    public static PerkSummary from(Perk perk) {
+        return new PerkSummary(perk.getId(), perk.getTitle(), perk.getDescription(), perk.getRegion(),
+                perk.getExpiryDate(), perk.getVotes(),
+                perk.getMembershipType() == null ? null : perk.getMembershipType().getName(),
+                perk.getCreatedBy() == null ? null : perk.getCreatedBy().getUsername());
+    }
+
+    /**
+     * @param pendingVotes votes not yet written to the database
+     * @return this summary with the pending votes added, or this summary if there are none
+     */
+    PerkSummary plusVotes(int pendingVotes) {
+        return pendingVotes == 0 ? this
+                : new PerkSummary(id, title, description, region, expiryDate, votes + pendingVotes, membershipType, createdBy);
+    }
+}
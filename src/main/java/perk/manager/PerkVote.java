@@ -0,0 +1,64 @@
+package perk.manager;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * A user's vote on a perk. Each user has at most one vote per perk, which is
+ * either an upvote or a downvote; withdrawing a vote deletes the row.
+ * The unique (user_id, perk_id) constraint also indexes the lookup of one
+ * user's votes on a page of perks.
+ */
+@Entity
+@Table(name = "perk_vote",
+        uniqueConstraints = @UniqueConstraint(name = "ux_perk_vote_user_perk", columnNames = {"user_id", "perk_id"}))
+public class PerkVote {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The user who voted.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private User user;
+
+    /**
+     * The perk voted on. Votes are removed by the database when the perk is deleted.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Perk perk;
+
+    /**
+     * True for an upvote, false for a downvote.
+     */
+    @Column(nullable = false)
+    private boolean upvote;
+
+    public PerkVote() {}
+
+    /**
+     * Make a new vote by a user on a perk.
+     *
+     * @param user   the user who voted
+     * @param perk   the perk voted on
+     * @param upvote true for an upvote, false for a downvote
+     */
+    public PerkVote(User user, Perk perk, boolean upvote) {
+        this.user = user;
+        this.perk = perk;
+        this.upvote = upvote;
+    }
+
+    public Long getId() {return id;}
+
+    public User getUser() {return user;}
+
+    public Perk getPerk() {return perk;}
+
+    public boolean isUpvote() {return upvote;}
+    public void setUpvote(boolean upvote) {this.upvote = upvote;}
+}
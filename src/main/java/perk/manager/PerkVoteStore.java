@@ -0,0 +1,214 @@
+package perk.manager;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable store of which way each user voted on each perk.
+ *
+ * Votes live in the perk_vote table, fronted by a bounded, least-recently-used
+ * cache keyed by user. The first lookup for a user loads all of their votes in one
+ * query; from then on any page is answered from the cache. An entry holds only the
+ * perks the user actually voted on, so its size is bounded by their votes, not by
+ * how much of the catalog they have scrolled through.
+ *
+ * The cache is split into stripes, each with its own monitor and its share of the
+ * users, so lookups by different users rarely contend. Changing a vote is a
+ * read-modify-write, so callers hold the user's lock from {@link #lockFor(Long)}
+ * around it; concurrent clicks from the same user are then applied one after the
+ * other. Loading a user's votes takes the same lock, so it never caches a vote
+ * change that has not committed yet.
+ */
+@Component
+public class PerkVoteStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final PerkVoteRepository perkVoteRepository;
+    private final UserRepository userRepository;
+    private final PerkRepository perkRepository;
+    private final List<Map<Long, Map<Long, Boolean>>> votesByUser = new ArrayList<>(LOCK_STRIPES);
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    /**
+     * Creates the store.
+     *
+     * @param perkVoteRepository the repository holding the votes
+     * @param userRepository     used to reference the voting user when a vote is inserted
+     * @param perkRepository     used to reference the perk when a vote is inserted
+     * @param maxUsers           the maximum number of users whose votes are cached, shared evenly by the stripes
+     */
+    public PerkVoteStore(PerkVoteRepository perkVoteRepository,
+                         UserRepository userRepository,
+                         PerkRepository perkRepository,
+                         @Value("${perk.votes.state-cache-users:10000}") int maxUsers) {
+        this.perkVoteRepository = perkVoteRepository;
+        this.userRepository = userRepository;
+        this.perkRepository = perkRepository;
+        int usersPerStripe = Math.max(1, (maxUsers + LOCK_STRIPES - 1) / LOCK_STRIPES);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            votesByUser.add(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Map<Long, Boolean>> eldest) {
+                    return size() > usersPerStripe;
+                }
+            });
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns a user's votes on the given perks, loading all of the user's votes first if they are not cached.
+     *
+     * @param userId  the ID of the user
+     * @param perkIds the IDs of the perks being shown
+     * @return perk ID to true for an upvote or false for a downvote; perks without a vote are absent
+     */
+    public Map<Long, Boolean> votesFor(Long userId, Collection<Long> perkIds) {
+        Map<Long, Map<Long, Boolean>> stripe = stripeOf(userId);
+        Map<Long, Boolean> votes = new HashMap<>();
+        synchronized (stripe) {
+            Map<Long, Boolean> known = stripe.get(userId);
+            if (known != null) {
+                pick(known, perkIds, votes);
+                return votes;
+            }
+        }
+
+        Lock lock = lockFor(userId);
+        lock.lock();
+        try {
+            synchronized (stripe) {
+                Map<Long, Boolean> known = stripe.get(userId);
+                if (known != null) {
+                    pick(known, perkIds, votes);
+                    return votes;
+                }
+            }
+            Map<Long, Boolean> loaded = new HashMap<>();
+            for (PerkVoteRepository.UserVote vote : perkVoteRepository.findVotesByUser(userId)) {
+                loaded.put(vote.getPerkId(), vote.isUpvote());
+            }
+            pick(loaded, perkIds, votes);
+            synchronized (stripe) {
+                stripe.put(userId, loaded);
+            }
+            return votes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void pick(Map<Long, Boolean> known, Collection<Long> perkIds, Map<Long, Boolean> votes) {
+        for (Long perkId : perkIds) {
+            Boolean upvote = known.get(perkId);
+            if (upvote != null) {
+                votes.put(perkId, upvote);
+            }
+        }
+    }
+
+    /**
+     * @param userId the ID of the user
+     * @param perkId the ID of the perk
+     * @return true for an upvote, false for a downvote, or null if the user has not voted on the perk
+     */
+    public Boolean get(Long userId, Long perkId) {
+        return votesFor(userId, List.of(perkId)).get(perkId);
+    }
+
+    /**
+     * Records a user's vote on a perk, replacing any previous one. Must be called
+     * inside a transaction while holding the user's lock.
+     *
+     * @param userId the ID of the user
+     * @param perkId the ID of the perk
+     * @param upvote true for an upvote, false for a downvote, or null to withdraw the vote
+     */
+    public void save(Long userId, Long perkId, Boolean upvote) {
+        Optional<PerkVote> existing = perkVoteRepository.findByUser_IdAndPerk_Id(userId, perkId);
+        if (upvote == null) {
+            existing.ifPresent(perkVoteRepository::delete);
+        } else if (existing.isPresent()) {
+            existing.get().setUpvote(upvote);
+            perkVoteRepository.save(existing.get());
+        } else {
+            perkVoteRepository.save(new PerkVote(userRepository.getReferenceById(userId),
+                    perkRepository.getReferenceById(perkId), upvote));
+        }
+
+        // A user who is not cached has all of their votes loaded on the next lookup.
+        Map<Long, Map<Long, Boolean>> stripe = stripeOf(userId);
+        synchronized (stripe) {
+            Map<Long, Boolean> known = stripe.get(userId);
+            if (known != null) {
+                if (upvote == null) {
+                    known.remove(perkId);
+                } else {
+                    known.put(perkId, upvote);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param userId the ID of the user
+     * @return the lock serializing vote changes by this user
+     */
+    public Lock lockFor(Long userId) {
+        return locks[stripeIndex(userId)];
+    }
+
+    private static int stripeIndex(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), LOCK_STRIPES);
+    }
+
+    private Map<Long, Map<Long, Boolean>> stripeOf(Long userId) {
+        return votesByUser.get(stripeIndex(userId));
+    }
+
+    /**
+     * Drops the cached votes of a user, e.g. after a vote change was rolled back.
+     *
+     * @param userId the ID of the user
+     */
+    public void evict(Long userId) {
+        Map<Long, Map<Long, Boolean>> stripe = stripeOf(userId);
+        synchronized (stripe) {
+            stripe.remove(userId);
+        }
+    }
+
+    /**
+     * Forgets a deleted perk in every cached user. The rows themselves are removed
+     * by the database's cascade on the perk foreign key.
+     *
+     * @param perkId the ID of the deleted perk
+     */
+    public void removePerk(Long perkId) {
+        for (Map<Long, Map<Long, Boolean>> stripe : votesByUser) {
+            synchronized (stripe) {
+                for (Map<Long, Boolean> known : stripe.values()) {
+                    known.remove(perkId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of users whose votes are cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Long, Map<Long, Boolean>> stripe : votesByUser) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,157 @@
+package perk.manager;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The reactive variant of PerkRestController's listing, search, create and vote endpoints.
+ *
+ * Requests and responses have the same shape as the servlet API's. Pages are still
+ * ordered by the in-memory leaderboard and expiry index, but their rows, searches and
+ * writes go through R2DBC, and a search is streamed to the client as rows are read,
+ * as a JSON array or, for clients that accept application/x-ndjson, one perk per line.
+ * Votes are always written directly, even when the servlet API buffers them.
+ */
+class ReactivePerkHandler {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> PAYLOAD = new ParameterizedTypeReference<>() {};
+
+    private final ReactivePerkStore store;
+    private final PerkService perkService;
+    private final MembershipCatalog membershipCatalog;
+    private final VoteWriteBuffer voteWriteBuffer;
+
+    /**
+     * @param store             reads and writes the perk rows
+     * @param perkService       orders pages and is told about inserted perks and written votes
+     * @param membershipCatalog resolves the membership type of a new perk
+     * @param voteWriteBuffer   adds buffered votes to the rows read
+     */
+    ReactivePerkHandler(ReactivePerkStore store, PerkService perkService, MembershipCatalog membershipCatalog,
+                        VoteWriteBuffer voteWriteBuffer) {
+        this.store = store;
+        this.perkService = perkService;
+        this.membershipCatalog = membershipCatalog;
+        this.voteWriteBuffer = voteWriteBuffer;
+    }
+
+    /**
+     * @param authenticated whether a request comes from a logged-in user; others get 401
+     * @return the routes of the reactive API
+     */
+    RouterFunction<ServerResponse> routes(Predicate<ServerRequest> authenticated) {
+        return RouterFunctions.route()
+                .GET("/api/perks", this::getAllPerks)
+                .GET("/api/perks/search", this::searchPerks)
+                .POST("/api/perks", this::createPerk)
+                .POST("/api/perks/{perkId}/vote", this::votePerk)
+                .filter((request, next) -> authenticated.test(request)
+                        ? next.handle(request)
+                        : ServerResponse.status(HttpStatus.UNAUTHORIZED).bodyValue(Map.of("error", "Login required")))
+                .build();
+    }
+
+    private static Mono<ServerResponse> error(Throwable e) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return ServerResponse.badRequest().bodyValue(Map.of("error", message));
+    }
+
+    /**
+     * Returns one page of perk summaries, paged like PerkRestController.getAllPerks.
+     */
+    Mono<ServerResponse> getAllPerks(ServerRequest request) {
+        CursorPage<Long> ids;
+        try {
+            ids = perkService.findSummaryPageIds(null, request.queryParam("sortBy").orElse("votes"),
+                    request.queryParam("cursor").orElse(null),
+                    request.queryParam("size").map(Integer::parseInt).orElse(PerkService.DEFAULT_PAGE_SIZE));
+        } catch (IllegalArgumentException e) {
+            return error(e);
+        }
+        if (ids.items().isEmpty()) {
+            return ServerResponse.ok().bodyValue(new CursorPage<>(List.of(), ids.nextCursor()));
+        }
+        return store.findSummariesByIdIn(ids.items())
+                .collectList()
+                .map(rows -> new CursorPage<>(voteWriteBuffer.overlaySummaries(
+                        PerkService.inOrder(ids.items(), rows, PerkSummary::id)), ids.nextCursor()))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    /**
+     * Streams the summaries of the active perks of a membership type, in ID order.
+     * Rows are only read as fast as the client takes them.
+     */
+    Mono<ServerResponse> searchPerks(ServerRequest request) {
+        String membershipType = request.queryParam("membershipType").orElse(null);
+        if (membershipType == null) {
+            return error(new IllegalArgumentException("membershipType is required"));
+        }
+        Flux<PerkSummary> perks = store.findSummariesByMembership(membershipType, LocalDate.now())
+                .map(perk -> perk.plusVotes(voteWriteBuffer.pendingVotes(perk.id())));
+        MediaType type = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+        return ServerResponse.ok().contentType(type).body(perks, PerkSummary.class);
+    }
+
+    /**
+     * Creates a perk from the same JSON payload as PerkRestController.createPerk.
+     */
+    Mono<ServerResponse> createPerk(ServerRequest request) {
+        return request.bodyToMono(PAYLOAD)
+                .flatMap(payload -> {
+                    String title = (String) payload.get("title");
+                    String description = (String) payload.get("description");
+                    String region = (String) payload.get("region");
+                    MembershipType membership = membershipCatalog.findByName((String) payload.get("membershipType"))
+                            .orElseThrow(() -> new IllegalArgumentException("Membership Type not found"));
+                    long userId = Long.parseLong(payload.get("userId").toString());
+                    LocalDate expiryDate = LocalDate.parse((String) payload.get("expiryDate"));
+                    return store.findUsername(userId)
+                            .switchIfEmpty(Mono.error(new IllegalArgumentException("User not found")))
+                            .flatMap(username -> store.insert(title, description, region, expiryDate,
+                                            membership.getId(), userId)
+                                    .map(id -> {
+                                        Perk perk = new Perk(title, description, region, expiryDate, membership, null);
+                                        perk.setId(id);
+                                        perkService.insertedElsewhere(perk);
+                                        return new PerkSummary(id, title, description, region, expiryDate, 0,
+                                                membership.getName(), username);
+                                    }));
+                })
+                .flatMap(perk -> ServerResponse.status(HttpStatus.CREATED).bodyValue(perk))
+                .onErrorResume(ReactivePerkHandler::error);
+    }
+
+    /**
+     * Adds an upvote or downvote to a perk, like PerkRestController.votePerk.
+     */
+    Mono<ServerResponse> votePerk(ServerRequest request) {
+        long perkId;
+        int delta;
+        try {
+            perkId = Long.parseLong(request.pathVariable("perkId"));
+            delta = Boolean.parseBoolean(request.queryParam("upvote")
+                    .orElseThrow(() -> new IllegalArgumentException("upvote is required"))) ? 1 : -1;
+        } catch (IllegalArgumentException e) {
+            return error(e);
+        }
+        return store.addVotes(perkId, delta)
+                .doOnNext(votes -> perkService.votesWrittenElsewhere(perkId, delta))
+                .then(ServerResponse.ok().bodyValue(Map.of("success", true)))
+                .onErrorResume(ReactivePerkHandler::error);
+    }
+}
@@ -0,0 +1,194 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.apache.catalina.Container;
+import org.apache.catalina.Context;
+import org.apache.catalina.Session;
+import org.apache.catalina.util.SessionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import java.io.IOException;
+
+/**
+ * Serves the reactive variant of /api/perks, ReactivePerkHandler, on its own Netty
+ * port next to the servlet application, when perk.reactive.enabled is true.
+ *
+ * It reads and writes the servlet application's H2 database through an R2DBC pool
+ * and shares its in-memory indexes. Requests are authenticated by the servlet
+ * application's session cookie: the session is looked up in Tomcat's session
+ * manager and must hold a logged-in security context, so clients log in on the
+ * main port first.
+ */
+@Component
+@ConditionalOnProperty(name = "perk.reactive.enabled", havingValue = "true")
+public class ReactivePerkServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactivePerkServer.class);
+    private static final String H2_MEMORY = "jdbc:h2:mem:";
+
+    private final PerkService perkService;
+    private final MembershipCatalog membershipCatalog;
+    private final VoteWriteBuffer voteWriteBuffer;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+    private final int port;
+    private final String r2dbcUrl;
+    private final String username;
+    private final String password;
+    private final int poolSize;
+
+    private ConnectionPool connectionPool;
+    private WebServer webServer;
+
+    /**
+     * @param port      the port to listen on, 0 for any free port
+     * @param r2dbcUrl  the R2DBC URL of the database, derived from an in-memory H2 datasource URL if empty
+     * @param jdbcUrl   the servlet application's datasource URL
+     * @param username  the database user, the same as the datasource's
+     * @param password  the database password, the same as the datasource's
+     * @param poolSize  the most R2DBC connections open at once
+     */
+    public ReactivePerkServer(PerkService perkService,
+                              MembershipCatalog membershipCatalog,
+                              VoteWriteBuffer voteWriteBuffer,
+                              ObjectMapper objectMapper,
+                              ApplicationContext applicationContext,
+                              @Value("${perk.reactive.port:8083}") int port,
+                              @Value("${perk.reactive.r2dbc-url:}") String r2dbcUrl,
+                              @Value("${spring.datasource.url}") String jdbcUrl,
+                              @Value("${spring.datasource.username:sa}") String username,
+                              @Value("${spring.datasource.password:}") String password,
+                              @Value("${perk.reactive.pool-size:10}") int poolSize) {
+        this.perkService = perkService;
+        this.membershipCatalog = membershipCatalog;
+        this.voteWriteBuffer = voteWriteBuffer;
+        this.objectMapper = objectMapper;
+        this.applicationContext = applicationContext;
+        this.port = port;
+        this.r2dbcUrl = r2dbcUrl.isEmpty() ? r2dbcUrl(jdbcUrl) : r2dbcUrl;
+        this.username = username;
+        this.password = password;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Derives the R2DBC URL of an in-memory H2 database from its JDBC URL, so both
+     * open the same database in this JVM.
+     *
+     * @throws IllegalArgumentException if the JDBC URL is not an in-memory H2 database
+     */
+    static String r2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith(H2_MEMORY)) {
+            throw new IllegalArgumentException("Set perk.reactive.r2dbc-url for " + jdbcUrl);
+        }
+        return "r2dbc:h2:mem:///" + jdbcUrl.substring(H2_MEMORY.length()).split(";", 2)[0];
+    }
+
+    @Override
+    public void start() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcUrl).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolSize)
+                .build());
+        ReactivePerkHandler handler = new ReactivePerkHandler(
+                new ReactivePerkStore(DatabaseClient.create(connectionPool)), perkService, membershipCatalog,
+                voteWriteBuffer);
+        HandlerStrategies strategies = HandlerStrategies.builder().codecs(codecs -> {
+            codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+            codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+        }).build();
+        webServer = new NettyReactiveWebServerFactory(port)
+                .getWebServer(RouterFunctions.toHttpHandler(handler.routes(this::authenticated), strategies));
+        webServer.start();
+        log.info("Reactive perk API listening on port {}", webServer.getPort());
+    }
+
+    @Override
+    public void stop() {
+        webServer.stop();
+        connectionPool.dispose();
+        webServer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return webServer != null;
+    }
+
+    /**
+     * @return the port the reactive API listens on, or -1 if it is not running
+     */
+    public int getPort() {
+        return webServer == null ? -1 : webServer.getPort();
+    }
+
+    /**
+     * Checks that the request carries the session cookie of a logged-in servlet session.
+     */
+    private boolean authenticated(ServerRequest request) {
+        Context context = servletContext();
+        if (context == null) {
+            return false;
+        }
+        HttpCookie cookie = request.cookies().getFirst(SessionConfig.getSessionCookieName(context));
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            Session session = context.getManager().findSession(cookie.getValue());
+            if (session == null || !session.isValid()) {
+                return false;
+            }
+            // Counts as activity, so an API client keeps its session alive like a browser does.
+            session.access();
+            session.endAccess();
+            return session.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY)
+                    instanceof SecurityContext security
+                    && security.getAuthentication() != null
+                    && security.getAuthentication().isAuthenticated();
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the Tomcat context of the servlet application, null without one
+     */
+    private Context servletContext() {
+        if (applicationContext instanceof ServletWebServerApplicationContext web
+                && web.getWebServer() instanceof TomcatWebServer tomcat) {
+            for (Container child : tomcat.getTomcat().getHost().findChildren()) {
+                if (child instanceof Context context) {
+                    return context;
+                }
+            }
+        }
+        return null;
+    }
+}
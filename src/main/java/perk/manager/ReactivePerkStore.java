@@ -0,0 +1,144 @@
+package perk.manager;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * R2DBC access to the perk tables for the reactive API, the counterpart of
+ * PerkRepository's summary queries and vote update.
+ *
+ * Rows are read and written with plain SQL against the schema Hibernate creates,
+ * so nothing here goes through the persistence context or the second-level cache.
+ * The H2 driver runs each query on the thread that subscribes to it, so every query
+ * is subscribed on the bounded elastic scheduler to keep it off Netty's event loop.
+ */
+class ReactivePerkStore {
+
+    /** Selects the columns of a PerkSummary, joining the membership name and creator username. */
+    private static final String SUMMARY = "select p.id, p.title, p.description, p.region, p.expiry_date, p.votes, " +
+            "m.name as membership, u.username from perk p left join membership_type m on m.id = p.membership_type_id " +
+            "left join users u on u.id = p.created_by_id ";
+    /** Rows read per query while streaming a search. */
+    static final int SEARCH_CHUNK = 256;
+
+    private final DatabaseClient databaseClient;
+
+    ReactivePerkStore(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    private static PerkSummary summary(Readable row) {
+        return new PerkSummary(row.get("id", Long.class), row.get("title", String.class),
+                row.get("description", String.class), row.get("region", String.class),
+                row.get("expiry_date", LocalDate.class), row.get("votes", Integer.class),
+                row.get("membership", String.class), row.get("username", String.class));
+    }
+
+    /**
+     * Binds an optional text column.
+     */
+    private static DatabaseClient.GenericExecuteSpec text(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    /**
+     * Streams the summaries of a membership's active perks in ID order.
+     *
+     * The rows are read in chunks, seeking past the last ID sent, and the next chunk is
+     * only read once the client has taken the previous one. A connection is held just
+     * while a chunk is read, so slow clients do not keep the pool's connections from
+     * everyone else.
+     */
+    Flux<PerkSummary> findSummariesByMembership(String membership, LocalDate today) {
+        return findChunk(membership, today, 0)
+                .expand(chunk -> chunk.size() < SEARCH_CHUNK
+                        ? Mono.empty()
+                        : findChunk(membership, today, chunk.get(chunk.size() - 1).id()))
+                .concatMapIterable(chunk -> chunk, 1);
+    }
+
+    private Mono<List<PerkSummary>> findChunk(String membership, LocalDate today, long afterId) {
+        return databaseClient.sql(SUMMARY + "where lower(m.name) = lower(:membership) and p.expiry_date >= :today " +
+                        "and p.id > :afterId order by p.id fetch first " + SEARCH_CHUNK + " rows only")
+                .bind("membership", membership)
+                .bind("today", today)
+                .bind("afterId", afterId)
+                .map(ReactivePerkStore::summary)
+                .all()
+                .collectList()
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Reads the summaries of the perks with the given IDs, in no particular order.
+     */
+    Flux<PerkSummary> findSummariesByIdIn(Collection<Long> ids) {
+        return databaseClient.sql(SUMMARY + "where p.id in (:ids)")
+                .bind("ids", ids)
+                .map(ReactivePerkStore::summary)
+                .all()
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @return the username of the user with the given ID, empty if there is none
+     */
+    Mono<String> findUsername(long userId) {
+        return databaseClient.sql("select username from users where id = :id")
+                .bind("id", userId)
+                .map(row -> row.get("username", String.class))
+                .one()
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Inserts a perk with no votes.
+     *
+     * The ID is the top of a block freshly taken from perk_seq. Hibernate's pooled
+     * optimizer treats each value it fetches as the top of its own block, so it never
+     * hands out an ID from a block someone else took.
+     *
+     * @return the new perk's ID
+     */
+    Mono<Long> insert(String title, String description, String region, LocalDate expiryDate,
+                      long membershipTypeId, long userId) {
+        return databaseClient.sql("select next value for perk_seq as id")
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .flatMap(id -> text(text(databaseClient.sql("insert into perk (id, title, description, region, " +
+                                "expiry_date, votes, membership_type_id, created_by_id, last_modified) " +
+                                "values (:id, :title, :description, :region, :expiryDate, 0, :membership, :user, " +
+                                "current_timestamp)"), "description", description), "region", region)
+                        .bind("id", id)
+                        .bind("title", title)
+                        .bind("expiryDate", expiryDate)
+                        .bind("membership", membershipTypeId)
+                        .bind("user", userId)
+                        .then()
+                        .thenReturn(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Adds a signed delta to a perk's vote count in a single UPDATE, like PerkRepository.addVotes.
+     *
+     * @return the new vote count, empty if the perk does not exist
+     */
+    Mono<Integer> addVotes(long perkId, int delta) {
+        return databaseClient.sql("select votes from final table (update perk set votes = votes + :delta, " +
+                        "last_modified = current_timestamp where id = :id)")
+                .bind("delta", delta)
+                .bind("id", perkId)
+                .map(row -> row.get("votes", Integer.class))
+                .one()
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
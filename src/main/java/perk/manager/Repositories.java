@@ -1,20 +1,110 @@
 package perk.manager;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Repositories to hold data for user, membershipType, userMembership, and Perk.
+ * Repositories to hold data for user, membershipType, userMembership, Perk, and PerkVote.
+ *
+ * Associations are lazy and the session closes before views render, so every
+ * finder whose results are rendered names the entity graph of its use case.
+ *
+ * Finders marked cacheable keep their result IDs in the query cache; the rows
+ * themselves come from the entity regions. Both are configured in ehcache.xml.
  */
 
-interface UserRepository extends JpaRepository<User, Long> {}
+interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "user-queries")})
+    Optional<User> findByUsername(String username);
+
+    @EntityGraph("User.profile")
+    Optional<User> findProfileByUsername(String username);
+}
 
 interface MembershipTypeRepository extends JpaRepository<MembershipType, Long> {}
 
-interface UserMembershipRepository extends JpaRepository<UserMembership, Long> {}
+interface UserMembershipRepository extends JpaRepository<UserMembership, Long> {
+    @Query("select um.membershipType.id from UserMembership um where um.user.id = :userId order by um.id")
+    List<Long> findMembershipTypeIdsByUserId(@Param("userId") long userId);
+}
 
 interface PerkRepository extends JpaRepository<Perk, Long> {
-    List<Perk> findByMembershipType_NameIgnoreCase(String name);
-    List<Perk> findAllByOrderByVotesDesc();
-    List<Perk> findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String title, String description);
-}
\ No newline at end of file
+    /** Selects only the columns of a PerkSummary, joining the membership name and creator username. */
+    String SUMMARY = "select new perk.manager.PerkSummary(p.id, p.title, p.description, p.region, p.expiryDate, " +
+            "p.votes, m.name, u.username) from Perk p left join p.membershipType m left join p.createdBy u ";
+
+    @Override
+    @EntityGraph("Perk.card")
+    List<Perk> findAll();
+
+    @EntityGraph("Perk.card")
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "perk-queries")})
+    List<Perk> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph("Perk.voteSection")
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "perk-queries")})
+    Optional<Perk> findForVoteSectionById(Long id);
+
+    @EntityGraph("Perk.card")
+    List<Perk> findByExpiryDateGreaterThanEqual(LocalDate today);
+
+    /** Reads one page of active perks in ID order without filling the second-level cache. */
+    @EntityGraph("Perk.card")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE"))
+    List<Perk> findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(LocalDate today, Long afterId, Limit limit);
+
+    @EntityGraph("Perk.card")
+    @QueryHints({@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "perk-queries")})
+    List<Perk> findByMembershipType_NameIgnoreCaseAndExpiryDateGreaterThanEqual(String name, LocalDate today);
+
+    /**
+     * Adds a signed delta to a perk's vote count in a single UPDATE and returns the new count.
+     * The same UPDATE stamps last_modified, which Hibernate's @UpdateTimestamp cannot see here.
+     * The database applies the increment under its row lock, so concurrent votes are never lost.
+     * Uses H2's data change delta table to read the updated row back in the same statement.
+     */
+    @Transactional
+    @Query(value = "select votes from final table (update perk set votes = votes + :delta, " +
+            "last_modified = current_timestamp where id = :id)", nativeQuery = true)
+    Optional<Integer> addVotes(@Param("id") long id, @Param("delta") int delta);
+
+    /*
+     * Summaries for the REST API. Pages are ordered by the in-memory PerkLeaderboard
+     * and PerkExpiryIndex and only the rows on the page are selected by id.
+     */
+
+    @Query(SUMMARY + "where lower(m.name) = lower(:membership) and p.expiryDate >= :today order by p.id")
+    List<PerkSummary> findSummariesByMembership(@Param("membership") String membership,
+                                                @Param("today") LocalDate today);
+
+    @Query(SUMMARY + "where p.id in :ids")
+    List<PerkSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+}
+
+interface PerkVoteRepository extends JpaRepository<PerkVote, Long> {
+    /** A user's vote on one perk, read without loading the vote or the perk. */
+    interface UserVote {
+        Long getPerkId();
+
+        boolean isUpvote();
+    }
+
+    @Query("select v.perk.id as perkId, v.upvote as upvote from PerkVote v where v.user.id = :userId")
+    List<UserVote> findVotesByUser(@Param("userId") Long userId);
+
+    Optional<PerkVote> findByUser_IdAndPerk_Id(Long userId, Long perkId);
+}
@@ -1,44 +1,46 @@
 package perk.manager;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 
 /**
  * Configuration class for setting up Spring Security within the application.
  *
  * This class defines security filters, authentication, authorization rules,
- * password encoding, user detail loading, and exception handling.
+ * user detail loading, and exception handling. Passwords are encoded by the
+ * PasswordHasher, and a stored hash of another cost is rehashed at login.
  *
  * It customizes the login and logout behavior, disables CSRF for simplicity
  * and handles HTMX requests by returning 401 instead of redirecting.
  *
+ * Actuator endpoints are open, since the management server only listens on the
+ * loopback address for a local Prometheus scraper.
+ *
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache principalCache;
 
-    public SecurityConfig(UserRepository userRepository) {
+    public SecurityConfig(UserRepository userRepository, UserPrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
-    /**
-     * Defines the PasswordEncoder to be used for hashing user passwords.
-     *
-     * @return a BCryptPasswordEncoder instance
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() { return new BCryptPasswordEncoder(); }
-
     /**
      * Configures the main security filter chain for handling authentication,
      * authorization, login, logout, CSRF, and exception handling.
@@ -52,13 +54,17 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/index.html", "/signup", "/register", "/css/**", "/js/**").permitAll()
-                        .requestMatchers("/perks/dashboard", "/perks/search").permitAll()
+                        .requestMatchers("/perks/dashboard", "/perks/search", "/perks/votes/stream").permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
+                        // Error pages keep their status, e.g. a 503 from a saturated PasswordHasher.
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
                         .loginPage("/login")
                         .loginProcessingUrl("/login")
                         .defaultSuccessUrl("/perks/dashboard", true)
+                        .failureHandler(loginFailureHandler())
                         .permitAll()
                 )
                 .logout(logout -> logout
@@ -81,28 +87,53 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Answers a login refused by a saturated PasswordHasher with 503, and any other
+     * failed login with the login page's error message.
+     */
+    private static AuthenticationFailureHandler loginFailureHandler() {
+        SimpleUrlAuthenticationFailureHandler loginError = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            if (exception instanceof PasswordHasher.BusyException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, PasswordHasher.RETRY_AFTER_SECONDS);
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exception.getMessage());
+            } else {
+                loginError.onAuthenticationFailure(request, response, exception);
+            }
+        };
+    }
+
+    /**
+     * Stores the hash Spring Security makes of a password at login when the stored
+     * one was made at another cost than the PasswordHasher's.
+     *
+     * @param userService saves the new hash and drops the cached principal
+     * @return the service Spring Security's login calls with the new hash
+     */
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService(UserService userService) {
+        return (user, newPassword) -> {
+            userService.updatePasswordHash(user.getUsername(), newPassword);
+            return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                    .password(newPassword)
+                    .build();
+        };
+    }
+
     /**
      * Provides a custom UserDetailsService implementation that
      * loads users from the application's UserRepository.
      *
-     * Users are matched by their username. An exception is thrown if the user
-     * cannot be found. Returned users are assigned the role USER.
+     * Users are matched by their username through the indexed username column,
+     * and resolved principals are kept in the UserPrincipalCache. An exception
+     * is thrown if the user cannot be found. Returned users are assigned the role USER.
      *
      * @return a UserDetailsService capable of loading users from the database
      */
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> {
-            User user = userRepository.findAll().stream()
-                    .filter(u -> u.getUsername().equals(username))
-                    .findFirst()
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-            return org.springframework.security.core.userdetails.User
-                    .withUsername(user.getUsername())
-                    .password(user.getPassword())
-                    .roles("USER")
-                    .build();
-        };
+        return username -> principalCache
+                .get(username, name -> userRepository.findByUsername(name).map(User::getPassword))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 }
\ No newline at end of file
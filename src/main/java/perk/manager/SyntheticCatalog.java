@@ -0,0 +1,265 @@
+package perk.manager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * A deterministic, production-shaped perk catalog for the synthetic data generator.
+ *
+ * The same seed and sizes always describe the same data. Popularity follows Zipf's
+ * law everywhere it does in production: a few perks collect most of the votes, a
+ * few membership programs own most of the perks, and a few partner accounts create
+ * most of them. Each membership program has a home region most of its perks are
+ * offered in, and descriptions range from a few words to the full column.
+ *
+ * Each perk is derived from its index alone, so rows can be generated in any order
+ * without holding the catalog in memory; only vote counts and user votes, which
+ * link perks and users, are drawn up front.
+ */
+class SyntheticCatalog {
+
+    /** Weighted regions perks are offered in. */
+    private static final List<String> REGIONS = List.of("Canada", "Ontario", "Quebec", "British Columbia",
+            "Alberta", "Manitoba", "Saskatchewan", "Nova Scotia", "North America", "Online");
+    private static final int[] REGION_WEIGHTS = {30, 15, 10, 10, 8, 3, 2, 3, 12, 7};
+    /** Share of a membership's perks offered in its home region. */
+    private static final double HOME_REGION_SHARE = 0.6;
+    /** Share of perks that have already expired. */
+    private static final double EXPIRED_SHARE = 0.05;
+    /** Share of user votes that are downvotes. */
+    private static final double DOWNVOTE_SHARE = 0.1;
+    private static final int MAX_DESCRIPTION = 255;
+
+    private static final String[] OFFERS = {"% off", "Free", "Double points on", "Bonus points on", "Buy one get one",
+            "Cashback on", "Early access to", "Members-only pricing on"};
+    private static final String[] CATEGORIES = {"movie tickets", "groceries", "gas", "domestic flights", "hotel stays",
+            "car rentals", "dining", "coffee", "electronics", "streaming", "concerts", "pharmacy", "home goods",
+            "travel insurance", "roadside assistance", "books", "fitness classes", "ride sharing"};
+    private static final String[] WORDS = {"members", "save", "on", "every", "purchase", "at", "participating",
+            "locations", "across", "the", "region", "when", "you", "pay", "with", "your", "card", "offer", "valid",
+            "until", "expiry", "limit", "one", "per", "account", "points", "are", "credited", "within", "days",
+            "of", "qualifying", "transaction", "terms", "and", "conditions", "apply", "see", "store", "for", "details"};
+
+    private final long seed;
+    private final int perks;
+    private final int users;
+    private final int memberships;
+    private final LocalDate today;
+    private final Instant now;
+
+    private final int[] homeRegion;
+    private final Zipf membershipPopularity;
+    private final Zipf creatorPopularity;
+    private final int[] votes;
+    private final int[] voteUser;
+    private final int[] votePerk;
+    private final boolean[] voteUp;
+
+    /**
+     * @param seed        the seed every value is derived from
+     * @param perks       the number of perks
+     * @param users       the number of users
+     * @param memberships the number of membership programs
+     * @param userVotes   the number of individual user votes
+     * @param exponent    the Zipf exponent of every popularity distribution, around 1
+     * @param today       the date expiry dates are relative to
+     * @param now         the instant modification times are relative to
+     */
+    SyntheticCatalog(long seed, int perks, int users, int memberships, int userVotes, double exponent,
+                     LocalDate today, Instant now) {
+        this.seed = seed;
+        this.perks = perks;
+        this.users = users;
+        this.memberships = memberships;
+        this.today = today;
+        this.now = now;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        homeRegion = new int[memberships];
+        for (int m = 0; m < memberships; m++) {
+            homeRegion[m] = weightedRegion(random);
+        }
+        membershipPopularity = new Zipf(memberships, exponent);
+        creatorPopularity = new Zipf(users, exponent);
+
+        // Rank perks by popularity in a shuffled order, so popular perks are spread over the ID range.
+        int[] perkAtRank = new int[perks];
+        for (int i = 0; i < perks; i++) {
+            perkAtRank[i] = i;
+        }
+        for (int i = perks - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = perkAtRank[i];
+            perkAtRank[i] = perkAtRank[j];
+            perkAtRank[j] = swap;
+        }
+
+        // Anonymous votes follow Zipf's law exactly; the most popular perk has one for every 20 perks.
+        votes = new int[perks];
+        double topVotes = Math.max(100, perks / 20.0);
+        for (int rank = 0; rank < perks; rank++) {
+            votes[perkAtRank[rank]] = (int) (topVotes / Math.pow(rank + 1, exponent));
+        }
+
+        // User votes: voters and the perks they vote on are both Zipf-distributed, one vote per user and perk.
+        int[] votesPerUser = new int[users];
+        Zipf voterPopularity = new Zipf(users, exponent);
+        for (int i = 0; i < userVotes; i++) {
+            votesPerUser[voterPopularity.sample(random)]++;
+        }
+        Zipf perkPopularity = new Zipf(perks, exponent);
+        voteUser = new int[userVotes];
+        votePerk = new int[userVotes];
+        voteUp = new boolean[userVotes];
+        int count = 0;
+        Set<Integer> voted = new HashSet<>();
+        for (int user = 0; user < users; user++) {
+            voted.clear();
+            int wanted = Math.min(votesPerUser[user], perks);
+            while (voted.size() < wanted) {
+                int perk = perkAtRank[perkPopularity.sample(random)];
+                if (voted.add(perk)) {
+                    boolean up = random.nextDouble() >= DOWNVOTE_SHARE;
+                    voteUser[count] = user;
+                    votePerk[count] = perk;
+                    voteUp[count] = up;
+                    votes[perk] += up ? 1 : -1;
+                    count++;
+                }
+            }
+        }
+    }
+
+    /**
+     * One perk of the catalog.
+     *
+     * @param title        the perk title
+     * @param description  the perk description, 12 to 255 characters
+     * @param region       the region the perk is offered in
+     * @param expiryDate   when the perk expires; a few are already expired
+     * @param votes        the net vote count, including the user votes on it
+     * @param membership   the index of the perk's membership program
+     * @param creator      the index of the user who created it
+     * @param lastModified when the perk was last changed, within the last 90 days
+     */
+    record PerkRow(String title, String description, String region, LocalDate expiryDate, int votes,
+                   int membership, int creator, Instant lastModified) {}
+
+    /**
+     * Derives the perk with the given index.
+     *
+     * @param index the perk index, from 0
+     * @return the perk, the same every time for the same seed
+     */
+    PerkRow perk(int index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        int membership = membershipPopularity.sample(random);
+        String region = random.nextDouble() < HOME_REGION_SHARE ? REGIONS.get(homeRegion[membership])
+                : REGIONS.get(weightedRegion(random));
+        LocalDate expiryDate = random.nextDouble() < EXPIRED_SHARE
+                ? today.minusDays(1 + random.nextInt(60))
+                : today.plusDays(1 + random.nextInt(365));
+        return new PerkRow(title(random), description(random), region, expiryDate, votes[index], membership,
+                creatorPopularity.sample(random), now.minusSeconds(random.nextLong(90L * 24 * 3600)));
+    }
+
+    /**
+     * Derives the memberships a user holds: one to three programs, popular ones more often.
+     *
+     * @param user   the user index, from 0
+     * @param action receives the index of each membership the user holds, once each
+     */
+    void membershipsOf(int user, IntConsumer action) {
+        SplittableRandom random = new SplittableRandom(~seed * 0x9E3779B97F4A7C15L + user);
+        int held = 1 + random.nextInt(3);
+        int[] chosen = new int[held];
+        int count = 0;
+        for (int attempt = 0; attempt < held * 4 && count < Math.min(held, memberships); attempt++) {
+            int membership = membershipPopularity.sample(random);
+            if (Arrays.stream(chosen, 0, count).noneMatch(m -> m == membership)) {
+                chosen[count++] = membership;
+                action.accept(membership);
+            }
+        }
+    }
+
+    /**
+     * @return the number of individual user votes.
+     */
+    int userVotes() {
+        return voteUser.length;
+    }
+
+    int voteUser(int vote) {
+        return voteUser[vote];
+    }
+
+    int votePerk(int vote) {
+        return votePerk[vote];
+    }
+
+    boolean voteUp(int vote) {
+        return voteUp[vote];
+    }
+
+    private static int weightedRegion(SplittableRandom random) {
+        int total = Arrays.stream(REGION_WEIGHTS).sum();
+        int pick = random.nextInt(total);
+        for (int i = 0; i < REGION_WEIGHTS.length; i++) {
+            pick -= REGION_WEIGHTS[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return REGION_WEIGHTS.length - 1;
+    }
+
+    private static String title(SplittableRandom random) {
+        String offer = OFFERS[random.nextInt(OFFERS.length)];
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        return offer.equals("% off") ? (5 + 5 * random.nextInt(10)) + offer + " " + category : offer + " " + category;
+    }
+
+    /**
+     * Builds a description whose length is log-normally distributed around 80 characters.
+     */
+    private static String description(SplittableRandom random) {
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        int length = (int) Math.max(12, Math.min(MAX_DESCRIPTION, Math.exp(Math.log(80) + 0.6 * gaussian)));
+        StringBuilder description = new StringBuilder(length + 16);
+        description.append(Character.toUpperCase(WORDS[0].charAt(0))).append(WORDS[0], 1, WORDS[0].length());
+        while (description.length() < length) {
+            description.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        description.setLength(Math.min(description.length(), MAX_DESCRIPTION));
+        return description.toString();
+    }
+
+    /**
+     * Samples ranks 0 to n - 1 with probability proportional to 1 / (rank + 1)^exponent.
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+}
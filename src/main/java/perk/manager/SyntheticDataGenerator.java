@@ -0,0 +1,215 @@
+package perk.manager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the database with a production-sized SyntheticCatalog when the "synthetic"
+ * profile is active, so benchmarks and load tests run against representative data.
+ *
+ * DataLoader runs it after seeding the demo data. Rows are written with plain JDBC
+ * batches, one transaction per batch, bypassing Hibernate. Perk IDs are reserved
+ * from perk_seq up front and the sequence is moved past them afterwards, so perks
+ * created later through Hibernate never collide with them. Every synthetic user
+ * shares one password hash, since hashing a password per user would take longer
+ * than the rest of the run.
+ */
+@Component
+@Profile("synthetic")
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    /** Synthetic usernames are this prefix followed by the user's number, from 1. */
+    static final String USERNAME_PREFIX = "synthetic-";
+    /** perk_seq hands out this many IDs per call; must match Perk's allocationSize. */
+    private static final int PERK_ID_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MembershipService membershipService;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final long seed;
+    private final int users;
+    private final int perks;
+    private final int memberships;
+    private final int votes;
+    private final double zipfExponent;
+    private final String password;
+    private final int batchSize;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MembershipService membershipService,
+                                  PasswordEncoder passwordEncoder,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${perk.synthetic.seed:42}") long seed,
+                                  @Value("${perk.synthetic.users:10000}") int users,
+                                  @Value("${perk.synthetic.perks:1000000}") int perks,
+                                  @Value("${perk.synthetic.memberships:40}") int memberships,
+                                  @Value("${perk.synthetic.votes:1000000}") int votes,
+                                  @Value("${perk.synthetic.zipf-exponent:1.1}") double zipfExponent,
+                                  @Value("${perk.synthetic.password:demo123}") String password,
+                                  @Value("${perk.synthetic.batch-size:5000}") int batchSize) {
+        if (users < 1 || memberships < 1 || perks < 0 || votes < 0 || batchSize < 1) {
+            throw new IllegalArgumentException("Synthetic data needs at least one user and membership");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.membershipService = membershipService;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.seed = seed;
+        this.users = users;
+        this.perks = perks;
+        this.memberships = memberships;
+        this.votes = votes;
+        this.zipfExponent = zipfExponent;
+        this.password = password;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Generates the synthetic users, memberships, perks and votes, unless they already exist.
+     */
+    public void generate() {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from users where username = ?",
+                Integer.class, USERNAME_PREFIX + 1);
+        if (existing != null && existing > 0) {
+            log.info("Synthetic data already present, skipping");
+            return;
+        }
+        long started = System.nanoTime();
+        SyntheticCatalog catalog = new SyntheticCatalog(seed, perks, users, memberships, votes, zipfExponent,
+                LocalDate.now(), Instant.now());
+        log.debug("Drew catalog in {} ms", (System.nanoTime() - started) / 1_000_000);
+        long[] membershipIds = insertMemberships();
+        long[] userIds = insertUsers(catalog, membershipIds);
+        log.debug("Inserted users in {} ms", (System.nanoTime() - started) / 1_000_000);
+        long[] perkIds = insertPerks(catalog, membershipIds, userIds);
+        log.debug("Inserted perks in {} ms", (System.nanoTime() - started) / 1_000_000);
+        insertVotes(catalog, userIds, perkIds);
+        // Queries cached before the inserts would otherwise keep serving the old catalog.
+        entityManagerFactory.getCache().evictAll();
+        log.info("Generated {} users, {} memberships, {} perks and {} votes from seed {} in {} ms",
+                users, memberships, perks, catalog.userVotes(), seed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds membership programs until there are as many as configured.
+     *
+     * @return the IDs of the first configured number of programs, in ID order
+     */
+    private long[] insertMemberships() {
+        List<MembershipType> types = new ArrayList<>(membershipService.getAllMemberships());
+        for (int i = types.size(); i < memberships; i++) {
+            types.add(membershipService.save("Partner Program " + (i + 1)));
+        }
+        return types.stream().mapToLong(MembershipType::getId).sorted().limit(memberships).toArray();
+    }
+
+    private long[] insertUsers(SyntheticCatalog catalog, long[] membershipIds) {
+        String hash = passwordEncoder.encode(password);
+        batches(users, "insert into users (username, password) values (?, ?)", (statement, user) -> {
+            statement.setString(1, USERNAME_PREFIX + (user + 1));
+            statement.setString(2, hash);
+        });
+        long[] userIds = jdbcTemplate.queryForList("select id from users where username like ? order by id",
+                Long.class, USERNAME_PREFIX + "%").stream().mapToLong(Long::longValue).toArray();
+
+        List<long[]> held = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            long userId = userIds[user];
+            catalog.membershipsOf(user, membership -> held.add(new long[]{userId, membershipIds[membership]}));
+        }
+        batches(held.size(), "insert into user_membership (user_id, membership_type_id) values (?, ?)",
+                (statement, row) -> {
+                    statement.setLong(1, held.get(row)[0]);
+                    statement.setLong(2, held.get(row)[1]);
+                });
+        return userIds;
+    }
+
+    private long[] insertPerks(SyntheticCatalog catalog, long[] membershipIds, long[] userIds) {
+        // The value returned is the top of a block Hibernate will never hand out, so IDs above it are ours.
+        Long reserved = jdbcTemplate.queryForObject("select next value for perk_seq", Long.class);
+        long firstId = reserved + 1;
+        batches(perks, "insert into perk (id, title, description, region, expiry_date, votes, membership_type_id, " +
+                "created_by_id, last_modified) values (?, ?, ?, ?, ?, ?, ?, ?, ?)", (statement, index) -> {
+            SyntheticCatalog.PerkRow perk = catalog.perk(index);
+            statement.setLong(1, firstId + index);
+            statement.setString(2, perk.title());
+            statement.setString(3, perk.description());
+            statement.setString(4, perk.region());
+            statement.setDate(5, Date.valueOf(perk.expiryDate()));
+            statement.setInt(6, perk.votes());
+            statement.setLong(7, membershipIds[perk.membership()]);
+            statement.setLong(8, userIds[perk.creator()]);
+            statement.setTimestamp(9, Timestamp.from(perk.lastModified()));
+        });
+        // The next block Hibernate fetches ends at the restart value and starts just after our last ID.
+        jdbcTemplate.execute("alter sequence perk_seq restart with " + (firstId + perks - 1 + PERK_ID_ALLOCATION));
+
+        long[] perkIds = new long[perks];
+        for (int i = 0; i < perks; i++) {
+            perkIds[i] = firstId + i;
+        }
+        return perkIds;
+    }
+
+    private void insertVotes(SyntheticCatalog catalog, long[] userIds, long[] perkIds) {
+        batches(catalog.userVotes(), "insert into perk_vote (user_id, perk_id, upvote) values (?, ?, ?)",
+                (statement, vote) -> {
+                    statement.setLong(1, userIds[catalog.voteUser(vote)]);
+                    statement.setLong(2, perkIds[catalog.votePerk(vote)]);
+                    statement.setBoolean(3, catalog.voteUp(vote));
+                });
+    }
+
+    /**
+     * Sets the parameters of one row of a batch.
+     */
+    private interface RowSetter {
+        void set(PreparedStatement statement, int row) throws SQLException;
+    }
+
+    /**
+     * Inserts rows 0 to count - 1 in JDBC batches of batchSize, one transaction per batch.
+     */
+    private void batches(int count, String sql, RowSetter rows) {
+        for (int start = 0; start < count; start += batchSize) {
+            int first = start;
+            int size = Math.min(batchSize, count - start);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement statement, int i) throws SQLException {
+                            rows.set(statement, first + i);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    }));
+        }
+    }
+}
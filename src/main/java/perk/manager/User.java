@@ -1,6 +1,9 @@
 package perk.manager;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,9 +14,17 @@ import java.util.List;
  *  - Login credentials (username and password)
  *  - Memberships the user belongs to
  *  - Perks created by this user
+ *
+ * Both collections are lazy; the profile page loads the user's perks, with their
+ * membership types, through the "User.profile" entity graph.
  */
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@NamedEntityGraph(name = "User.profile",
+        attributeNodes = @NamedAttributeNode(value = "perks", subgraph = "perk"),
+        subgraphs = @NamedSubgraph(name = "perk", attributeNodes = @NamedAttributeNode("membershipType")))
+@Table(name = "users", indexes = @Index(name = "ux_users_username", columnList = "username", unique = true))
 public class User {
 
     /**
@@ -24,7 +35,11 @@ public class User {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    /** Username used for authentication. */
+    /**
+     * Username used for authentication. Unique through the ux_users_username index,
+     * so logins are a single keyed lookup.
+     */
+    @Column(nullable = false)
     private String username;
 
     /** Password used for authentication (should be stored hashed). */
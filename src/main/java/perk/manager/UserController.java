@@ -69,7 +69,8 @@ public class UserController {
      * This method validates that the username is unique, creates a new user
      * account with the provided credentials, and redirects to the login page
      * upon successful registration. If the username already exists or registration
-     * fails, an error message is displayed on the signup page.
+     * fails, an error message is displayed on the signup page. If passwords cannot be
+     * hashed right now, the request is answered with 503.
      *
      * @param username the desired username for the new account
      * @param password the password for the new account
@@ -94,6 +95,15 @@ public class UserController {
             request.login(username, password);
 
             return "redirect:/perks/dashboard";
+        } catch (PasswordHasher.BusyException e) {
+            throw e;
+        } catch (jakarta.servlet.ServletException e) {
+            if (e.getCause() instanceof PasswordHasher.BusyException) {
+                // The account exists; only logging in was refused.
+                return "redirect:/login";
+            }
+            model.addAttribute("error", "Registration failed");
+            return "signup";
         } catch (Exception e) {
             model.addAttribute("error", "Registration failed");
             return "signup";
@@ -117,7 +127,7 @@ public class UserController {
     public String profile(@AuthenticationPrincipal org.springframework.security.core.userdetails.User principal,
                           Model model) {
         if (principal != null) {
-            User user = userService.findByUsername(principal.getUsername()).orElse(null);
+            User user = userService.findProfile(principal.getUsername()).orElse(null);
             model.addAttribute("user", user);
 
             List<MembershipType> allMemberships = membershipService.getAllMemberships();
@@ -19,14 +19,14 @@ public class UserMembership {
      * Represents a many-to-one relationship since multiple
      * membership records can belong to the same user.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     /**
      * Represents a many-to-one relationship since multiple
      * users can have the same membership type.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private MembershipType membershipType;
 
     public UserMembership(){}
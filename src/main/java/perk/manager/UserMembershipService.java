@@ -4,6 +4,7 @@ import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -18,15 +19,20 @@ public class UserMembershipService {
 
     private final UserMembershipRepository userMembershipRepository;
     private final UserRepository userRepository;
+    private final MembershipCatalog membershipCatalog;
 
     /**
      * Assigns the repository to be used by the system.
      *
      * @param userMembershipRepository the repo used for accessing membership type data.
+     * @param userRepository the repo used for looking up users.
+     * @param membershipCatalog the catalog membership types are resolved from.
      */
-    public UserMembershipService(UserMembershipRepository userMembershipRepository, UserRepository userRepository) {
+    public UserMembershipService(UserMembershipRepository userMembershipRepository, UserRepository userRepository,
+                                 MembershipCatalog membershipCatalog) {
         this.userMembershipRepository = userMembershipRepository;
         this.userRepository = userRepository;
+        this.membershipCatalog = membershipCatalog;
     }
 
     /**
@@ -68,6 +74,9 @@ public class UserMembershipService {
     /**
      * Retrieves all membership types assigned to the specified user.
      *
+     * Only the membership type ids are queried; the types themselves come from the
+     * MembershipCatalog, so they are the same instances as the full membership list.
+     *
      * @param user the user whose memberships should be retrieved.
      * @return a list of MembershipType entities associated with the user.
      */
@@ -75,9 +84,10 @@ public class UserMembershipService {
         if (user == null){
             return List.of();
         }
-        return user.getMemberships()
+        return userMembershipRepository.findMembershipTypeIdsByUserId(user.getId())
                 .stream()
-                .map(UserMembership::getMembershipType)
+                .map(membershipCatalog::findById)
+                .flatMap(Optional::stream)
                 .collect(Collectors.toList());
     }
 }
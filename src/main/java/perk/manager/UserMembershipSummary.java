@@ -0,0 +1,23 @@
+package perk.manager;
+
+/**
+ * A membership assigned to a user, as returned by the REST API.
+ *
+ * @param id               the user membership ID
+ * @param userId           the ID of the user holding the membership
+ * @param membershipTypeId the ID of the membership type
+ * @param membershipType   the name of the membership type
+ */
+public record UserMembershipSummary(long id, long userId, Long membershipTypeId, String membershipType) {
+
+    /**
+     * Builds the summary of a user membership.
+     *
+     * @param membership the user membership entity
+     * @return its summary
+     */
+    public static UserMembershipSummary from(UserMembership membership) {
+        return new UserMembershipSummary(membership.getId(), membership.getUser().getId(),
+                membership.getMembershipType().getId(), membership.getMembershipType().getName());
+    }
+}
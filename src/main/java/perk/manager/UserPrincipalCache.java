@@ -0,0 +1,89 @@
+package perk.manager;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, least-recently-used cache of username to login principal.
+ *
+ * Only the username and password hash are kept. A fresh UserDetails is built on
+ * every lookup because Spring Security erases the credentials of the principal
+ * it authenticates, which would otherwise corrupt the cached copy.
+ *
+ * Unknown usernames are never cached, and entries are invalidated whenever a
+ * user registers so a stale hash is never served.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final Map<String, String> passwordHashes;
+
+    /**
+     * Creates a cache holding at most the configured number of principals.
+     *
+     * @param maxEntries the maximum number of usernames kept before the least recently used is evicted
+     */
+    public UserPrincipalCache(@Value("${perk.security.principal-cache-size:10000}") int maxEntries) {
+        this.passwordHashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the principal for a username, loading its password hash on a miss.
+     *
+     * @param username the username to resolve
+     * @param loader   looks up the stored password hash, empty if the user does not exist
+     * @return the principal if the user exists
+     */
+    public Optional<UserDetails> get(String username, Function<String, Optional<String>> loader) {
+        String hash;
+        synchronized (passwordHashes) {
+            hash = passwordHashes.get(username);
+        }
+        if (hash == null) {
+            Optional<String> loaded = loader.apply(username);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            hash = loaded.get();
+            synchronized (passwordHashes) {
+                passwordHashes.put(username, hash);
+            }
+        }
+        return Optional.of(org.springframework.security.core.userdetails.User
+                .withUsername(username)
+                .password(hash)
+                .roles("USER")
+                .build());
+    }
+
+    /**
+     * Drops any cached principal for the username.
+     *
+     * @param username the username whose entry should be removed
+     */
+    public void invalidate(String username) {
+        synchronized (passwordHashes) {
+            passwordHashes.remove(username);
+        }
+    }
+
+    /**
+     * @return the number of principals currently cached.
+     */
+    public int size() {
+        synchronized (passwordHashes) {
+            return passwordHashes.size();
+        }
+    }
+}
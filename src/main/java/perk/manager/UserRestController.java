@@ -1,6 +1,7 @@
 package perk.manager;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -54,6 +55,10 @@ public class UserRestController {
                     "id", user.getId(),
                     "username", user.getUsername()
             ));
+        } catch (PasswordHasher.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, PasswordHasher.RETRY_AFTER_SECONDS)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -96,7 +101,7 @@ public class UserRestController {
      *
      * @param userId the ID of the user receiving the membership
      * @param payload map containing the membershipTypeId
-     * @return a response containing the created user membership record or an error message
+     * @return a response containing a summary of the created user membership or an error message
      */
     @PostMapping("/{userId}/memberships")
     public ResponseEntity<?> addMembership(@PathVariable Long userId, @RequestBody Map<String, Long> payload) {
@@ -109,7 +114,7 @@ public class UserRestController {
             }
 
             UserMembership um = userMembershipService.assignMembership(userOpt.get(), membershipOpt.get());
-            return ResponseEntity.status(HttpStatus.CREATED).body(um);
+            return ResponseEntity.status(HttpStatus.CREATED).body(UserMembershipSummary.from(um));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -16,21 +16,25 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache principalCache;
 
     /**
      * Creates a new instance of the user service.
      *
      * @param userRepository the repository used to access user data
      * @param passwordEncoder the encoder used for hashing user passwords
+     * @param principalCache the login principal cache to invalidate on registration
      */
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserPrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     /**
      * Registers a new user by creating a user record, encoding the password,
-     * and saving the user in the database.
+     * and saving the user in the database. Any cached login principal for the
+     * username is invalidated.
      *
      * @param username the chosen username of the new user
      * @param rawPassword the unencrypted password provided by the user
@@ -40,7 +44,24 @@ public class UserService {
         User user = new User();
         user.setUsername(username);
         user.setPassword(passwordEncoder.encode(rawPassword));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(username);
+        return saved;
+    }
+
+    /**
+     * Replaces a user's stored password hash, after their password was rehashed at
+     * another cost on login. Any cached login principal for the username is invalidated.
+     *
+     * @param username the username of the user
+     * @param encodedPassword the new hash of the user's password
+     */
+    public void updatePasswordHash(String username, String encodedPassword) {
+        userRepository.findByUsername(username).ifPresent(user -> {
+            user.setPassword(encodedPassword);
+            userRepository.save(user);
+        });
+        principalCache.invalidate(username);
     }
 
     /**
@@ -67,15 +88,23 @@ public class UserService {
     /**
      * Retrieves a user by their username.
      *
-     * This method scans all users in the repository and returns the first match.
-     * It should be replaced with a dedicated query method for improved efficiency.
+     * The lookup goes through the unique index on the username column.
      *
      * @param username the username to search for
      * @return an optional containing the matching user if found
      */
     public Optional<User> findByUsername(String username){
-        return userRepository.findAll().stream()
-                .filter(u -> u.getUsername().equals(username))
-                .findFirst();
+        return userRepository.findByUsername(username);
+    }
+
+    /**
+     * Retrieves a user by their username together with the perks they created
+     * and those perks' membership types, as shown on the profile page.
+     *
+     * @param username the username to search for
+     * @return an optional containing the matching user if found
+     */
+    public Optional<User> findProfile(String username) {
+        return userRepository.findProfileByUsername(username);
     }
 }
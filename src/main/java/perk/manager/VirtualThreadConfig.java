@@ -0,0 +1,81 @@
+package perk.manager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guards for the opt-in virtual-thread mode, turned on with spring.threads.virtual.enabled=true.
+ *
+ * Spring Boot then runs Tomcat requests, async MVC work such as the streamed export,
+ * and scheduled tasks on virtual threads. What it cannot see is that H2 waits for a
+ * row lock inside a synchronized method, which pins the waiting virtual thread to its
+ * carrier. A burst of votes on one perk queues on that perk's row, so with as many
+ * connections as carriers every carrier could be pinned by a waiter while the
+ * transaction holding the lock has none left to commit on.
+ *
+ * With perk.threads.virtual.limit-pool=true the connection pool is kept below the
+ * number of carriers; raise jdk.virtualThreadScheduler.parallelism to allow a larger
+ * pool. Without it a configured pool size is left alone and only a warning is logged.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Limits the connection pool once its properties have been bound, or warns that
+     * it could pin every carrier when the limit is not enabled.
+     */
+    @Bean
+    static BeanPostProcessor connectionPoolPinningGuard(
+            @Value("${perk.threads.virtual.limit-pool:false}") boolean limitPool) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    if (limitPool) {
+                        limitPool(dataSource, carriers());
+                    } else if (dataSource.getMaximumPoolSize() >= carriers()) {
+                        log.warn("The connection pool has {} connections for {} virtual thread carriers, so H2 "
+                                + "lock waits could pin them all; set perk.threads.virtual.limit-pool=true "
+                                + "to keep it smaller", dataSource.getMaximumPoolSize(), carriers());
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * @return the number of carrier threads virtual threads are scheduled on
+     */
+    static int carriers() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Shrinks the pool to one connection fewer than the carriers, if it is larger.
+     *
+     * @param dataSource the pool, not yet started
+     * @param carriers   the number of carrier threads
+     */
+    static void limitPool(HikariDataSource dataSource, int carriers) {
+        int limit = Math.max(1, carriers - 1);
+        if (dataSource.getMaximumPoolSize() <= limit) {
+            return;
+        }
+        log.warn("Limiting the connection pool from {} to {} connections so H2 lock waits cannot pin all {} "
+                + "virtual thread carriers", dataSource.getMaximumPoolSize(), limit, carriers);
+        dataSource.setMaximumPoolSize(limit);
+        if (dataSource.getMinimumIdle() > limit) {
+            dataSource.setMinimumIdle(limit);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package perk.manager;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes live vote counts to open dashboards as Server-Sent Events.
+ *
+ * Votes only mark their perk as changed. Every broadcast interval the changed perks'
+ * counts are read from the leaderboard and fanned out to every subscriber, so each
+ * perk sends at most one event per interval however many votes it got. An event is
+ * named perk-votes-ID and carries the counter's text, for htmx to swap in.
+ *
+ * Each subscriber has its own bounded buffer, drained by at most one sender at a
+ * time, so a slow connection never holds up the broadcast or other subscribers.
+ * A newer count for a perk replaces the one still waiting to be sent, and when the
+ * buffer is full the perk that has waited longest is dropped.
+ *
+ * A send is a blocking servlet write. The sender pool reuses a few threads but
+ * grows up to one per open stream, so stalled connections cannot take every sender.
+ * A subscriber whose send has been blocked for longer than the send timeout gets no
+ * more counts and is completed once the write returns, which the container's write
+ * timeout bounds. The number of open streams is capped; past the cap a new stream
+ * is refused with a FullException, answered with 503.
+ */
+@Component
+public class VoteBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteBroadcaster.class);
+    static final String EVENT_PREFIX = "perk-votes-";
+    /** Marks a send that has been blocked past the send timeout. */
+    private static final long STALLED = -2;
+
+    private final PerkLeaderboard leaderboard;
+    private final int bufferSize;
+    private final int maxStreams;
+    private final long sendTimeoutNanos;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor senders;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+
+    /**
+     * Creates the hub.
+     *
+     * @param leaderboard       where the current vote counts are read from
+     * @param bufferSize        the most perk counts waiting to be sent to one subscriber
+     * @param senders           the number of sender threads kept alive between broadcasts
+     * @param maxStreams        the most streams open at once
+     * @param sendTimeoutMillis how long a send may block before its subscriber is dropped
+     * @param timeoutMillis     how long a stream stays open before the browser has to reconnect
+     */
+    public VoteBroadcaster(PerkLeaderboard leaderboard,
+                           @Value("${perk.votes.broadcast.buffer-size:256}") int bufferSize,
+                           @Value("${perk.votes.broadcast.senders:4}") int senders,
+                           @Value("${perk.votes.broadcast.max-streams:1000}") int maxStreams,
+                           @Value("${perk.votes.broadcast.send-timeout-ms:5000}") long sendTimeoutMillis,
+                           @Value("${perk.votes.broadcast.timeout-ms:1800000}") long timeoutMillis) {
+        this.leaderboard = leaderboard;
+        this.bufferSize = bufferSize;
+        this.maxStreams = maxStreams;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.senders = new ThreadPoolExecutor(Math.min(senders, maxStreams), maxStreams, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("perk-vote-sender-"));
+    }
+
+    /**
+     * Thrown when a stream is refused because maxStreams streams are already open.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class FullException extends RuntimeException {
+
+        FullException() {
+            super("Too many live vote streams at the moment");
+        }
+    }
+
+    /**
+     * Opens a vote count stream.
+     *
+     * @throws FullException if maxStreams streams are already open
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, bufferSize, dropped);
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxStreams) {
+                throw new FullException();
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Marks a perk's vote count as changed, to be sent with the next broadcast.
+     * Called once the vote is committed and the leaderboard has moved.
+     */
+    public void changed(long perkId) {
+        if (!subscribers.isEmpty()) {
+            changed.add(perkId);
+        }
+    }
+
+    /**
+     * Sends the counts of the perks changed since the last broadcast to every subscriber.
+     */
+    @Scheduled(fixedDelayString = "${perk.votes.broadcast.interval-ms:250}")
+    public void broadcast() {
+        dropStalled();
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (Iterator<Long> it = changed.iterator(); it.hasNext(); ) {
+            long perkId = it.next();
+            it.remove();
+            // Expired and deleted perks are off the leaderboard and off every dashboard.
+            leaderboard.votes(perkId).ifPresent(votes -> counts.put(perkId, votes));
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(counts)) {
+                try {
+                    senders.execute(() -> drain(subscriber));
+                } catch (RejectedExecutionException e) {
+                    // Every sender is blocked on a stalled stream; no send is in flight for this one.
+                    subscribers.remove(subscriber);
+                    subscriber.emitter.complete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops broadcasting to subscribers whose send has been blocked for longer than the
+     * send timeout. The emitter is busy with the blocked write, so the send is only
+     * marked stalled here and its sender completes the emitter once the write returns.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted.get();
+            if (started != 0 && started != STALLED && now - started > sendTimeoutNanos
+                    && subscriber.sendStarted.compareAndSet(started, STALLED)) {
+                subscribers.remove(subscriber);
+                stalled.incrementAndGet();
+                log.debug("Dropping vote stream subscriber blocked in a send for over {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            }
+        }
+    }
+
+    /**
+     * Sends a subscriber's buffered counts until its buffer is empty, flushing once per batch.
+     * A subscriber whose connection fails, or that was dropped while its send was blocked,
+     * is completed.
+     */
+    private void drain(Subscriber subscriber) {
+        for (Map<Long, Integer> batch = subscriber.take(); batch != null; batch = subscriber.take()) {
+            Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+            batch.forEach((perkId, votes) -> events.addAll(SseEmitter.event()
+                    .name(EVENT_PREFIX + perkId)
+                    .data(votes + " votes", MediaType.TEXT_PLAIN)
+                    .build()));
+            // Never 0 or STALLED, which mean no send and a stalled send.
+            subscriber.sendStarted.set(System.nanoTime() | 1);
+            try {
+                subscriber.emitter.send(events);
+            } catch (IOException | IllegalStateException e) {
+                subscriber.sendStarted.set(0);
+                log.debug("Dropping vote stream subscriber: {}", e.getMessage());
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+            if (subscriber.sendStarted.getAndSet(0) == STALLED) {
+                subscriber.emitter.complete();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of open streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return the number of counts dropped from full subscriber buffers
+     */
+    public long getDroppedCounts() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of subscribers dropped because a send stayed blocked past the send timeout
+     */
+    public long getStalledSubscribers() {
+        return stalled.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * One open stream and the counts waiting to be sent to it, oldest first.
+     */
+    static final class Subscriber {
+
+        final SseEmitter emitter;
+        private final int capacity;
+        private final AtomicLong dropped;
+        private final LinkedHashMap<Long, Integer> pending = new LinkedHashMap<>();
+        private boolean draining;
+        /** When the send in flight started, 0 while none is, STALLED once it blocked too long. */
+        final AtomicLong sendStarted = new AtomicLong();
+
+        /**
+         * @param dropped counts the perk counts dropped from the full buffer
+         */
+        Subscriber(SseEmitter emitter, int capacity, AtomicLong dropped) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.dropped = dropped;
+        }
+
+        /**
+         * Buffers counts, replacing any older count of the same perk and dropping the
+         * longest-waiting perks once the buffer is full.
+         *
+         * @return whether a sender has to be started, because none is draining the buffer
+         */
+        synchronized boolean offer(Map<Long, Integer> counts) {
+            counts.forEach((perkId, votes) -> {
+                pending.remove(perkId);
+                pending.put(perkId, votes);
+            });
+            for (Iterator<Long> oldest = pending.keySet().iterator(); pending.size() > capacity; ) {
+                oldest.next();
+                oldest.remove();
+                dropped.incrementAndGet();
+            }
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        /**
+         * Empties the buffer, or ends the drain if it already is empty.
+         *
+         * @return the buffered counts, null once there are none left
+         */
+        synchronized Map<Long, Integer> take() {
+            if (pending.isEmpty()) {
+                draining = false;
+                return null;
+            }
+            Map<Long, Integer> batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package perk.manager;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind buffer for vote counts.
+ *
+ * When enabled, votes are added to a per-perk LongAdder instead of being written
+ * straight to the database, so a burst of votes on a popular perk only contends
+ * on striped in-memory cells. The accumulated deltas are written as one JDBC batch
+ * every flush interval, or sooner once enough votes have piled up, and always on
+ * shutdown. Reads add the pending delta on top of the stored count.
+ *
+ * A flush first moves every pending delta into an in-flight snapshot and starts
+ * new adders, in one step that readers never see half done, so votes arriving
+ * while the batch is written are kept for the next flush. The batch runs in one
+ * transaction: it commits as a whole, after which the snapshot is dropped and the
+ * written perks are evicted from the second-level cache, or fails as a whole, and
+ * the snapshot is added back to be retried.
+ */
+@Component
+public class VoteWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteWriteBuffer.class);
+    private static final String UPDATE_VOTES = "update perk set votes = votes + ?, last_modified = current_timestamp where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final long maxPendingEvents;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    /** The deltas of the batch being written, still counted as pending until it commits. */
+    private volatile Map<Long, Long> inFlight = Map.of();
+    /** Votes recorded since the last swap, written by the next successful flush. */
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong eventsSinceFlush = new AtomicLong();
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    /** Shared by recorders and readers, exclusive while a flush swaps the adders out or puts a failed batch back. */
+    private final ReadWriteLock adderLock = new ReentrantReadWriteLock();
+
+    private volatile int lastBatchSize;
+    private volatile long lastFlushLagMillis;
+    private final AtomicLong flushedVotes = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * Creates the buffer.
+     *
+     * @param jdbcTemplate         used to write the batched deltas
+     * @param transactionTemplate  writes each batch as one transaction
+     * @param taskScheduler        runs early flushes once maxPendingEvents is reached
+     * @param entityManagerFactory used to evict written perks from the second-level cache
+     * @param enabled              whether votes are buffered at all
+     * @param maxPendingEvents     the number of buffered votes that triggers a flush before the interval elapses
+     */
+    public VoteWriteBuffer(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           TaskScheduler taskScheduler,
+                           EntityManagerFactory entityManagerFactory,
+                           @Value("${perk.votes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${perk.votes.write-behind.max-pending-events:1000}") long maxPendingEvents) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    /**
+     * @return true if votes should be recorded here rather than written directly.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a vote delta for a perk.
+     *
+     * @param perkId the ID of the perk voted on
+     * @param delta  the signed change to its vote count
+     */
+    public void record(long perkId, int delta) {
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+        adderLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(perkId, id -> new LongAdder()).add(delta);
+            pendingEvents.incrementAndGet();
+        } finally {
+            adderLock.readLock().unlock();
+        }
+        if (eventsSinceFlush.incrementAndGet() >= maxPendingEvents && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    /**
+     * @param perkId the ID of the perk
+     * @return the vote delta recorded for the perk but not yet written
+     */
+    public int pendingVotes(long perkId) {
+        adderLock.readLock().lock();
+        try {
+            LongAdder adder = pending.get(perkId);
+            return (int) ((adder == null ? 0 : adder.sum()) + inFlight.getOrDefault(perkId, 0L));
+        } finally {
+            adderLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the pending delta of each perk to its stored vote count.
+     *
+     * @param perks the perks about to be returned to a caller
+     * @return the same perks
+     */
+    public <C extends Iterable<Perk>> C overlay(C perks) {
+        if (enabled) {
+            for (Perk perk : perks) {
+                perk.setPendingVotes(pendingVotes(perk.getId()));
+            }
+        }
+        return perks;
+    }
+
+    /**
+     * Adds the pending delta of each perk to its summary's vote count.
+     *
+     * @param summaries the summaries about to be returned to a caller
+     * @return the summaries with pending votes included, in the same order
+     */
+    public List<PerkSummary> overlaySummaries(List<PerkSummary> summaries) {
+        if (!enabled) {
+            return summaries;
+        }
+        List<PerkSummary> overlaid = new ArrayList<>(summaries.size());
+        for (PerkSummary summary : summaries) {
+            overlaid.add(summary.plusVotes(pendingVotes(summary.id())));
+        }
+        return overlaid;
+    }
+
+    /**
+     * Forgets the pending votes of a deleted perk.
+     *
+     * @param perkId the ID of the deleted perk
+     */
+    public void discard(long perkId) {
+        pending.remove(perkId);
+    }
+
+    /**
+     * Flushes on the configured interval.
+     */
+    @Scheduled(fixedDelayString = "${perk.votes.write-behind.flush-interval-ms:250}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all pending deltas as one JDBC batch. Skipped if another flush is
+     * already running, since that flush will pick up everything recorded so far.
+     */
+    public void flush() {
+        if (flushLock.tryLock()) {
+            try {
+                flushLocked();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes whatever is still pending before the application context closes.
+     * Waits for a running flush instead of skipping.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        flushRequested.set(false);
+        eventsSinceFlush.set(0);
+        long oldest = oldestPendingNanos.getAndSet(0);
+
+        Map<Long, Long> batch = new HashMap<>();
+        long events;
+        adderLock.writeLock().lock();
+        try {
+            pending.forEach((perkId, adder) -> {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    batch.put(perkId, delta);
+                }
+            });
+            pending.clear();
+            events = pendingEvents.getAndSet(0);
+            inFlight = batch;
+        } finally {
+            adderLock.writeLock().unlock();
+        }
+        if (batch.isEmpty()) {
+            inFlight = Map.of();
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((perkId, delta) -> rows.add(new Object[]{delta, perkId}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_VOTES, rows));
+        } catch (RuntimeException e) {
+            // The transaction rolled back every row, so the whole snapshot goes back to be retried.
+            restore(batch, events);
+            oldestPendingNanos.compareAndSet(0, oldest);
+            log.warn("Failed to flush {} buffered vote deltas, will retry", batch.size(), e);
+            return;
+        }
+        inFlight = Map.of();
+        for (Long perkId : batch.keySet()) {
+            entityManagerFactory.getCache().evict(Perk.class, perkId);
+        }
+
+        lastBatchSize = batch.size();
+        lastFlushLagMillis = oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1_000_000;
+        flushedVotes.addAndGet(events);
+        flushCount.incrementAndGet();
+    }
+
+    /**
+     * Adds the deltas of a failed batch back into the adders and stops counting them as in flight.
+     */
+    private void restore(Map<Long, Long> batch, long events) {
+        adderLock.writeLock().lock();
+        try {
+            batch.forEach((perkId, delta) -> pending.computeIfAbsent(perkId, id -> new LongAdder()).add(delta));
+            pendingEvents.addAndGet(events);
+            inFlight = Map.of();
+        } finally {
+            adderLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of perks written by the most recent flush.
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * @return how long the oldest vote of the most recent flush waited in the buffer, in milliseconds.
+     */
+    public long getLastFlushLagMillis() {
+        return lastFlushLagMillis;
+    }
+
+    /**
+     * @return the number of perks with a buffered delta.
+     */
+    public int getPendingPerks() {
+        int count = 0;
+        for (LongAdder adder : pending.values()) {
+            if (adder.sum() != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of perks the buffer holds an adder for, not counting the batch being written.
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of recorded votes written by all flushes so far.
+     */
+    public long getFlushedVotes() {
+        return flushedVotes.get();
+    }
+
+    /**
+     * @return the number of flushes that wrote at least one delta.
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+}
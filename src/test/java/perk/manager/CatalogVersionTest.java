@@ -0,0 +1,88 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogVersionTest {
+
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
+    private CatalogVersion catalogVersion;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(membershipCatalog.version()).thenReturn(1L);
+        catalogVersion = new CatalogVersion(membershipCatalog);
+    }
+
+    private static MockHttpServletRequest request(String user, String... parameters) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/perks");
+        if (user != null) {
+            request.setUserPrincipal(() -> user);
+        }
+        for (int i = 0; i < parameters.length; i += 2) {
+            request.addParameter(parameters[i], parameters[i + 1]);
+        }
+        return request;
+    }
+
+    @Test
+    void testEtag_SameForSameRequest() {
+        String etag = catalogVersion.etag(request("alice", "sortBy", "votes", "size", "20"));
+
+        assertEquals(etag, catalogVersion.etag(request("alice", "size", "20", "sortBy", "votes")));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    }
+
+    @Test
+    void testEtag_DiffersByParametersAndUser() {
+        String etag = catalogVersion.etag(request("alice", "sortBy", "votes"));
+
+        assertNotEquals(etag, catalogVersion.etag(request("alice", "sortBy", "expiry")));
+        assertNotEquals(etag, catalogVersion.etag(request("bob", "sortBy", "votes")));
+        assertNotEquals(etag, catalogVersion.etag(request(null, "sortBy", "votes")));
+    }
+
+    @Test
+    void testEtag_ChangesWithEitherVersion() {
+        String etag = catalogVersion.etag(request("alice"));
+
+        catalogVersion.bump();
+        String bumped = catalogVersion.etag(request("alice"));
+        assertNotEquals(etag, bumped);
+        assertEquals(1, catalogVersion.current());
+
+        when(membershipCatalog.version()).thenReturn(2L);
+        assertNotEquals(bumped, catalogVersion.etag(request("alice")));
+    }
+
+    @Test
+    void testNotModified_MatchingTagAnswers304() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertFalse(catalogVersion.notModified(new ServletWebRequest(request("alice"), first)));
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertEquals("no-cache", first.getHeader("Cache-Control"));
+
+        MockHttpServletRequest revalidation = request("alice");
+        revalidation.addHeader("If-None-Match", etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertTrue(catalogVersion.notModified(new ServletWebRequest(revalidation, second)));
+        assertEquals(304, second.getStatus());
+
+        catalogVersion.bump();
+        MockHttpServletResponse stale = new MockHttpServletResponse();
+        assertFalse(catalogVersion.notModified(new ServletWebRequest(revalidation, stale)));
+        assertEquals(200, stale.getStatus());
+    }
+}
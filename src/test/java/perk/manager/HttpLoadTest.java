@@ -0,0 +1,166 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a realistic traffic mix against the application on a random port and fails if
+ * an endpoint misses a latency budget in loadtest-budgets.properties.
+ *
+ * Excluded from the normal build; run with {@code mvn test -Ploadtest}. Arrival rates
+ * and durations are system properties, e.g. {@code -Dloadtest.rate.dashboard=50
+ * -Dloadtest.duration=60}. Latency distributions are written to target/loadtest.
+ */
+@Tag("loadtest")
+@ActiveProfiles("synthetic")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtestdb",
+        "perk.synthetic.perks=20000",
+        "perk.synthetic.users=200",
+        "perk.synthetic.votes=20000",
+        "logging.level.perk.manager=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+class HttpLoadTest {
+
+    private static final int SESSIONS = 20;
+    /** Searches typed into the dashboard, one keystroke at a time. */
+    private static final List<String> SEARCHES = List.of("coffee", "hotel stays", "groceries", "flights");
+    private static final Duration KEYSTROKE = Duration.ofMillis(120);
+    private static final int VOTE_STORM = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private static double setting(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static Duration seconds(String name, double defaultValue) {
+        return Duration.ofMillis((long) (setting(name, defaultValue) * 1000));
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + path;
+    }
+
+    private HttpRequest login(String username) {
+        return LoadTestHarness.request(url("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=" + username + "&password=demo123"))
+                .build();
+    }
+
+    private static boolean loggedIn(HttpResponse<?> response) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").orElse("").endsWith("/perks/dashboard");
+    }
+
+    /**
+     * Logs synthetic users in and returns their session cookies.
+     */
+    private List<String> sessions() throws IOException, InterruptedException {
+        List<String> cookies = new ArrayList<>();
+        for (int user = 1; user <= SESSIONS; user++) {
+            HttpResponse<Void> response = client.send(login(SyntheticDataGenerator.USERNAME_PREFIX + user),
+                    HttpResponse.BodyHandlers.discarding());
+            assertTrue(loggedIn(response), "login failed with " + response.statusCode());
+            cookies.add(response.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0]);
+        }
+        return cookies;
+    }
+
+    private List<LoadTestHarness.Load> traffic(List<String> sessions, long hotPerk) {
+        Predicate<HttpResponse<Void>> ok = response -> response.statusCode() == 200;
+        return List.of(
+                LoadTestHarness.Load.steady("dashboard", setting("rate.dashboard", 10), (burst, step) ->
+                        LoadTestHarness.request(url("/perks/dashboard"))
+                                .header("Cookie", sessions.get(burst % sessions.size())).build(), ok),
+                // Each burst is one search typed a keystroke at a time, the way htmx sends it.
+                new LoadTestHarness.Load("search-fragment", setting("rate.search-fragment", 2), 6, KEYSTROKE,
+                        (burst, step) -> {
+                            String search = SEARCHES.get(burst % SEARCHES.size());
+                            String typed = search.substring(0, Math.min(search.length(), step + 1));
+                            return LoadTestHarness.request(url("/perks/search-fragment?keyword=" + typed.replace(" ", "+")))
+                                    .header("Cookie", sessions.get(burst % sessions.size()))
+                                    .header("HX-Request", "true").build();
+                        }, ok),
+                // Each burst is every session voting on the most popular perk at once.
+                new LoadTestHarness.Load("upvote-fragment", setting("rate.upvote-fragment", 0.5), VOTE_STORM,
+                        Duration.ofMillis(2), (burst, step) ->
+                        LoadTestHarness.request(url("/perks/" + hotPerk + "/upvote-fragment"))
+                                .header("Cookie", sessions.get(step % sessions.size()))
+                                .header("HX-Request", "true")
+                                .POST(HttpRequest.BodyPublishers.noBody()).build(), ok),
+                LoadTestHarness.Load.steady("api-perks", setting("rate.api-perks", 10), (burst, step) ->
+                        LoadTestHarness.request(url("/api/perks?size=20"))
+                                .header("Cookie", sessions.get(burst % sessions.size())).build(), ok),
+                LoadTestHarness.Load.steady("login", setting("rate.login", 1), (burst, step) ->
+                        login(SyntheticDataGenerator.USERNAME_PREFIX + (1 + burst % 200)), HttpLoadTest::loggedIn));
+    }
+
+    private static Properties budgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = HttpLoadTest.class.getResourceAsStream("/loadtest-budgets.properties")) {
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    @Test
+    void testTrafficMix_StaysWithinLatencyBudgets() throws Exception {
+        List<String> sessions = sessions();
+        Long hotPerk = jdbcTemplate.queryForObject("select id from perk order by votes desc, id limit 1", Long.class);
+        List<LoadTestHarness.Load> traffic = traffic(sessions, hotPerk);
+        LoadTestHarness harness = new LoadTestHarness(client);
+
+        harness.run(traffic, seconds("warmup", 10));
+        Map<String, LoadTestHarness.Result> results = harness.run(traffic, seconds("duration", 30));
+
+        LoadTestHarness.report(results, System.out);
+        LoadTestHarness.write(results, Path.of("target", "loadtest"));
+        List<String> missed = new ArrayList<>();
+        Properties budgets = budgets();
+        results.forEach((endpoint, result) -> {
+            if (result.errors() > 0) {
+                missed.add(endpoint + " had " + result.errors() + " failed requests");
+            }
+            for (String percentile : List.of("50", "99", "99.9")) {
+                String budget = budgets.getProperty(endpoint + ".p" + percentile);
+                if (budget != null && result.millisAt(Double.parseDouble(percentile)) > Double.parseDouble(budget)) {
+                    missed.add(String.format("%s p%s is %.1f ms, over its %s ms budget", endpoint, percentile,
+                            result.millisAt(Double.parseDouble(percentile)), budget));
+                }
+            }
+        });
+        assertTrue(missed.isEmpty(), String.join("\n", missed));
+    }
+}
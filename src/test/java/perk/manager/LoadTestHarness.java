@@ -0,0 +1,215 @@
+package perk.manager;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Drives open-loop HTTP load and records each endpoint's latencies in an HdrHistogram.
+ *
+ * Every request of a run is scheduled up front at the time it is due, whether or not
+ * earlier requests have completed, the way independent users arrive. Latency is
+ * measured from that intended start rather than from when the request was actually
+ * sent, so a stalled server is charged for the requests queued behind the stall
+ * instead of hiding them (coordinated omission).
+ *
+ * To find the throughput a server sustains at a given concurrency, {@link #saturate}
+ * instead keeps a fixed number of requests in flight, like that many clients each
+ * sending again as soon as they get a response.
+ */
+class LoadTestHarness {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * Builds the request for one step of one burst.
+     */
+    interface RequestFactory {
+        HttpRequest create(int burst, int step);
+    }
+
+    /**
+     * Traffic to one endpoint: bursts arriving at a fixed rate, each a number of requests
+     * the given spacing apart. A burst of one is a plain request rate.
+     *
+     * @param name            the endpoint name results are reported under
+     * @param burstsPerSecond how many bursts start each second
+     * @param burstSize       the number of requests in each burst
+     * @param spacing         the time between the requests of a burst
+     * @param request         builds each request
+     * @param success         whether a response counts as a success
+     */
+    record Load(String name, double burstsPerSecond, int burstSize, Duration spacing, RequestFactory request,
+                Predicate<HttpResponse<Void>> success) {
+
+        static Load steady(String name, double perSecond, RequestFactory request, Predicate<HttpResponse<Void>> success) {
+            return new Load(name, perSecond, 1, Duration.ZERO, request, success);
+        }
+    }
+
+    /**
+     * The outcome of one endpoint's traffic.
+     *
+     * @param latency microseconds from each request's intended start to its last response byte
+     * @param errors  requests that failed, timed out or were not accepted by the success check
+     */
+    record Result(Histogram latency, long errors) {
+
+        double millisAt(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    private final HttpClient client;
+
+    LoadTestHarness(HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Sends the given traffic for the given duration and waits for every response.
+     *
+     * @return each load's result, by name, in the order given
+     */
+    Map<String, Result> run(List<Load> loads, Duration duration) throws InterruptedException {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2);
+        Queue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        Map<String, AtomicLong> errors = new LinkedHashMap<>();
+        long start = System.nanoTime() + START_DELAY_NANOS;
+
+        for (Load load : loads) {
+            Histogram latency = new ConcurrentHistogram(3);
+            AtomicLong failed = new AtomicLong();
+            latencies.put(load.name(), latency);
+            errors.put(load.name(), failed);
+            long bursts = (long) (load.burstsPerSecond() * duration.toNanos() / 1e9);
+            for (int burst = 0; burst < bursts; burst++) {
+                for (int step = 0; step < load.burstSize(); step++) {
+                    long intended = start + (long) (burst * 1e9 / load.burstsPerSecond()) + step * load.spacing().toNanos();
+                    int b = burst;
+                    int s = step;
+                    scheduler.schedule(() -> inFlight.add(send(load, b, s, intended, latency, failed)),
+                            intended - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        for (CompletableFuture<?> request : inFlight) {
+            request.exceptionally(e -> null).join();
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        latencies.forEach((name, latency) -> results.put(name, new Result(latency, errors.get(name).get())));
+        return results;
+    }
+
+    /**
+     * Keeps the given number of requests in flight for the duration, each connection sending its next
+     * request as soon as its previous response arrives, and waits for the last responses.
+     *
+     * @param request builds each request from the connection number and its request count so far
+     * @return the outcome, with latency measured from when each request was sent
+     */
+    Result saturate(int connections, Duration duration, RequestFactory request,
+                    Predicate<HttpResponse<Void>> success) {
+        Histogram latency = new ConcurrentHistogram(3);
+        AtomicLong failed = new AtomicLong();
+        long end = System.nanoTime() + duration.toNanos();
+        List<CompletableFuture<Void>> done = new ArrayList<>(connections);
+        for (int connection = 0; connection < connections; connection++) {
+            CompletableFuture<Void> finished = new CompletableFuture<>();
+            done.add(finished);
+            loop(connection, 0, end, request, success, latency, failed, finished);
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+        return new Result(latency, failed.get());
+    }
+
+    /**
+     * Sends one connection's next request and, once it completes, the one after, until the end time.
+     * Responses complete on the client's executor, so the loop never deepens the stack.
+     */
+    private void loop(int connection, int step, long end, RequestFactory request, Predicate<HttpResponse<Void>> success,
+                      Histogram latency, AtomicLong failed, CompletableFuture<Void> finished) {
+        if (System.nanoTime() >= end) {
+            finished.complete(null);
+            return;
+        }
+        long sent = System.nanoTime();
+        client.sendAsync(request.create(connection, step), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    latency.recordValue(Math.max(0, (System.nanoTime() - sent) / 1000));
+                    if (error != null || !success.test(response)) {
+                        failed.incrementAndGet();
+                    }
+                    loop(connection, step + 1, end, request, success, latency, failed, finished);
+                });
+    }
+
+    private CompletableFuture<?> send(Load load, int burst, int step, long intended, Histogram latency, AtomicLong failed) {
+        HttpRequest request;
+        try {
+            request = load.request().create(burst, step);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            latency.recordValue(Math.max(0, (System.nanoTime() - intended) / 1000));
+            if (error != null || !load.success().test(response)) {
+                failed.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Prints one line per endpoint: requests, errors and latency percentiles in milliseconds.
+     */
+    static void report(Map<String, Result> results, PrintStream out) {
+        out.printf("%-18s %8s %7s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        results.forEach((name, result) -> out.printf("%-18s %8d %7d %9.1f %9.1f %9.1f %9.1f%n", name,
+                result.latency().getTotalCount(), result.errors(), result.millisAt(50), result.millisAt(99),
+                result.millisAt(99.9), result.latency().getMaxValue() / 1000.0));
+    }
+
+    /**
+     * Writes each endpoint's full percentile distribution, in milliseconds, to name.hgrm in the directory,
+     * in the format the HdrHistogram plotter reads.
+     */
+    static void write(Map<String, Result> results, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().latency().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    static HttpRequest.Builder request(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(REQUEST_TIMEOUT);
+    }
+}
@@ -0,0 +1,93 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MembershipCatalogTest {
+
+    @Mock
+    private MembershipTypeRepository membershipTypeRepository;
+
+    private MembershipCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        catalog = new MembershipCatalog(membershipTypeRepository);
+        when(membershipTypeRepository.findAll()).thenReturn(List.of(type(2L, "Costco"), type(1L, "Scene+")));
+    }
+
+    private static MembershipType type(long id, String name) {
+        MembershipType type = new MembershipType(name);
+        type.setId(id);
+        return type;
+    }
+
+    @Test
+    void testLoadsOnceOnFirstUse() {
+        assertEquals(List.of("Scene+", "Costco"), catalog.all().stream().map(MembershipType::getName).toList());
+        catalog.findById(1L);
+        catalog.findByName("costco");
+
+        verify(membershipTypeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testFindByName_IgnoresCase() {
+        assertEquals(2L, catalog.findByName("COSTCO").orElseThrow().getId());
+        assertEquals(1L, catalog.findByName("scene+").orElseThrow().getId());
+        assertTrue(catalog.findByName("Unknown").isEmpty());
+        assertTrue(catalog.findByName(null).isEmpty());
+    }
+
+    @Test
+    void testFindById() {
+        assertEquals("Scene+", catalog.findById(1L).orElseThrow().getName());
+        assertTrue(catalog.findById(99L).isEmpty());
+    }
+
+    @Test
+    void testAdd_PublishesNewVersionWithoutReloading() {
+        long before = catalog.version();
+
+        catalog.add(type(3L, "Aeroplan"));
+
+        assertEquals(before + 1, catalog.version());
+        assertEquals(3, catalog.all().size());
+        assertTrue(catalog.findByName("aeroplan").isPresent());
+        verify(membershipTypeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testRefresh_ReloadsFromDatabase() {
+        long before = catalog.version();
+        when(membershipTypeRepository.findAll()).thenReturn(List.of(type(1L, "Scene+")));
+
+        catalog.refresh();
+
+        assertEquals(before + 1, catalog.version());
+        assertTrue(catalog.findById(2L).isEmpty());
+    }
+
+    @Test
+    void testRefresh_KeepsTypeAddedWhileLoading() {
+        long before = catalog.version();
+        when(membershipTypeRepository.findAll()).thenAnswer(invocation -> {
+            catalog.add(type(3L, "Aeroplan"));
+            return List.of(type(1L, "Scene+"));
+        });
+
+        catalog.refresh();
+
+        assertEquals(before + 2, catalog.version());
+        assertTrue(catalog.findById(3L).isPresent());
+        assertTrue(catalog.findById(2L).isEmpty());
+    }
+}
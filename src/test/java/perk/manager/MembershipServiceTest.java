@@ -18,6 +18,9 @@ class MembershipServiceTest {
     @Mock
     private MembershipTypeRepository membershipTypeRepository;
 
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
     @InjectMocks
     private MembershipService membershipService;
 
@@ -34,34 +37,42 @@ class MembershipServiceTest {
 
     @Test
     void testGetAllMemberships() {
-        when(membershipTypeRepository.findAll()).thenReturn(List.of(membership));
+        when(membershipCatalog.all()).thenReturn(List.of(membership));
 
         List<MembershipType> memberships = membershipService.getAllMemberships();
 
         assertEquals(1, memberships.size());
         assertEquals("PC optimum", memberships.get(0).getName());
-        verify(membershipTypeRepository, times(1)).findAll();
+        verify(membershipCatalog, times(1)).all();
+        verifyNoInteractions(membershipTypeRepository);
     }
 
     @Test
     void testFindById_Found() {
-        when(membershipTypeRepository.findById(1L)).thenReturn(Optional.of(membership));
+        when(membershipCatalog.findById(1L)).thenReturn(Optional.of(membership));
 
         Optional<MembershipType> result = membershipService.findById(1L);
 
         assertTrue(result.isPresent());
         assertEquals(membership, result.get());
-        verify(membershipTypeRepository, times(1)).findById(1L);
+        verify(membershipCatalog, times(1)).findById(1L);
     }
 
     @Test
     void testFindById_NotFound() {
-        when(membershipTypeRepository.findById(999L)).thenReturn(Optional.empty());
+        when(membershipCatalog.findById(999L)).thenReturn(Optional.empty());
 
         Optional<MembershipType> result = membershipService.findById(999L);
 
         assertFalse(result.isPresent());
-        verify(membershipTypeRepository, times(1)).findById(999L);
+        verify(membershipCatalog, times(1)).findById(999L);
+    }
+
+    @Test
+    void testFindByName() {
+        when(membershipCatalog.findByName("pc OPTIMUM")).thenReturn(Optional.of(membership));
+
+        assertEquals(Optional.of(membership), membershipService.findByName("pc OPTIMUM"));
     }
 
     @Test
@@ -76,5 +87,6 @@ class MembershipServiceTest {
         ArgumentCaptor<MembershipType> captor = ArgumentCaptor.forClass(MembershipType.class);
         verify(membershipTypeRepository).save(captor.capture());
         assertEquals("PC optimum", captor.getValue().getName());
+        verify(membershipCatalog).add(membership);
     }
 }
@@ -0,0 +1,72 @@
+package perk.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void testEncodeAndMatches_AtConfiguredCost() {
+        hasher = new PasswordHasher(5, 1, 4);
+
+        String hash = hasher.encode("demo123");
+
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(hasher.matches("demo123", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertTrue(hasher.matches("demo123", new BCryptPasswordEncoder(4).encode("demo123")),
+                "hashes of another cost still match");
+    }
+
+    @Test
+    void testUpgradeEncoding_WhenCostDiffers() {
+        hasher = new PasswordHasher(5, 1, 4);
+
+        assertTrue(hasher.upgradeEncoding(new BCryptPasswordEncoder(4).encode("demo123")));
+        assertTrue(hasher.upgradeEncoding(new BCryptPasswordEncoder(6).encode("demo123")));
+        assertFalse(hasher.upgradeEncoding(hasher.encode("demo123")));
+        assertFalse(hasher.upgradeEncoding("not a bcrypt hash"));
+        assertFalse(hasher.upgradeEncoding(null));
+    }
+
+    @Test
+    void testRun_RefusedOnceQueueIsFull() throws Exception {
+        hasher = new PasswordHasher(4, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> hasher.run(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("queued"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hasher.getQueueDepth() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThrows(PasswordHasher.BusyException.class, () -> hasher.encode("refused"));
+        assertEquals(1, hasher.getRejectedHashes());
+        assertEquals(1, hasher.getQueueDepth());
+        assertFalse(hasher.upgradeEncoding(new BCryptPasswordEncoder(5).encode("demo123")),
+                "no rehash while hashes are waiting");
+
+        release.countDown();
+        assertEquals(true, running.get(5, TimeUnit.SECONDS));
+        assertTrue(hasher.matches("queued", queued.get(5, TimeUnit.SECONDS)));
+    }
+}
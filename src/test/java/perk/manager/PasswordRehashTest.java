@@ -0,0 +1,74 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Logs in with a password stored at another BCrypt cost than the configured one, and
+ * checks that the login rehashes it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:rehashdb",
+        "perk.security.bcrypt-strength=5",
+        "spring.jpa.show-sql=false"
+})
+class PasswordRehashTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private HttpResponse<Void> logIn(String username, String password) throws Exception {
+        return HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString("username=" + username + "&password=" + password))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    private String storedHash(String username) {
+        return jdbcTemplate.queryForObject("select password from users where username = ?", String.class, username);
+    }
+
+    @Test
+    void testLogin_RehashesAtConfiguredCost() throws Exception {
+        if (userService.findByUsername("rehash_tester").isEmpty()) {
+            userService.registerUser("rehash_tester", "demo123");
+        }
+        userService.updatePasswordHash("rehash_tester", new BCryptPasswordEncoder(4).encode("demo123"));
+
+        HttpResponse<Void> response = logIn("rehash_tester", "demo123");
+
+        assertEquals(302, response.statusCode());
+        assertTrue(response.headers().firstValue("Location").orElseThrow().endsWith("/perks/dashboard"));
+        String rehashed = storedHash("rehash_tester");
+        assertTrue(rehashed.startsWith("$2a$05$"), rehashed);
+        assertTrue(new BCryptPasswordEncoder().matches("demo123", rehashed));
+        assertEquals(302, logIn("rehash_tester", "demo123").statusCode(), "the new hash logs in");
+    }
+
+    @Test
+    void testLogin_WrongPasswordStillRedirectsToError() throws Exception {
+        HttpResponse<Void> response = logIn("rehash_tester", "wrong");
+
+        assertEquals(302, response.statusCode());
+        assertTrue(response.headers().firstValue("Location").orElseThrow().endsWith("/login?error"));
+    }
+}
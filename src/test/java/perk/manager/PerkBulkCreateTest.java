@@ -0,0 +1,113 @@
+package perk.manager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that bulk-created perks are inserted in JDBC batches and that a draft the
+ * database rejects does not stop the rest of the request.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkBulkCreateTest {
+
+    private static final int DRAFTS = 500;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PerkLeaderboard leaderboard;
+
+    @Autowired
+    private PerkExpiryIndex expiryIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userId = userService.findByUsername("demo").orElseThrow().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        created.forEach(perkService::deletePerk);
+        created.clear();
+    }
+
+    private PerkDraft draft(String title) {
+        return new PerkDraft(title, "Bulk perk", "Canada", "Scene+", userId, LocalDate.now().plusYears(5));
+    }
+
+    private BulkPerkResult createPerks(List<PerkDraft> drafts) {
+        BulkPerkResult result = perkService.createPerks(drafts);
+        result.items().stream().map(BulkPerkResult.Item::id).filter(id -> id != null).forEach(created::add);
+        return result;
+    }
+
+    @Test
+    void testCreatePerks_InsertsInBatches() {
+        List<PerkDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < DRAFTS; i++) {
+            drafts.add(draft("Bulk perk " + i));
+        }
+        statistics.clear();
+
+        BulkPerkResult result = createPerks(drafts);
+
+        assertEquals(DRAFTS, result.created());
+        assertEquals(0, result.failed());
+        // One statement per batch of 50 inserts and per 50 sequence values, plus the user lookup.
+        assertTrue(statistics.getPrepareStatementCount() < DRAFTS / 10,
+                "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(DRAFTS, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void testCreatePerks_RejectedDraftDoesNotAbortOthers() {
+        BulkPerkResult result = createPerks(List.of(draft("First"), draft("x".repeat(300)), draft("Third")));
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.failed());
+        assertNotNull(result.items().get(0).id());
+        assertTrue(result.items().get(1).error().startsWith("Could not be saved"));
+        assertNotNull(result.items().get(2).id());
+        assertEquals("Third", perkService.findPerk(result.items().get(2).id()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void testCreatePerks_CreatedPerksAreIndexed() {
+        PerkDraft draft = draft("Newly onboarded perk");
+        Long id = createPerks(List.of(draft)).items().get(0).id();
+
+        assertEquals(List.of(id), perkService.searchPerks(null, "onboarded").stream().map(Perk::getId).toList());
+        assertEquals(Optional.of(0), leaderboard.votes(id));
+        assertTrue(expiryIndex.page("Scene+", draft.expiryDate(), null, draft.expiryDate(), PerkService.MAX_PAGE_SIZE)
+                .stream().anyMatch(entry -> entry.id() == id));
+    }
+}
@@ -2,12 +2,14 @@ package perk.manager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.mock.web.MockHttpSession;
+import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -21,13 +23,22 @@ class PerkControllerTest {
     private PerkService perkService;
 
     @Mock
-    private MembershipTypeRepository membershipTypeRepository;
+    private MembershipService membershipService;
 
     @Mock
     private UserService userService;
 
     @Mock
-    private PerkRepository perkRepository;
+    private VoteBroadcaster voteBroadcaster;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private PerkListFragmentCache perkListFragmentCache;
+
+    @Mock
+    private ServletWebRequest webRequest;
 
     @Mock
     private Model model;
@@ -40,7 +51,6 @@ class PerkControllerTest {
     private Perk perk;
     private List<MembershipType> memberships;
     private org.springframework.security.core.userdetails.User principal;
-    private MockHttpSession session;
 
     @BeforeEach
     void setUp() {
@@ -66,17 +76,26 @@ class PerkControllerTest {
                 .password("hashedpassword")
                 .roles("USER")
                 .build();
+    }
+
+    @Test
+    void testPerksPage_NotModified() {
+        when(catalogVersion.notModified(webRequest)).thenReturn(true);
 
-        session = new MockHttpSession();
+        assertNull(perkController.perksPage(principal, webRequest, model));
+        assertNull(perkController.perkSearchFragment(null, null, "votes", null, principal, webRequest, model));
+
+        verifyNoInteractions(perkService, userService, membershipService, model);
     }
 
     @Test
     void testPerksPage_WithAuthenticatedUser() {
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(perkService.getAllPerks()).thenReturn(Arrays.asList(perk));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
-        String viewName = perkController.perksPage(principal, model, session);
+        String viewName = perkController.perksPage(principal, webRequest, model);
 
         assertEquals("dashboard", viewName);
         verify(model).addAttribute("isLoggedIn", true);
@@ -88,10 +107,11 @@ class PerkControllerTest {
 
     @Test
     void testPerksPage_WithoutAuthentication() {
-        when(perkService.getAllPerks()).thenReturn(Arrays.asList(perk));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
-        String viewName = perkController.perksPage(null, model, session);
+        String viewName = perkController.perksPage(null, webRequest, model);
 
         assertEquals("dashboard", viewName);
         verify(model).addAttribute("isLoggedIn", false);
@@ -101,27 +121,39 @@ class PerkControllerTest {
 
     @Test
     void testPerkSearchFragment_AllPerks_SortByVotes() {
-        when(perkService.searchPerks(null, null)).thenReturn(Arrays.asList(perk));
+        when(perkService.findPerkPage(eq(null), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearchFragment(null, null, "votes", principal, model, session);
+        String viewName = perkController.perkSearchFragment(null, null, "votes", null, principal, webRequest, model);
 
         assertEquals("fragments/perk-list :: perk-list", viewName);
-        verify(perkService).searchPerks(null, null);
+        verify(perkService).findPerkPage(eq(null), eq(null), any(), isNull(), eq(PerkService.DEFAULT_PAGE_SIZE));
         verify(model).addAttribute(eq("perks"), any());
         verify(model).addAttribute("sortBy", "votes");
         verify(model).addAttribute(eq("votedPerks"), any(Map.class));
     }
 
+    @Test
+    void testPerkSearchFragment_InvalidCursorIsBadRequest() {
+        when(perkService.findPerkPage(null, null, "votes", "bad", PerkService.DEFAULT_PAGE_SIZE))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> perkController.perkSearchFragment(null, null, "votes", "bad", principal, webRequest, model));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
     @Test
     void testPerkSearchFragment_FilterByMembership() {
-        when(perkService.searchPerks("Aeroplan", null)).thenReturn(Arrays.asList(perk));
+        when(perkService.findPerkPage(eq("Aeroplan"), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearchFragment("Aeroplan", null, "votes", principal, model, session);
+        String viewName = perkController.perkSearchFragment("Aeroplan", null, "votes", null, principal, webRequest, model);
 
         assertEquals("fragments/perk-list :: perk-list", viewName);
-        verify(perkService).searchPerks("Aeroplan", null);
+        verify(perkService).findPerkPage(eq("Aeroplan"), eq(null), any(), isNull(), eq(PerkService.DEFAULT_PAGE_SIZE));
         verify(model).addAttribute("selectedMembership", "Aeroplan");
         verify(model).addAttribute(eq("votedPerks"), any(Map.class));
     }
@@ -132,23 +164,66 @@ class PerkControllerTest {
                 LocalDate.now().plusDays(10), membershipType, user);
         perk2.setId(2L);
 
-        when(perkService.searchPerks(null, null)).thenReturn(Arrays.asList(perk, perk2));
+        when(perkService.findPerkPage(eq(null), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk, perk2), null));
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearchFragment(null, null, "expiry", principal, model, session);
+        String viewName = perkController.perkSearchFragment(null, null, "expiry", null, principal, webRequest, model);
 
         assertEquals("fragments/perk-list :: perk-list", viewName);
         verify(model).addAttribute("sortBy", "expiry");
         verify(model).addAttribute(eq("votedPerks"), any(Map.class));
     }
 
+    @Test
+    void testPerkSearchFragment_FromRenderedListCache() {
+        PerkListFragmentCache.Fragment list = new PerkListFragmentCache.Fragment(new byte[0], List.of(1L));
+        when(perkListFragmentCache.isEnabled()).thenReturn(true);
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkListFragmentCache.get(eq("Aeroplan"), eq("travel"), eq("votes"), eq(webRequest), any())).thenReturn(list);
+        when(perkService.findUserVotesOn(1L, List.of(1L))).thenReturn(Map.of(1L, true));
+        when(perkListFragmentCache.withVotes(list, Map.of(1L, true), webRequest)).thenReturn("<div>list</div>");
+
+        String viewName = perkController.perkSearchFragment("Aeroplan", "travel", "votes", null, principal, webRequest, model);
+
+        assertEquals("fragments/perk-list :: rendered-perk-list", viewName);
+        verify(model).addAttribute("perkListHtml", "<div>list</div>");
+        verify(perkService, never()).findPerkPage(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testPerkSearchFragment_NextPageNotCached() {
+        when(perkListFragmentCache.isEnabled()).thenReturn(true);
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkService.findPerkPage(null, null, "votes", "cursor-1", PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
+
+        String viewName = perkController.perkSearchFragment(null, null, "votes", "cursor-1", principal, webRequest, model);
+
+        assertEquals("fragments/perk-list :: perk-page", viewName);
+        verify(perkListFragmentCache, never()).get(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testPerkSearchFragment_NextPage() {
+        when(perkService.findPerkPage(null, null, "votes", "cursor-1", PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), "cursor-2"));
+
+        String viewName = perkController.perkSearchFragment(null, null, "votes", "cursor-1", principal, webRequest, model);
+
+        assertEquals("fragments/perk-list :: perk-page", viewName);
+        verify(model).addAttribute("perks", Arrays.asList(perk));
+        verify(model).addAttribute("nextCursor", "cursor-2");
+    }
+
     @Test
     void testPerkSearch_FullPage() {
-        when(perkService.searchPerks(null, null)).thenReturn(Arrays.asList(perk));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(perkService.findPerkPage(eq(null), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearch(null, null, "votes", principal, model, session);
+        String viewName = perkController.perkSearch(null, null, "votes", principal, model);
 
         assertEquals("dashboard", viewName);
         verify(model).addAttribute(eq("perks"), any());
@@ -158,7 +233,7 @@ class PerkControllerTest {
 
     @Test
     void testNewPerkForm_Authenticated() {
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
         String viewName = perkController.newPerkForm(principal, model);
 
@@ -171,7 +246,7 @@ class PerkControllerTest {
         String viewName = perkController.newPerkForm(null, model);
 
         assertEquals("redirect:/login", viewName);
-        verify(membershipTypeRepository, never()).findAll();
+        verify(membershipService, never()).getAllMemberships();
     }
 
     @Test
@@ -217,7 +292,7 @@ class PerkControllerTest {
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(perkService.createPerk(any(), any(), any(), any(), any(), any()))
                 .thenThrow(new RuntimeException("Failed to create"));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
         String viewName = perkController.createPerk(
                 "Test Perk", "Description", "Canada", "Aeroplan",
@@ -243,7 +318,7 @@ class PerkControllerTest {
 
     @Test
     void testCreatePerkFragment_NotAuthenticated() {
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
         String viewName = perkController.createPerkFragment(
                 "Test Perk", "Description", "Canada", "Aeroplan",
@@ -256,123 +331,102 @@ class PerkControllerTest {
 
     @Test
     void testUpvotePerkFragment() {
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
-        doNothing().when(perkService).vote(1L, true);
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkService.castVote(1L, 1L, true)).thenReturn(Optional.of(true));
+        when(perkService.findPerk(1L)).thenReturn(Optional.of(perk));
 
-        String viewName = perkController.upvotePerkFragment(1L, session, model);
+        String viewName = perkController.upvotePerkFragment(1L, principal, model);
 
         assertEquals("fragments/perk-list :: vote-section", viewName);
-        verify(perkService).vote(1L, true);
+        verify(perkService).castVote(1L, 1L, true);
         verify(model).addAttribute("perk", perk);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
-
-        Map<Long, Boolean> votedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(votedPerks);
-        assertTrue(votedPerks.containsKey(1L));
-        assertTrue(votedPerks.get(1L));
+        verify(model).addAttribute("votedPerks", Map.of(1L, true));
     }
 
     @Test
     void testDownvotePerkFragment() {
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
-        doNothing().when(perkService).vote(1L, false);
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkService.castVote(1L, 1L, false)).thenReturn(Optional.of(false));
+        when(perkService.findPerk(1L)).thenReturn(Optional.of(perk));
 
-        String viewName = perkController.downvotePerkFragment(1L, session, model);
+        String viewName = perkController.downvotePerkFragment(1L, principal, model);
 
         assertEquals("fragments/perk-list :: vote-section", viewName);
-        verify(perkService).vote(1L, false);
+        verify(perkService).castVote(1L, 1L, false);
         verify(model).addAttribute("perk", perk);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
-
-        Map<Long, Boolean> votedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(votedPerks);
-        assertTrue(votedPerks.containsKey(1L));
-        assertFalse(votedPerks.get(1L));
+        verify(model).addAttribute("votedPerks", Map.of(1L, false));
     }
 
     @Test
     void testUpvotePerkFragment_PerkNotFound() {
-        when(perkRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkService.castVote(1L, 999L, true)).thenReturn(Optional.empty());
+        when(perkService.findPerk(999L)).thenReturn(Optional.empty());
 
-        String viewName = perkController.upvotePerkFragment(999L, session, model);
+        String viewName = perkController.upvotePerkFragment(999L, principal, model);
 
         assertEquals("fragments/perk-list :: vote-section", viewName);
         verify(model, never()).addAttribute(eq("perk"), any());
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
+        verify(model).addAttribute("votedPerks", Map.of());
     }
 
     @Test
-    void testUpvotePerk() {
-        doNothing().when(perkService).vote(1L, true);
+    void testUpvotePerkFragment_NotAuthenticated() {
+        when(perkService.findPerk(1L)).thenReturn(Optional.of(perk));
 
-        String viewName = perkController.upvotePerk(1L, session);
+        String viewName = perkController.upvotePerkFragment(1L, null, model);
 
-        assertEquals("redirect:/perks/dashboard", viewName);
-        verify(perkService).vote(1L, true);
-
-        Map<Long, Boolean> votedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(votedPerks);
-        assertTrue(votedPerks.containsKey(1L));
-        assertTrue(votedPerks.get(1L));
+        assertEquals("fragments/perk-list :: vote-section", viewName);
+        verify(perkService, never()).castVote(anyLong(), anyLong(), anyBoolean());
+        verify(model).addAttribute("perk", perk);
     }
 
     @Test
-    void testDownvotePerk() {
-        doNothing().when(perkService).vote(1L, false);
+    void testUpvotePerk() {
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.downvotePerk(1L, session);
+        String viewName = perkController.upvotePerk(1L, principal);
 
         assertEquals("redirect:/perks/dashboard", viewName);
-        verify(perkService).vote(1L, false);
-
-        Map<Long, Boolean> votedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(votedPerks);
-        assertTrue(votedPerks.containsKey(1L));
-        assertFalse(votedPerks.get(1L));
+        verify(perkService).castVote(1L, 1L, true);
     }
 
     @Test
-    void testUpvotePerkFragment_AlreadyUpvoted() {
-        HashMap<Long, Boolean> votedPerks = new HashMap<>();
-        votedPerks.put(1L, true);
-        session.setAttribute("votedPerks", votedPerks);
-
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
-
-        String viewName = perkController.upvotePerkFragment(1L, session, model);
+    void testDownvotePerk() {
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        verify(perkService).vote(1L, false);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
+        String viewName = perkController.downvotePerk(1L, principal);
 
-        Map<Long, Boolean> updatedVotedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(updatedVotedPerks);
-        assertFalse(updatedVotedPerks.containsKey(1L));
+        assertEquals("redirect:/perks/dashboard", viewName);
+        verify(perkService).castVote(1L, 1L, false);
     }
 
     @Test
-    void testDownvotePerkFragment_AlreadyDownvoted() {
-        HashMap<Long, Boolean> votedPerks = new HashMap<>();
-        votedPerks.put(1L, false);
-        session.setAttribute("votedPerks", votedPerks);
+    void testUpvotePerk_NotAuthenticated() {
+        String viewName = perkController.upvotePerk(1L, null);
 
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
+        assertEquals("redirect:/login", viewName);
+        verify(perkService, never()).castVote(anyLong(), anyLong(), anyBoolean());
+    }
 
-        String viewName = perkController.downvotePerkFragment(1L, session, model);
+    @Test
+    void testUpvotePerkFragment_AlreadyUpvoted() {
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(perkService.castVote(1L, 1L, true)).thenReturn(Optional.empty());
+        when(perkService.findPerk(1L)).thenReturn(Optional.of(perk));
 
-        verify(perkService).vote(1L, true);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
+        perkController.upvotePerkFragment(1L, principal, model);
 
-        Map<Long, Boolean> updatedVotedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(updatedVotedPerks);
-        assertFalse(updatedVotedPerks.containsKey(1L));
+        verify(model).addAttribute("votedPerks", Map.of());
     }
 
     @Test
     void testPerkSearchFragment_NoResults() {
-        when(perkService.searchPerks("NonExistent", null)).thenReturn(Collections.emptyList());
+        when(perkService.findPerkPage(eq("NonExistent"), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Collections.emptyList(), null));
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearchFragment("NonExistent", null, "votes", principal, model, session);
+        String viewName = perkController.perkSearchFragment("NonExistent", null, "votes", null, principal, webRequest, model);
 
         assertEquals("fragments/perk-list :: perk-list", viewName);
         verify(model).addAttribute("perks", Collections.emptyList());
@@ -381,93 +435,49 @@ class PerkControllerTest {
 
     @Test
     void testPerkSearchFragment_FilterByMembershipAndKeyword() {
-        when(perkService.searchPerks("Aeroplan", "travel")).thenReturn(Arrays.asList(perk));
+        when(perkService.findPerkPage(eq("Aeroplan"), eq("travel"), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
 
-        String viewName = perkController.perkSearchFragment("Aeroplan", "travel", "votes", principal, model, session);
+        String viewName = perkController.perkSearchFragment("Aeroplan", "travel", "votes", null, principal, webRequest, model);
 
-        verify(perkService).searchPerks("Aeroplan", "travel");
+        verify(perkService).findPerkPage(eq("Aeroplan"), eq("travel"), any(), isNull(), eq(PerkService.DEFAULT_PAGE_SIZE));
         verify(model).addAttribute("selectedMembership", "Aeroplan");
         verify(model).addAttribute("keyword", "travel");
         verify(model).addAttribute(eq("votedPerks"), any(Map.class));
     }
 
     @Test
-    void testVotedPerks_InitializedInSession() {
-        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(perkService.getAllPerks()).thenReturn(Arrays.asList(perk));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
-
-        String viewName = perkController.perksPage(principal, model, session);
-
-        assertEquals("dashboard", viewName);
-
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
-
-
-        verify(model).addAttribute("isLoggedIn", true);
-        verify(model).addAttribute("currentUser", user);
-        verify(model).addAttribute("perks", Arrays.asList(perk));
-        verify(model).addAttribute("memberships", memberships);
-    }
-    @Test
-    void testVotedPerks_PersistsAcrossCalls() {
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
-        ArgumentCaptor<Map<Long, Boolean>> votedPerksCaptor = ArgumentCaptor.forClass(Map.class);
-
-        perkController.upvotePerkFragment(1L, session, model);
-
-        verify(model, atLeastOnce()).addAttribute(eq("votedPerks"), votedPerksCaptor.capture());
-
-        reset(model);
-
+    void testVotedPerks_LoadedForPageOnly() {
         when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(perkService.getAllPerks()).thenReturn(Arrays.asList(perk));
-        when(membershipTypeRepository.findAll()).thenReturn(memberships);
+        when(perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
+        when(perkService.findUserVotes(1L, Arrays.asList(perk))).thenReturn(Map.of(1L, true));
+        when(membershipService.getAllMemberships()).thenReturn(memberships);
 
-        String viewName = perkController.perksPage(principal, model, session);
+        String viewName = perkController.perksPage(principal, webRequest, model);
 
         assertEquals("dashboard", viewName);
-
-        verify(model).addAttribute(eq("votedPerks"), argThat((Map<Long, Boolean> map) ->
-                map.containsKey(1L) && map.get(1L) == true));
+        verify(perkService).findUserVotes(1L, Arrays.asList(perk));
+        verify(model).addAttribute("votedPerks", Map.of(1L, true));
     }
 
     @Test
-    void testUpvotePerkFragment_SwitchFromDownvote() {
-        HashMap<Long, Boolean> votedPerks = new HashMap<>();
-        votedPerks.put(1L, false);
-        session.setAttribute("votedPerks", votedPerks);
-
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
+    void testVotedPerks_EmptyWhenAnonymous() {
+        when(perkService.findPerkPage(eq(null), eq(null), any(), any(), anyInt()))
+                .thenReturn(new CursorPage<>(Arrays.asList(perk), null));
 
-        String viewName = perkController.upvotePerkFragment(1L, session, model);
+        perkController.perkSearchFragment(null, null, "votes", null, null, webRequest, model);
 
-        verify(perkService, times(2)).vote(1L, true);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
-
-        Map<Long, Boolean> updatedVotedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(updatedVotedPerks);
-        assertTrue(updatedVotedPerks.containsKey(1L));
-        assertTrue(updatedVotedPerks.get(1L));
+        verify(perkService, never()).findUserVotes(any(), any());
+        verify(model).addAttribute("votedPerks", Map.of());
     }
 
     @Test
-    void testDownvotePerkFragment_SwitchFromUpvote() {
-        HashMap<Long, Boolean> votedPerks = new HashMap<>();
-        votedPerks.put(1L, true);
-        session.setAttribute("votedPerks", votedPerks);
-
-        when(perkRepository.findById(1L)).thenReturn(Optional.of(perk));
-
-        String viewName = perkController.downvotePerkFragment(1L, session, model);
-
-        verify(perkService, times(2)).vote(1L, false);
-        verify(model).addAttribute(eq("votedPerks"), any(Map.class));
+    void testVoteStream_SubscribesToBroadcaster() {
+        SseEmitter emitter = new SseEmitter();
+        when(voteBroadcaster.subscribe()).thenReturn(emitter);
 
-        Map<Long, Boolean> updatedVotedPerks = (Map<Long, Boolean>) session.getAttribute("votedPerks");
-        assertNotNull(updatedVotedPerks);
-        assertTrue(updatedVotedPerks.containsKey(1L));
-        assertFalse(updatedVotedPerks.get(1L));
+        assertSame(emitter, perkController.voteStream());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkExpiryIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 6, 15);
+
+    private MembershipType scene;
+    private MembershipType costco;
+    private PerkExpiryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        scene = new MembershipType("Scene+");
+        scene.setId(1L);
+        costco = new MembershipType("Costco");
+        costco.setId(2L);
+        index = new PerkExpiryIndex();
+        index.rebuild(List.of(perk(1L, scene, 10), perk(2L, scene, 1), perk(3L, costco, 1),
+                perk(4L, scene, 0), perk(5L, costco, 30)));
+    }
+
+    private static Perk perk(long id, MembershipType membership, int daysLeft) {
+        Perk perk = new Perk("Perk " + id, "Description", "Canada", TODAY.plusDays(daysLeft), membership, null);
+        perk.setId(id);
+        return perk;
+    }
+
+    private List<Long> ids(String membership, LocalDate from, PerkCursor after, LocalDate through, int limit) {
+        return index.page(membership, from, after, through, limit).stream().map(PerkExpiryIndex.Entry::id).toList();
+    }
+
+    @Test
+    void testPage_OrdersByExpiryThenId() {
+        assertEquals(List.of(4L, 2L, 3L, 1L, 5L), ids(null, TODAY, null, null, 10));
+        assertEquals(List.of(4L, 2L, 1L), ids("scene+", TODAY, null, null, 10));
+        assertEquals(List.of(4L, 2L), ids(null, TODAY, null, null, 2));
+        assertTrue(ids("Unknown", TODAY, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testEntry_LooksUpPositionById() {
+        assertEquals(new PerkExpiryIndex.Entry(TODAY.plusDays(30), 5L), index.entry(5L).orElseThrow());
+
+        index.remove(5L);
+        assertTrue(index.entry(5L).isEmpty());
+    }
+
+    @Test
+    void testPage_StopsAtHorizon() {
+        assertEquals(List.of(4L), ids(null, TODAY, null, TODAY, 10));
+        assertEquals(List.of(4L, 2L, 3L, 1L), ids(null, TODAY, null, TODAY.plusDays(10), 10));
+    }
+
+    @Test
+    void testPage_SeeksPastCursor() {
+        PerkCursor after = index.page(null, TODAY, null, null, 2).get(1).cursor();
+
+        assertEquals(new PerkCursor(PerkCursor.Sort.EXPIRY, TODAY.plusDays(1).toEpochDay(), 2L), after);
+        assertEquals(List.of(3L, 1L, 5L), ids(null, TODAY, after, null, 10));
+        assertEquals(List.of(3L), ids("Costco", TODAY, after, TODAY.plusDays(7), 10));
+    }
+
+    @Test
+    void testPage_SkipsDaysBeforeFrom() {
+        PerkCursor stale = new PerkCursor(PerkCursor.Sort.EXPIRY, TODAY.minusDays(3).toEpochDay(), 9L);
+
+        assertEquals(List.of(2L, 3L, 1L, 5L), ids(null, TODAY.plusDays(1), null, null, 10));
+        assertEquals(List.of(2L, 3L, 1L, 5L), ids(null, TODAY.plusDays(1), stale, null, 10));
+    }
+
+    @Test
+    void testExpireBefore_RemovesOnlyExpiredPerks() {
+        assertTrue(index.expireBefore(TODAY).isEmpty());
+
+        assertEquals(List.of(4L, 2L, 3L), index.expireBefore(TODAY.plusDays(2)));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1L, 5L), ids(null, TODAY, null, null, 10));
+        assertEquals(List.of(1L), ids("Scene+", TODAY, null, null, 10));
+    }
+
+    @Test
+    void testAddAndRemove() {
+        Perk undated = perk(6L, scene, 0);
+        undated.setExpiryDate(null);
+        index.add(undated);
+        index.add(perk(7L, costco, 2));
+        index.remove(3L);
+        index.remove(3L);
+
+        assertEquals(List.of(7L, 5L), ids("Costco", TODAY, null, null, 10));
+        assertEquals(5, index.size());
+    }
+}
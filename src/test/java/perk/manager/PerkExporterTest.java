@@ -0,0 +1,96 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the NDJSON catalog export against the seeded database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkExporterTest {
+
+    @Autowired
+    private PerkExporter perkExporter;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<JsonNode> export(String membershipType, Instant modifiedSince) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = perkExporter.export(membershipType, modifiedSince, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.isEmpty() || body.endsWith("\n"));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        assertEquals(written, lines.size());
+        return lines;
+    }
+
+    @Test
+    void testExport_WritesEveryPerkInIdOrder() throws IOException {
+        List<JsonNode> perks = export(null, null);
+
+        assertEquals(jdbcTemplate.queryForObject("select count(*) from perk", Long.class), perks.size());
+        for (int i = 1; i < perks.size(); i++) {
+            assertTrue(perks.get(i - 1).get("id").asLong() < perks.get(i).get("id").asLong());
+        }
+        JsonNode first = perks.get(0);
+        assertEquals("demo", first.get("createdBy").asText());
+        assertFalse(first.get("expiryDate").asText().isEmpty());
+        assertNotNull(Instant.parse(first.get("lastModified").asText()));
+    }
+
+    @Test
+    void testExport_FiltersByMembership() throws IOException {
+        List<JsonNode> perks = export("aeroplan", null);
+
+        assertFalse(perks.isEmpty());
+        assertTrue(perks.stream().allMatch(perk -> perk.get("membershipType").asText().equals("Aeroplan")));
+        assertTrue(perks.stream().anyMatch(perk -> perk.get("title").asText().equals("Free Domestic Flight")));
+        assertTrue(export("Unknown", null).isEmpty());
+    }
+
+    @Test
+    void testExport_ModifiedSinceIncludesVotedPerk() throws IOException {
+        Long perkId = export(null, null).get(0).get("id").asLong();
+        Instant since = Instant.now().minusMillis(1);
+        assertTrue(export(null, since.plusSeconds(60)).isEmpty());
+
+        perkService.vote(perkId, true);
+        try {
+            List<JsonNode> changed = export(null, since);
+
+            assertEquals(List.of(perkId), changed.stream().map(perk -> perk.get("id").asLong()).toList());
+        } finally {
+            perkService.vote(perkId, false);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package perk.manager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkFeedReaderTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 6, 15);
+
+    @TempDir
+    Path directory;
+
+    private final List<String> accepted = new ArrayList<>();
+    private final List<String> rejected = new ArrayList<>();
+    private final List<PerkDraft> drafts = new ArrayList<>();
+    private final List<Long> progress = new ArrayList<>();
+
+    private final PerkFeedReader.Sink sink = new PerkFeedReader.Sink() {
+        @Override
+        public void accept(long line, PerkDraft draft) {
+            accepted.add(line + ":" + draft.title());
+            drafts.add(draft);
+        }
+
+        @Override
+        public void reject(long line, String reason) {
+            rejected.add(line + ":" + reason);
+        }
+    };
+
+    private void read(PerkFeedReader.Format format, int segmentBytes, String content) throws IOException {
+        Path file = directory.resolve("feed");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        MembershipType scene = new MembershipType("Scene+");
+        MembershipType costco = new MembershipType("Costco");
+        new PerkFeedReader(format, segmentBytes, new JsonFactory(), List.of(scene, costco), 7L, TODAY)
+                .read(file, sink, progress::add);
+    }
+
+    @Test
+    void testCsv_ParsesQuotedFieldsInHeaderOrder() throws IOException {
+        read(PerkFeedReader.Format.CSV, 1 << 16, "\uFEFFexpiry_date,Title,membershipType,region,description\r\n" +
+                "2030-07-01,Movie night,scene+,Canada,\"Two tickets, one price\"\r\n" +
+                "2030-08-01,\"The \"\"big\"\" sale\",COSTCO,,\"Line one\nline two\"\r\n");
+
+        assertEquals(List.of("2:Movie night", "3:The \"big\" sale"), accepted);
+        assertEquals(new PerkDraft("Movie night", "Two tickets, one price", "Canada", "Scene+", 7L,
+                LocalDate.of(2030, 7, 1)), drafts.get(0));
+        assertEquals("Line one\nline two", drafts.get(1).description());
+        assertEquals("Costco", drafts.get(1).membershipType());
+        assertEquals("", drafts.get(1).region());
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    void testCsv_RejectsInvalidRowsWithTheirLine() throws IOException {
+        read(PerkFeedReader.Format.CSV, 1 << 16, "title,membershipType,expiryDate\n" +
+                "Good,Scene+,2030-07-01\n" +
+                ",Scene+,2030-07-01\n" +
+                "No date,Scene+,\n" +
+                "Bad date,Scene+,2030-02-30\n" +
+                "Not a date,Scene+,next week\n" +
+                "\n" +
+                "Unknown,Nope,2030-07-01\n" +
+                "Past,Scene+,2030-06-15\n" +
+                "Short row\n" +
+                "Also good,Costco,2031-01-01");
+
+        assertEquals(List.of("2:Good", "11:Also good"), accepted);
+        assertEquals(List.of("3:Title is required", "4:Expiry date is required", "5:Invalid expiry date",
+                "6:Invalid expiry date", "8:Membership Type not found", "9:Expiry date must be a future date",
+                "10:Expiry date is required"), rejected);
+    }
+
+    @Test
+    void testCsv_RecordsSpanningSegmentsAreReadOnce() throws IOException {
+        StringBuilder csv = new StringBuilder("title,description,membershipType,expiryDate\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("Perk ").append(i).append(",\"Multi\nline ").append(i).append("\",Scene+,2030-07-01\n");
+        }
+
+        read(PerkFeedReader.Format.CSV, 100, csv.toString());
+
+        assertEquals(200, accepted.size());
+        assertEquals("2:Perk 0", accepted.get(0));
+        assertEquals("400:Perk 199", accepted.get(199));
+        assertEquals("Multi\nline 199", drafts.get(199).description());
+        assertEquals((long) csv.toString().getBytes(StandardCharsets.UTF_8).length, progress.get(progress.size() - 1));
+        assertTrue(progress.size() > 200);
+    }
+
+    @Test
+    void testCsv_MissingHeaderColumnsFails() {
+        IOException e = assertThrows(IOException.class,
+                () -> read(PerkFeedReader.Format.CSV, 1 << 16, "name,expiryDate\nPerk,2030-07-01\n"));
+
+        assertTrue(e.getMessage().contains("header"));
+    }
+
+    @Test
+    void testRecordLongerThanSegmentFails() {
+        IOException e = assertThrows(IOException.class, () -> read(PerkFeedReader.Format.NDJSON, 32,
+                "{\"title\":\"A title that is far too long for the segment\"}\n{}\n"));
+
+        assertTrue(e.getMessage().contains("line 1"));
+    }
+
+    @Test
+    void testNdjson_ParsesObjectsAndRejectsBadLines() throws IOException {
+        read(PerkFeedReader.Format.NDJSON, 1 << 16, "{\"title\":\"Movie night\",\"description\":\"Two tickets\"," +
+                "\"region\":\"Canada\",\"membershipType\":\"Scene+\",\"expiryDate\":\"2030-07-01\",\"extra\":{\"a\":[1]}}\n" +
+                "{\"title\":\"Broken\",\n" +
+                "[1,2]\n" +
+                "{\"title\":\"Old\",\"membershipType\":\"costco\",\"expiryDate\":\"2020-01-01\"}\n" +
+                "{\"title\":\"Wholesale\",\"membershipType\":\"costco\",\"expiryDate\":\"2030-12-31\"}");
+
+        assertEquals(List.of("1:Movie night", "5:Wholesale"), accepted);
+        assertEquals(new PerkDraft("Movie night", "Two tickets", "Canada", "Scene+", 7L, LocalDate.of(2030, 7, 1)),
+                drafts.get(0));
+        assertEquals("Costco", drafts.get(1).membershipType());
+        assertEquals(3, rejected.size());
+        assertTrue(rejected.get(0).startsWith("2:Malformed JSON"));
+        assertEquals("3:Record is not a JSON object", rejected.get(1));
+        assertEquals("4:Expiry date must be a future date", rejected.get(2));
+    }
+
+    @Test
+    void testFormat_FromNameOrExtension() {
+        assertEquals(PerkFeedReader.Format.CSV, PerkFeedReader.Format.from(null, Path.of("feed.CSV")));
+        assertEquals(PerkFeedReader.Format.NDJSON, PerkFeedReader.Format.from(null, Path.of("feed.jsonl")));
+        assertEquals(PerkFeedReader.Format.NDJSON, PerkFeedReader.Format.from("ndjson", Path.of("feed.txt")));
+        assertThrows(IllegalArgumentException.class, () -> PerkFeedReader.Format.from(null, Path.of("feed.txt")));
+    }
+}
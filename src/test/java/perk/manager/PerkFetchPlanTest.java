@@ -0,0 +1,96 @@
+package perk.manager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each page's queries fetch everything its template reads, with open-in-view
+ * disabled, in a fixed number of SQL statements when the second-level cache is cold.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkFetchPlanTest {
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMembershipService userMembershipService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // Measure the cold fetch plan, not whatever an earlier test left in the second-level cache.
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private static void renderCards(List<Perk> perks) {
+        for (Perk perk : perks) {
+            assertNotNull(perk.getMembershipType().getName());
+            assertNotNull(perk.getCreatedBy().getUsername());
+        }
+    }
+
+    @Test
+    void testDashboardPage_OneStatement() {
+        CursorPage<Perk> page = perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE);
+
+        renderCards(page.items());
+        assertFalse(page.items().isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testKeywordPage_OneStatement() {
+        CursorPage<Perk> page = perkService.findPerkPage(null, "movie", "relevance", null, PerkService.DEFAULT_PAGE_SIZE);
+
+        renderCards(page.items());
+        assertFalse(page.items().isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testVoteSection_OneStatement() {
+        Long perkId = perkService.findPerkPage(null, null, "votes", null, 1).items().get(0).getId();
+        statistics.clear();
+
+        Perk perk = perkService.findPerk(perkId).orElseThrow();
+
+        assertEquals("demo", perk.getCreatedBy().getUsername());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testProfile_TwoStatements() {
+        User user = userService.findProfile("demo").orElseThrow();
+        List<MembershipType> memberships = userMembershipService.getMembershipsForUser(user);
+
+        assertFalse(user.getPerks().isEmpty());
+        for (Perk perk : user.getPerks()) {
+            assertNotNull(perk.getMembershipType().getName());
+        }
+        assertNotNull(memberships);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,86 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class PerkImportRestControllerTest {
+
+    @Mock
+    private PerkImporter perkImporter;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private PerkImportRestController perkImportRestController;
+
+    private org.springframework.security.core.userdetails.User principal;
+    private PerkImport perkImport;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        User user = new User();
+        user.setId(3L);
+        user.setUsername("demo");
+        when(userService.findByUsername("demo")).thenReturn(Optional.of(user));
+        principal = new org.springframework.security.core.userdetails.User("demo", "secret", List.of());
+        perkImport = new PerkImport(1L, "feed.csv", PerkFeedReader.Format.CSV, 100);
+    }
+
+    @Test
+    void testStartImport_AcceptedAsCurrentUser() {
+        when(perkImporter.start("feed.csv", null, 3L)).thenReturn(perkImport);
+
+        ResponseEntity<?> response = perkImportRestController.startImport("feed.csv", null, principal);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(PerkImport.State.QUEUED, ((PerkImport.Status) response.getBody()).state());
+        verify(perkImporter).start("feed.csv", null, 3L);
+    }
+
+    @Test
+    void testStartImport_InvalidFile() {
+        when(perkImporter.start("../secret.csv", null, 3L))
+                .thenThrow(new IllegalArgumentException("File must be inside the import directory"));
+
+        ResponseEntity<?> response = perkImportRestController.startImport("../secret.csv", null, principal);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("File must be inside the import directory", ((Map<?, ?>) response.getBody()).get("error"));
+    }
+
+    @Test
+    void testGetImport_StatusAndRejections() {
+        perkImport.reject(4, "Invalid expiry date");
+        when(perkImporter.find(1L)).thenReturn(Optional.of(perkImport));
+
+        ResponseEntity<PerkImport.Status> status = perkImportRestController.getImport(1L);
+        ResponseEntity<List<PerkImport.Rejection>> rejections = perkImportRestController.getRejections(1L);
+
+        assertEquals(HttpStatus.OK, status.getStatusCode());
+        assertEquals(1, status.getBody().rejected());
+        assertEquals(List.of(new PerkImport.Rejection(4, "Invalid expiry date")), rejections.getBody());
+    }
+
+    @Test
+    void testGetImport_NotFound() {
+        when(perkImporter.find(9L)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, perkImportRestController.getImport(9L).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, perkImportRestController.getRejections(9L).getStatusCode());
+    }
+}
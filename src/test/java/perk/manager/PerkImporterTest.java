@@ -0,0 +1,135 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkImporterTest {
+
+    @Mock
+    private PerkService perkService;
+
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
+    @TempDir
+    Path root;
+
+    private Path directory;
+    private PerkImporter importer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        directory = Files.createDirectory(root.resolve("imports"));
+        when(membershipCatalog.all()).thenReturn(List.of(new MembershipType("Scene+")));
+        AtomicLong nextId = new AtomicLong(1);
+        when(perkService.createPerks(anyList())).thenAnswer(invocation -> {
+            List<PerkDraft> drafts = invocation.getArgument(0);
+            List<BulkPerkResult.Item> items = new ArrayList<>();
+            for (int i = 0; i < drafts.size(); i++) {
+                items.add(drafts.get(i).title().equals("Rejected by database")
+                        ? BulkPerkResult.Item.failed(i, "Could not be saved: too long")
+                        : BulkPerkResult.Item.created(i, nextId.getAndIncrement()));
+            }
+            return BulkPerkResult.of(items);
+        });
+        importer = new PerkImporter(perkService, membershipCatalog, new ObjectMapper(), directory.toString(), 2, 1, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importer.shutdown();
+    }
+
+    private PerkImport.Status awaitFinished(PerkImport perkImport) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            PerkImport.Status status = perkImport.status();
+            if (status.state() == PerkImport.State.COMPLETED || status.state() == PerkImport.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("import did not finish");
+        return null;
+    }
+
+    @Test
+    void testImport_SavesChunksAndReportsRejections() throws Exception {
+        String expiry = LocalDate.now().plusDays(30).toString();
+        StringBuilder csv = new StringBuilder("title,membershipType,expiryDate\n");
+        int rows = PerkService.BULK_CHUNK_SIZE * 2 + 10;
+        for (int i = 0; i < rows; i++) {
+            String title = i == 5 ? "Rejected by database" : "Perk " + i;
+            String membership = i == 7 ? "Unknown" : "Scene+";
+            csv.append(title).append(',').append(membership).append(',').append(expiry).append('\n');
+        }
+        Files.writeString(directory.resolve("feed.csv"), csv);
+
+        PerkImport.Status status = awaitFinished(importer.start("feed.csv", null, 3L));
+
+        assertEquals(PerkImport.State.COMPLETED, status.state());
+        assertEquals(PerkFeedReader.Format.CSV, status.format());
+        assertEquals(rows, status.rowsRead());
+        assertEquals(rows - 2, status.created());
+        assertEquals(2, status.rejected());
+        assertEquals(status.totalBytes(), status.bytesRead());
+        assertNotNull(status.finishedAt());
+        verify(perkService, times(3)).createPerks(anyList());
+        verify(perkService, times(2)).createPerks(argThat(drafts -> drafts.size() == PerkService.BULK_CHUNK_SIZE
+                && drafts.get(0).userId() == 3L));
+        assertEquals(List.of(new PerkImport.Rejection(7, "Could not be saved: too long"),
+                new PerkImport.Rejection(9, "Membership Type not found")), importer.find(status.id()).orElseThrow().rejections());
+    }
+
+    @Test
+    void testImport_UnreadableFeedFails() throws Exception {
+        Files.writeString(directory.resolve("feed.csv"), "name\nPerk\n");
+
+        PerkImport.Status status = awaitFinished(importer.start("feed.csv", null, 3L));
+
+        assertEquals(PerkImport.State.FAILED, status.state());
+        assertTrue(status.error().contains("header"));
+        verify(perkService, never()).createPerks(anyList());
+    }
+
+    @Test
+    void testStart_RejectsFilesOutsideImportDirectory() throws IOException {
+        Files.writeString(root.resolve("secret.csv"), "title\n");
+
+        IllegalArgumentException outside = assertThrows(IllegalArgumentException.class,
+                () -> importer.start("../secret.csv", null, 3L));
+        IllegalArgumentException absolute = assertThrows(IllegalArgumentException.class,
+                () -> importer.start(root.resolve("secret.csv").toString(), null, 3L));
+
+        assertEquals("File must be inside the import directory", outside.getMessage());
+        assertEquals("File must be inside the import directory", absolute.getMessage());
+        assertTrue(importer.all().isEmpty());
+    }
+
+    @Test
+    void testStart_RejectsMissingFileAndUnknownFormat() throws IOException {
+        Files.writeString(directory.resolve("feed.xml"), "<perks/>");
+
+        assertEquals("File not found",
+                assertThrows(IllegalArgumentException.class, () -> importer.start("missing.csv", null, 3L)).getMessage());
+        assertEquals("Format must be csv or ndjson",
+                assertThrows(IllegalArgumentException.class, () -> importer.start("feed.xml", null, 3L)).getMessage());
+        assertTrue(importer.find(1).isEmpty());
+    }
+}
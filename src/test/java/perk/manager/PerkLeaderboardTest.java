@@ -0,0 +1,90 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkLeaderboardTest {
+
+    private MembershipType scene;
+    private MembershipType costco;
+    private PerkLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        scene = new MembershipType("Scene+");
+        scene.setId(1L);
+        costco = new MembershipType("Costco");
+        costco.setId(2L);
+        leaderboard = new PerkLeaderboard();
+        leaderboard.rebuild(List.of(perk(1L, scene, 5), perk(2L, scene, 9), perk(3L, costco, 7), perk(4L, scene, 5)));
+    }
+
+    private static Perk perk(long id, MembershipType membership, int votes) {
+        Perk perk = new Perk("Perk " + id, "Description", "Canada", LocalDate.now().plusDays(5), membership, null);
+        perk.setId(id);
+        perk.setVotes(votes);
+        return perk;
+    }
+
+    private List<Long> ids(String membership, PerkCursor after, int limit) {
+        return leaderboard.top(membership, after, limit).stream().map(PerkLeaderboard.Entry::id).toList();
+    }
+
+    @Test
+    void testTop_OrdersByVotesThenIdDescending() {
+        assertEquals(List.of(2L, 3L, 4L, 1L), ids(null, null, 10));
+        assertEquals(List.of(2L, 3L), ids("", null, 2));
+    }
+
+    @Test
+    void testTop_PerMembershipIgnoringCase() {
+        assertEquals(List.of(2L, 4L, 1L), ids("scene+", null, 10));
+        assertEquals(List.of(3L), ids("COSTCO", null, 10));
+        assertTrue(ids("Unknown", null, 10).isEmpty());
+    }
+
+    @Test
+    void testTop_SeeksPastCursor() {
+        PerkCursor after = leaderboard.top("Scene+", null, 2).get(1).cursor();
+
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 5, 4L), after);
+        assertEquals(List.of(1L), ids("Scene+", after, 10));
+        assertEquals(List.of(1L), ids(null, after, 10));
+    }
+
+    @Test
+    void testApplyDelta_MovesPerkInBothRankings() {
+        leaderboard.applyDelta(1L, 2);
+        leaderboard.applyDelta(1L, 1);
+
+        assertEquals(Optional.of(8), leaderboard.votes(1L));
+        assertEquals(List.of(2L, 1L, 3L, 4L), ids(null, null, 10));
+        assertEquals(List.of(2L, 1L, 4L), ids("Scene+", null, 10));
+        assertEquals(4, leaderboard.size());
+    }
+
+    @Test
+    void testApplyDelta_IgnoresUnknownPerk() {
+        leaderboard.applyDelta(99L, 1);
+
+        assertTrue(leaderboard.votes(99L).isEmpty());
+        assertEquals(4, leaderboard.size());
+    }
+
+    @Test
+    void testAddAndRemove() {
+        leaderboard.add(perk(5L, costco, 0));
+        assertEquals(List.of(3L, 5L), ids("Costco", null, 10));
+
+        leaderboard.remove(3L);
+        leaderboard.remove(3L);
+        assertEquals(List.of(5L), ids("Costco", null, 10));
+        assertEquals(List.of(2L, 4L, 1L, 5L), ids(null, null, 10));
+    }
+}
@@ -0,0 +1,163 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkListFragmentCacheTest {
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
+    private SpringTemplateEngine templateEngine;
+    private ServletWebRequest request;
+    private List<Perk> perks;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        request = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        User user = new User();
+        user.setUsername("testuser");
+        MembershipType membershipType = new MembershipType("Aeroplan");
+        Perk first = new Perk("Lounge access", "Two visits a year", "Canada", LocalDate.now().plusDays(30), membershipType, user);
+        first.setId(1L);
+        first.setVotes(5);
+        Perk second = new Perk("Free bag", "First checked bag", "Canada", LocalDate.now().plusDays(10), membershipType, user);
+        second.setId(2L);
+        perks = List.of(first, second);
+    }
+
+    private PerkListFragmentCache cache(long maxBytes) {
+        return new PerkListFragmentCache(templateEngine, catalogVersion, membershipCatalog, maxBytes);
+    }
+
+    private Supplier<CursorPage<Perk>> page() {
+        return () -> {
+            loads.incrementAndGet();
+            return new CursorPage<>(perks, "next");
+        };
+    }
+
+    /**
+     * Renders the perk list the way the view does, with a user's votes.
+     */
+    private String renderWithVotes(Map<Long, Boolean> votes) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("perks", perks);
+        variables.put("nextCursor", "next");
+        variables.put("sortBy", "votes");
+        variables.put("selectedMembership", "Aeroplan");
+        variables.put("keyword", null);
+        variables.put("isLoggedIn", true);
+        variables.put("votedPerks", votes);
+        return templateEngine.process(PerkListFragmentCache.TEMPLATE, Set.of("perk-list"), new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getRequest().getServletContext())
+                        .buildExchange(request.getRequest(), request.getResponse()), request.getLocale(), variables));
+    }
+
+    @Test
+    void testGet_RenderedOnceForEveryUser() {
+        PerkListFragmentCache cache = cache(1 << 20);
+
+        PerkListFragmentCache.Fragment first = cache.get("Aeroplan", null, "votes", request, page());
+        PerkListFragmentCache.Fragment second = cache.get("Aeroplan", null, "votes", request, page());
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(List.of(1L, 2L), first.perkIds());
+        assertEquals(renderWithVotes(Map.of()), first.html());
+        assertEquals(0.5, cache.getHitRatio());
+        assertEquals(first.markup().length, cache.getBytes());
+    }
+
+    @Test
+    void testWithVotes_SameAsRenderingWithTheUsersVotes() {
+        PerkListFragmentCache cache = cache(1 << 20);
+        PerkListFragmentCache.Fragment list = cache.get("Aeroplan", null, "votes", request, page());
+
+        String html = cache.withVotes(list, Map.of(1L, true, 2L, false), request);
+
+        assertEquals(renderWithVotes(Map.of(1L, true, 2L, false)), html);
+        assertTrue(html.contains("active-upvote") && html.contains("active-downvote"));
+        assertFalse(list.html().contains("active-upvote"), "the shared list is left as it was");
+    }
+
+    @Test
+    void testGet_NewCatalogVersionEmptiesCache() {
+        PerkListFragmentCache cache = cache(1 << 20);
+        cache.get("Aeroplan", null, "votes", request, page());
+        cache.get("Aeroplan", null, "expiry", request, page());
+
+        when(catalogVersion.current()).thenReturn(1L);
+        cache.get("Aeroplan", null, "votes", request, page());
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testGet_StaleRenderNotCached() {
+        PerkListFragmentCache cache = cache(1 << 20);
+        cache.get("Aeroplan", null, "votes", request, () -> {
+            when(catalogVersion.current()).thenReturn(1L);
+            cache.get("Aeroplan", null, "expiry", request, page());
+            return page().get();
+        });
+
+        assertEquals(1, cache.size(), "only the list rendered for the newer version is kept");
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsedOverByteLimit() {
+        int size = cache(1 << 20).get("Aeroplan", null, "votes", request, page()).markup().length;
+        PerkListFragmentCache cache = cache(size * 2L + size / 2);
+
+        cache.get("Aeroplan", null, "votes", request, page());
+        cache.get("Aeroplan", "lounge", "votes", request, page());
+        cache.get("Aeroplan", null, "votes", request, page());
+        cache.get("Aeroplan", "bag", "votes", request, page());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.getBytes() <= size * 2L + size / 2);
+        loads.set(0);
+        cache.get("Aeroplan", null, "votes", request, page());
+        assertEquals(0, loads.get(), "the most recently used list is kept");
+    }
+
+    @Test
+    void testIsEnabled_OffWithoutBytes() {
+        assertFalse(cache(0).isEnabled());
+        assertTrue(cache(1).isEnabled());
+    }
+}
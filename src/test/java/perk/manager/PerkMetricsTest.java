@@ -0,0 +1,142 @@
+package perk.manager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkMetricsTest {
+
+    @Mock
+    private PerkSearchIndex searchIndex;
+
+    @Mock
+    private PerkLeaderboard leaderboard;
+
+    @Mock
+    private PerkExpiryIndex expiryIndex;
+
+    @Mock
+    private PerkVoteStore voteStore;
+
+    @Mock
+    private UserPrincipalCache principalCache;
+
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
+    @Mock
+    private VoteWriteBuffer voteWriteBuffer;
+
+    @Mock
+    private VoteBroadcaster voteBroadcaster;
+
+    @Mock
+    private PerkListFragmentCache fragmentCache;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    private SimpleMeterRegistry registry;
+    private PerkMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        metrics = new PerkMetrics(registry, searchIndex, leaderboard, expiryIndex, voteStore, principalCache,
+                membershipCatalog, voteWriteBuffer, voteBroadcaster, fragmentCache,
+                passwordHasher);
+    }
+
+    private double count(String name, String tag, String value) {
+        return registry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void testVoted_CountsByDirection() {
+        metrics.voted(1);
+        metrics.voted(2);
+        metrics.voted(-1);
+
+        assertEquals(2, count("perk.votes", "direction", "up"));
+        assertEquals(1, count("perk.votes", "direction", "down"));
+    }
+
+    @Test
+    void testCreated_CountsSingleAndBulk() {
+        metrics.created();
+        metrics.createdInBulk(250);
+
+        assertEquals(1, count("perk.creations", "mode", "single"));
+        assertEquals(250, count("perk.creations", "mode", "bulk"));
+    }
+
+    @Test
+    void testSearched_KeywordTakesPrecedenceOverMembership() {
+        metrics.searched(true, true);
+        metrics.searched(false, true);
+        metrics.searched(false, false);
+        metrics.searched(false, false);
+
+        assertEquals(1, count("perk.searches", "filter", "keyword"));
+        assertEquals(1, count("perk.searches", "filter", "membership"));
+        assertEquals(2, count("perk.searches", "filter", "all"));
+    }
+
+    @Test
+    void testGauges_ReadCurrentSizes() {
+        when(searchIndex.size()).thenReturn(40);
+        when(leaderboard.size()).thenReturn(41);
+        when(expiryIndex.size()).thenReturn(42);
+        when(voteStore.size()).thenReturn(7);
+        when(principalCache.size()).thenReturn(3);
+        when(membershipCatalog.all()).thenReturn(List.of(new MembershipType("Scene+")));
+        when(voteWriteBuffer.getPendingPerks()).thenReturn(5);
+        when(voteWriteBuffer.getFlushedVotes()).thenReturn(90L);
+        when(voteWriteBuffer.getFlushCount()).thenReturn(8L);
+        when(voteWriteBuffer.getLastBatchSize()).thenReturn(14);
+        when(voteWriteBuffer.getLastFlushLagMillis()).thenReturn(250L);
+        when(voteBroadcaster.getSubscriberCount()).thenReturn(12);
+        when(voteBroadcaster.getDroppedCounts()).thenReturn(4L);
+        when(voteBroadcaster.getStalledSubscribers()).thenReturn(1L);
+        when(fragmentCache.size()).thenReturn(2);
+        when(fragmentCache.getHits()).thenReturn(30L);
+        when(fragmentCache.getMisses()).thenReturn(10L);
+        when(fragmentCache.getHitRatio()).thenReturn(0.75);
+        when(fragmentCache.getBytes()).thenReturn(65536L);
+        when(passwordHasher.getQueueDepth()).thenReturn(6);
+        when(passwordHasher.getActiveHashes()).thenReturn(2);
+        when(passwordHasher.getRejectedHashes()).thenReturn(9L);
+
+        assertEquals(40, registry.get("perk.index.size").tag("index", "search-index").gauge().value());
+        assertEquals(41, registry.get("perk.index.size").tag("index", "leaderboard").gauge().value());
+        assertEquals(42, registry.get("perk.index.size").tag("index", "expiry-index").gauge().value());
+        assertEquals(7, registry.get("perk.cache.size").tag("cache", "user-votes").gauge().value());
+        assertEquals(3, registry.get("perk.cache.size").tag("cache", "principals").gauge().value());
+        assertEquals(1, registry.get("perk.cache.size").tag("cache", "memberships").gauge().value());
+        assertEquals(5, registry.get("perk.votes.pending").gauge().value());
+        assertEquals(90, registry.get("perk.votes.flushed").functionCounter().count());
+        assertEquals(8, registry.get("perk.votes.flushes").functionCounter().count());
+        assertEquals(14, registry.get("perk.votes.flush.batch").gauge().value());
+        assertEquals(250, registry.get("perk.votes.flush.lag").timeGauge().value(TimeUnit.MILLISECONDS));
+        assertEquals(12, registry.get("perk.votes.subscribers").gauge().value());
+        assertEquals(4, registry.get("perk.votes.broadcast.dropped").functionCounter().count());
+        assertEquals(1, registry.get("perk.votes.broadcast.stalled").functionCounter().count());
+        assertEquals(2, registry.get("perk.cache.size").tag("cache", "perk-lists").gauge().value());
+        assertEquals(30, registry.get("perk.fragments.lookups").tag("result", "hit").functionCounter().count());
+        assertEquals(10, registry.get("perk.fragments.lookups").tag("result", "miss").functionCounter().count());
+        assertEquals(0.75, registry.get("perk.fragments.hit.ratio").gauge().value());
+        assertEquals(65536, registry.get("perk.fragments.bytes").gauge().value());
+        assertEquals(6, registry.get("perk.passwords.queued").gauge().value());
+        assertEquals(2, registry.get("perk.passwords.active").gauge().value());
+        assertEquals(9, registry.get("perk.passwords.rejected").functionCounter().count());
+    }
+}
@@ -0,0 +1,159 @@
+package perk.manager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the perk read path with a cold and a warm second-level cache on a 100k-perk catalog.
+ *
+ * Excluded from the normal build; run with {@code mvn test -Pbenchmark}. Reads are skewed
+ * towards a hot set of perks the way dashboard traffic is.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkReadPathBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int HOT_PERKS = 1_000;
+    private static final int READS = 20_000;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+    private long[] reads;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from perk", Integer.class);
+        if (existing < CATALOG_SIZE) {
+            insertCatalog(CATALOG_SIZE - existing);
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList("select id from perk order by id", Long.class);
+        Random random = new Random(42);
+        reads = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            // 90% of reads go to the hot set, the rest anywhere in the catalog.
+            int index = random.nextInt(10) < 9 ? random.nextInt(HOT_PERKS) : random.nextInt(ids.size());
+            reads[i] = ids.get(index);
+        }
+    }
+
+    private void insertCatalog(int count) {
+        String membership = jdbcTemplate.queryForObject("select min(name) from membership_type", String.class);
+        Long userId = userService.findByUsername("demo").orElseThrow().getId();
+        LocalDate today = LocalDate.now();
+        for (int start = 0; start < count; start += PerkService.MAX_BULK_SIZE) {
+            List<PerkDraft> drafts = new ArrayList<>();
+            for (int i = start; i < Math.min(count, start + PerkService.MAX_BULK_SIZE); i++) {
+                drafts.add(new PerkDraft("Synthetic perk " + i, "Benchmark perk number " + i, "Canada",
+                        membership, userId, today.plusDays(1 + i % 365)));
+            }
+            perkService.createPerks(drafts);
+        }
+        // Spread the votes out behind Hibernate's back, then drop the cached copies and re-rank.
+        jdbcTemplate.update("update perk set votes = mod(id, 500) where title like 'Synthetic perk %'");
+        sessionFactory.getCache().evictAllRegions();
+        perkService.indexCatalog();
+    }
+
+    @Test
+    void testVoteSectionReads_ColdVersusWarm() {
+        Result cold = run("vote section, cold", id -> {
+            sessionFactory.getCache().evictAllRegions();
+            perkService.findPerk(id).orElseThrow().getCreatedBy().getUsername();
+        });
+        Result warm = run("vote section, warm", id ->
+                perkService.findPerk(id).orElseThrow().getCreatedBy().getUsername());
+
+        assertTrue(warm.statements() < cold.statements() / 2,
+                "warm cache should avoid most statements: " + warm + " vs " + cold);
+    }
+
+    @Test
+    void testUserReads_ColdVersusWarm() {
+        Long userId = userService.findByUsername("demo").orElseThrow().getId();
+        Result cold = run("user by id, cold", id -> {
+            sessionFactory.getCache().evictAllRegions();
+            userService.findById(userId).orElseThrow();
+        });
+        Result warm = run("user by id, warm", id -> userService.findById(userId).orElseThrow());
+
+        assertTrue(warm.statements() < cold.statements() / 2,
+                "warm cache should avoid most statements: " + warm + " vs " + cold);
+    }
+
+    @Test
+    void testDashboardPages_ColdVersusWarm() {
+        Result cold = run("dashboard page, cold", id -> {
+            sessionFactory.getCache().evictAllRegions();
+            perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE);
+        });
+        Result warm = run("dashboard page, warm", id ->
+                perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE));
+
+        assertTrue(warm.statements() < cold.statements() / 2,
+                "warm cache should avoid most statements: " + warm + " vs " + cold);
+    }
+
+    /**
+     * Warms up, then times one read per entry of the read sequence.
+     */
+    private Result run(String name, LongConsumer read) {
+        for (int i = 0; i < READS / 10; i++) {
+            read.accept(reads[i]);
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        for (long id : reads) {
+            read.accept(id);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result(name, READS * 1_000_000_000L / Math.max(1, elapsed),
+                elapsed / 1_000.0 / READS, statistics.getPrepareStatementCount(),
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount());
+        System.out.println(result);
+        return result;
+    }
+
+    private record Result(String name, long readsPerSecond, double microsPerRead, long statements,
+                          long cacheHits, long cacheMisses) {
+        @Override
+        public String toString() {
+            return String.format("%-22s %9d reads/s %9.1f us/read %8d statements %8d L2 hits %8d L2 misses",
+                    name, readsPerSecond, microsPerRead, statements, cacheHits, cacheMisses);
+        }
+    }
+}
@@ -7,12 +7,17 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -24,6 +29,15 @@ class PerkRestControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private PerkExporter perkExporter;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ServletWebRequest webRequest;
+
     @InjectMocks
     private PerkRestController perkRestController;
 
@@ -52,24 +66,109 @@ class PerkRestControllerTest {
 
     @Test
     void testGetAllPerks() {
-        when(perkService.getAllPerks()).thenReturn(List.of(perk));
+        when(perkService.findPerkSummaryPage(null, "votes", null, 20))
+                .thenReturn(new CursorPage<>(List.of(PerkSummary.from(perk)), "next"));
 
-        ResponseEntity<List<Perk>> response = perkRestController.getAllPerks();
+        ResponseEntity<?> response = perkRestController.getAllPerks("votes", null, 20, webRequest);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(1, response.getBody().size());
-        assertEquals(perk, response.getBody().get(0));
+        CursorPage<?> page = (CursorPage<?>) response.getBody();
+        assertEquals(1, page.items().size());
+        assertEquals(PerkSummary.from(perk), page.items().get(0));
+        assertEquals("next", page.nextCursor());
+    }
+
+    @Test
+    void testGetAllPerks_NotModified() {
+        when(catalogVersion.notModified(webRequest)).thenReturn(true);
+
+        assertNull(perkRestController.getAllPerks("votes", null, 20, webRequest));
+        verifyNoInteractions(perkService);
+    }
+
+    @Test
+    void testGetAllPerks_InvalidCursor() {
+        when(perkService.findPerkSummaryPage(null, "votes", "bad", 20))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<?> response = perkRestController.getAllPerks("votes", "bad", 20, webRequest);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("error"));
     }
 
     @Test
     void testSearchPerks() {
-        when(perkService.searchByMembership("Scene+")).thenReturn(List.of(perk));
+        when(perkService.searchSummariesByMembership("Scene+")).thenReturn(List.of(PerkSummary.from(perk)));
 
-        ResponseEntity<List<Perk>> response = perkRestController.searchPerks("Scene+");
+        ResponseEntity<List<PerkSummary>> response = perkRestController.searchPerks("Scene+");
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(1, response.getBody().size());
-        verify(perkService).searchByMembership("Scene+");
+        verify(perkService).searchSummariesByMembership("Scene+");
+    }
+
+    @Test
+    void testGetExpiringPerks() {
+        when(perkService.findExpiringSummaries(3, null, 20))
+                .thenReturn(new CursorPage<>(List.of(PerkSummary.from(perk)), null));
+
+        ResponseEntity<?> response = perkRestController.getExpiringPerks(3, null, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, ((CursorPage<?>) response.getBody()).items().size());
+    }
+
+    @Test
+    void testGetExpiringPerks_NegativeDays() {
+        when(perkService.findExpiringSummaries(-1, null, 20))
+                .thenThrow(new IllegalArgumentException("days must not be negative"));
+
+        ResponseEntity<?> response = perkRestController.getExpiringPerks(-1, null, 20);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("days must not be negative", ((Map<?, ?>) response.getBody()).get("error"));
+    }
+
+    @Test
+    void testExportPerks_StreamsFromExporter() throws Exception {
+        Instant since = Instant.parse("2030-01-01T00:00:00Z");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> response = perkRestController.exportPerks("Scene+", since);
+        verifyNoInteractions(perkExporter);
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        verify(perkExporter).export("Scene+", since, out);
+    }
+
+    @Test
+    void testCreatePerks_ReturnsPerDraftResults() {
+        List<PerkDraft> drafts = List.of(
+                new PerkDraft("One", "Desc", "Canada", "Scene+", 1L, LocalDate.now().plusDays(30)),
+                new PerkDraft("", "Desc", "Canada", "Scene+", 1L, LocalDate.now().plusDays(30)));
+        BulkPerkResult result = BulkPerkResult.of(List.of(
+                BulkPerkResult.Item.created(0, 7L), BulkPerkResult.Item.failed(1, "Title is required")));
+        when(perkService.createPerks(drafts)).thenReturn(result);
+
+        ResponseEntity<?> response = perkRestController.createPerks(drafts);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, ((BulkPerkResult) response.getBody()).created());
+        assertEquals(1, ((BulkPerkResult) response.getBody()).failed());
+    }
+
+    @Test
+    void testCreatePerks_EmptyRequest() {
+        when(perkService.createPerks(List.of()))
+                .thenThrow(new IllegalArgumentException("Between 1 and 50000 perks can be created at once"));
+
+        ResponseEntity<?> response = perkRestController.createPerks(List.of());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Between 1 and 50000 perks can be created at once", ((Map<?, ?>) response.getBody()).get("error"));
     }
 
     @Test
@@ -89,7 +188,10 @@ class PerkRestControllerTest {
         ResponseEntity<?> response = perkRestController.createPerk(payload);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        assertEquals(perk, response.getBody());
+        PerkSummary summary = (PerkSummary) response.getBody();
+        assertEquals("Test Perk", summary.title());
+        assertEquals("Scene+", summary.membershipType());
+        assertEquals("testuser", summary.createdBy());
     }
 
     @Test
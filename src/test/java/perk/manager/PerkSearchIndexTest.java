@@ -0,0 +1,117 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerkSearchIndexTest {
+
+    private PerkSearchIndex index;
+    private MembershipType scene;
+    private MembershipType caa;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        index = new PerkSearchIndex();
+
+        scene = new MembershipType("Scene+");
+        scene.setId(1L);
+        caa = new MembershipType("CAA");
+        caa.setId(2L);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("demo");
+
+        index.add(perk(1L, "10% off Movie Tickets", "Discount on movie tickets at Cineplex theatres", scene));
+        index.add(perk(2L, "Free Popcorn", "Free popcorn with any movie ticket", scene));
+        index.add(perk(3L, "Gas Discount", "Save 5 cents per litre on gas", caa));
+    }
+
+    private Perk perk(long id, String title, String description, MembershipType membershipType) {
+        Perk perk = new Perk(title, description, "Canada", LocalDate.now().plusDays(30), membershipType, user);
+        perk.setId(id);
+        return perk;
+    }
+
+    @Test
+    void testSearch_MatchesTitleAndDescription() {
+        assertEquals(List.of(1L, 2L), index.search(null, "movie").stream().sorted().toList());
+        assertEquals(List.of(3L), index.search(null, "litre"));
+    }
+
+    @Test
+    void testSearch_IsCaseInsensitiveAndMatchesPrefixes() {
+        assertEquals(List.of(3L), index.search(null, "GAS"));
+        assertEquals(List.of(1L, 3L), index.search(null, "disc").stream().sorted().toList());
+    }
+
+    @Test
+    void testSearch_ShortTermsMatchWholeWordsOnly() {
+        index.add(perk(4L, "5 Star Hotels", "Book a room", caa));
+
+        assertEquals(List.of(3L, 4L), index.search(null, "5").stream().sorted().toList());
+        assertTrue(index.search(null, "m").isEmpty());
+        assertEquals(List.of(1L, 2L), index.search(null, "mo").stream().sorted().toList());
+    }
+
+    @Test
+    void testSearch_RequiresEveryTerm() {
+        assertEquals(List.of(2L), index.search(null, "free movie"));
+        assertTrue(index.search(null, "popcorn gas").isEmpty());
+    }
+
+    @Test
+    void testSearch_RanksTitleMatchesFirst() {
+        assertEquals(List.of(1L, 2L), index.search(null, "movie"));
+        assertEquals(List.of(1L, 2L), index.search(null, "ticket"));
+    }
+
+    @Test
+    void testSearch_FiltersByMembership() {
+        assertEquals(List.of(3L), index.search("caa", "discount"));
+        assertTrue(index.search("Aeroplan", "discount").isEmpty());
+    }
+
+    @Test
+    void testSearch_BlankKeyword() {
+        assertTrue(index.search(null, " ").isEmpty());
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.search(null, "movie"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testAdd_ReplacesExistingEntry() {
+        index.add(perk(1L, "Concert Presale", "Early access to concerts", scene));
+
+        assertEquals(List.of(2L), index.search(null, "movie"));
+        assertEquals(List.of(1L), index.search("Scene+", "concert"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testRebuild() {
+        index.rebuild(List.of(perk(4L, "Lounge Access", "Airport lounge access", caa)));
+
+        assertEquals(1, index.size());
+        assertTrue(index.search(null, "movie").isEmpty());
+        assertEquals(List.of(4L), index.search("CAA", "lounge"));
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("10", "off", "movie", "tickets"), PerkSearchIndex.tokenize("10% off Movie-Tickets!"));
+        assertTrue(PerkSearchIndex.tokenize(null).isEmpty());
+    }
+}
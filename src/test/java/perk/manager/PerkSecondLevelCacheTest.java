@@ -0,0 +1,105 @@
+package perk.manager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that repeated reads are served from the second-level and query caches, and
+ * that vote counts written behind Hibernate's back are never served stale.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkSecondLevelCacheTest {
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long perkId;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        perkId = perkService.findPerkPage(null, null, "votes", null, 1).items().get(0).getId();
+        statistics.clear();
+    }
+
+    @Test
+    void testVoteSection_SecondReadHitsCache() {
+        perkService.findPerk(perkId).orElseThrow();
+        statistics.clear();
+
+        Perk perk = perkService.findPerk(perkId).orElseThrow();
+
+        assertNotNull(perk.getCreatedBy().getUsername());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void testDashboardPage_SecondReadHitsCache() {
+        perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE);
+        statistics.clear();
+
+        List<Perk> perks = perkService.findPerkPage(null, null, "votes", null, PerkService.DEFAULT_PAGE_SIZE).items();
+
+        for (Perk perk : perks) {
+            assertNotNull(perk.getMembershipType().getName());
+            assertNotNull(perk.getCreatedBy().getUsername());
+        }
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUserById_SecondReadHitsCache() {
+        Long userId = userService.findByUsername("demo").orElseThrow().getId();
+        userService.findById(userId).orElseThrow();
+        statistics.clear();
+
+        assertEquals("demo", userService.findById(userId).orElseThrow().getUsername());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testVote_EvictsCachedPerk() {
+        int before = perkService.findPerk(perkId).orElseThrow().getVotes();
+
+        perkService.applyVoteDelta(perkId, 1);
+
+        assertEquals(before + 1, perkService.findPerk(perkId).orElseThrow().getVotes());
+        perkService.applyVoteDelta(perkId, -1);
+        assertEquals(before, perkService.findPerk(perkId).orElseThrow().getVotes());
+    }
+
+    @Test
+    void testCastVote_EvictsCachedPerkAfterCommit() {
+        Long userId = userService.findByUsername("demo").orElseThrow().getId();
+        int before = perkService.findPerk(perkId).orElseThrow().getVotes();
+
+        perkService.castVote(userId, perkId, true);
+        assertEquals(before + 1, perkService.findPerk(perkId).orElseThrow().getVotes());
+
+        perkService.castVote(userId, perkId, true);
+        assertEquals(before, perkService.findPerk(perkId).orElseThrow().getVotes());
+    }
+}
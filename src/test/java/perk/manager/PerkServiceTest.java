@@ -1,15 +1,29 @@
 package perk.manager;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,11 +35,44 @@ class PerkServiceTest {
     private PerkRepository perkRepository;
 
     @Mock
-    private MembershipTypeRepository membershipTypeRepository;
+    private MembershipCatalog membershipCatalog;
 
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PerkSearchIndex searchIndex;
+
+    @Mock
+    private VoteWriteBuffer voteWriteBuffer;
+
+    @Mock
+    private PerkVoteStore voteStore;
+
+    @Mock
+    private PerkLeaderboard leaderboard;
+
+    @Mock
+    private PerkExpiryIndex expiryIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Mock
+    private PerkMetrics metrics;
+
+    @Mock
+    private VoteBroadcaster voteBroadcaster;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
     @InjectMocks
     private PerkService perkService;
 
@@ -36,6 +83,15 @@ class PerkServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(voteWriteBuffer.overlay(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(voteStore.lockFor(any())).thenReturn(new ReentrantLock());
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
 
         membershipType = new MembershipType();
         membershipType.setId(1L);
@@ -52,29 +108,30 @@ class PerkServiceTest {
 
     @Test
     void testGetAllPerks() {
-        when(perkRepository.findAll()).thenReturn(List.of(perk));
+        when(perkRepository.findByExpiryDateGreaterThanEqual(LocalDate.now())).thenReturn(List.of(perk));
 
         List<Perk> result = perkService.getAllPerks();
 
         assertEquals(1, result.size());
         assertEquals("Title", result.get(0).getTitle());
-        verify(perkRepository, times(1)).findAll();
+        verify(perkRepository, times(1)).findByExpiryDateGreaterThanEqual(LocalDate.now());
+        verify(perkRepository, never()).findAll();
     }
 
     @Test
     void testSearchByMembership() {
-        when(perkRepository.findByMembershipType_NameIgnoreCase("Gold")).thenReturn(List.of(perk));
+        when(perkRepository.findByMembershipType_NameIgnoreCaseAndExpiryDateGreaterThanEqual("Gold", LocalDate.now()))
+                .thenReturn(List.of(perk));
 
         List<Perk> result = perkService.searchByMembership("Gold");
 
         assertEquals(1, result.size());
         assertEquals("Gold", result.get(0).getMembershipType().getName());
-        verify(perkRepository, times(1)).findByMembershipType_NameIgnoreCase("Gold");
     }
 
     @Test
     void testCreatePerk_Success() {
-        when(membershipTypeRepository.findAll()).thenReturn(List.of(membershipType));
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(perkRepository.save(any(Perk.class))).thenReturn(perk);
 
@@ -85,14 +142,31 @@ class PerkServiceTest {
         assertEquals("Title", created.getTitle());
         assertEquals("Gold", created.getMembershipType().getName());
 
-        verify(membershipTypeRepository, times(1)).findAll();
+        verify(membershipCatalog, times(1)).findByName("Gold");
         verify(userRepository, times(1)).findById(1L);
         verify(perkRepository, times(1)).save(any(Perk.class));
+        verify(searchIndex).add(perk);
+        verify(leaderboard).add(perk);
+        verify(expiryIndex).add(perk);
+        verify(metrics).created();
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void testCreatePerk_AlreadyExpiredIsNotIndexed() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(perkRepository.save(any(Perk.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        perkService.createPerk("Title", "Desc", "Region", "Gold", 1L, LocalDate.now().minusDays(1));
+
+        verify(perkRepository).save(any(Perk.class));
+        verifyNoInteractions(searchIndex, leaderboard, expiryIndex);
     }
 
     @Test
     void testCreatePerk_MembershipTypeNotFound() {
-        when(membershipTypeRepository.findAll()).thenReturn(List.of());
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
                 perkService.createPerk("Title", "Desc", "Region", "Gold", 1L, LocalDate.now())
@@ -104,7 +178,7 @@ class PerkServiceTest {
 
     @Test
     void testCreatePerk_UserNotFound() {
-        when(membershipTypeRepository.findAll()).thenReturn(List.of(membershipType));
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -115,41 +189,582 @@ class PerkServiceTest {
         verify(perkRepository, never()).save(any());
     }
 
+    private PerkDraft draft(String title, String membership, Long userId) {
+        return new PerkDraft(title, "Desc", "Region", membership, userId, LocalDate.now().plusDays(30));
+    }
+
+    /**
+     * Makes saveAll and save hand back their perks with IDs assigned from 1000 upwards.
+     */
+    private void assignIdsOnSave() {
+        long[] nextId = {1000};
+        when(perkRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Perk> perks = new ArrayList<>(invocation.<List<Perk>>getArgument(0));
+            perks.forEach(p -> p.setId(nextId[0]++));
+            return perks;
+        });
+        when(perkRepository.save(any(Perk.class))).thenAnswer(invocation -> {
+            Perk p = invocation.getArgument(0);
+            p.setId(nextId[0]++);
+            return p;
+        });
+    }
+
+    @Test
+    void testCreatePerks_ResolvesUsersOnceAndReportsEachDraft() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(membershipCatalog.findByName("Unknown")).thenReturn(Optional.empty());
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        assignIdsOnSave();
+
+        BulkPerkResult result = perkService.createPerks(Arrays.asList(
+                draft("One", "Gold", 1L), draft(" ", "Gold", 1L), draft("Three", "Unknown", 1L),
+                draft("Four", "Gold", 2L), null, draft("Six", "Gold", 1L)));
+
+        assertEquals(2, result.created());
+        assertEquals(4, result.failed());
+        assertEquals(BulkPerkResult.Item.created(0, 1000L), result.items().get(0));
+        assertEquals(BulkPerkResult.Item.failed(1, "Title is required"), result.items().get(1));
+        assertEquals(BulkPerkResult.Item.failed(2, "Membership Type not found"), result.items().get(2));
+        assertEquals(BulkPerkResult.Item.failed(3, "User not found"), result.items().get(3));
+        assertEquals(BulkPerkResult.Item.failed(4, "Perk is required"), result.items().get(4));
+        assertEquals(BulkPerkResult.Item.created(5, 1001L), result.items().get(5));
+        verify(userRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).findById(any());
+        verify(perkRepository, times(1)).saveAll(anyList());
+        verify(searchIndex, times(2)).add(any(Perk.class));
+        verify(leaderboard, times(2)).add(any(Perk.class));
+        verify(expiryIndex, times(2)).add(any(Perk.class));
+        verify(metrics).createdInBulk(2);
+    }
+
+    @Test
+    void testCreatePerks_SavesInChunks() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        assignIdsOnSave();
+
+        BulkPerkResult result = perkService.createPerks(
+                Collections.nCopies(PerkService.BULK_CHUNK_SIZE * 2 + 1, draft("Perk", "Gold", 1L)));
+
+        assertEquals(PerkService.BULK_CHUNK_SIZE * 2 + 1, result.created());
+        verify(perkRepository, times(3)).saveAll(anyList());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void testCreatePerks_RejectedChunkRetriedPerDraft() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(perkRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("chunk rejected"));
+        long[] nextId = {1000};
+        when(perkRepository.save(any(Perk.class))).thenAnswer(invocation -> {
+            Perk p = invocation.getArgument(0);
+            if (p.getTitle().equals("Bad")) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            assertEquals(0, p.getId());
+            p.setId(nextId[0]++);
+            return p;
+        });
+
+        BulkPerkResult result = perkService.createPerks(
+                List.of(draft("Good", "Gold", 1L), draft("Bad", "Gold", 1L), draft("Also good", "Gold", 1L)));
+
+        assertEquals(2, result.created());
+        assertEquals(1, result.failed());
+        assertEquals(BulkPerkResult.Item.created(0, 1000L), result.items().get(0));
+        assertEquals(BulkPerkResult.Item.failed(1, "Could not be saved: value too long"), result.items().get(1));
+        assertEquals(BulkPerkResult.Item.created(2, 1001L), result.items().get(2));
+        verify(searchIndex, times(2)).add(any(Perk.class));
+    }
+
+    @Test
+    void testCreatePerks_RejectsEmptyAndOversizedRequests() {
+        assertThrows(IllegalArgumentException.class, () -> perkService.createPerks(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> perkService.createPerks(null));
+        assertThrows(IllegalArgumentException.class, () -> perkService.createPerks(
+                Collections.nCopies(PerkService.MAX_BULK_SIZE + 1, draft("Perk", "Gold", 1L))));
+        verifyNoInteractions(perkRepository);
+    }
+
     @Test
     void testVote_Upvote() {
-        when(perkRepository.findById(100L)).thenReturn(Optional.of(perk));
-        when(perkRepository.save(any(Perk.class))).thenReturn(perk);
+        when(perkRepository.addVotes(100L, 1)).thenReturn(Optional.of(1));
 
         perkService.vote(100L, true);
 
-        ArgumentCaptor<Perk> captor = ArgumentCaptor.forClass(Perk.class);
-        verify(perkRepository).save(captor.capture());
-
-        Perk savedPerk = captor.getValue();
-        assertEquals(1, savedPerk.getVotes());
+        verify(perkRepository).addVotes(100L, 1);
+        verify(perkRepository, never()).findById(any());
+        verify(perkRepository, never()).save(any());
     }
 
     @Test
     void testVote_Downvote() {
-        perk.setVotes(2);
-        when(perkRepository.findById(100L)).thenReturn(Optional.of(perk));
-        when(perkRepository.save(any(Perk.class))).thenReturn(perk);
+        when(perkRepository.addVotes(100L, -1)).thenReturn(Optional.of(1));
 
         perkService.vote(100L, false);
 
-        ArgumentCaptor<Perk> captor = ArgumentCaptor.forClass(Perk.class);
-        verify(perkRepository).save(captor.capture());
-
-        Perk savedPerk = captor.getValue();
-        assertEquals(1, savedPerk.getVotes());
+        verify(perkRepository).addVotes(100L, -1);
+        verify(perkRepository, never()).save(any());
     }
 
     @Test
     void testVote_PerkNotFound() {
-        when(perkRepository.findById(999L)).thenReturn(Optional.empty());
+        when(perkRepository.addVotes(999L, 1)).thenReturn(Optional.empty());
 
         perkService.vote(999L, true);
 
         verify(perkRepository, never()).save(any());
     }
+
+    @Test
+    void testCastVote_NewUpvote() {
+        when(perkRepository.existsById(100L)).thenReturn(true);
+        when(voteStore.get(1L, 100L)).thenReturn(null);
+
+        assertEquals(Optional.of(true), perkService.castVote(1L, 100L, true));
+
+        verify(voteStore).save(1L, 100L, true);
+        verify(perkRepository).addVotes(100L, 1);
+    }
+
+    @Test
+    void testCastVote_SameDirectionWithdraws() {
+        when(perkRepository.existsById(100L)).thenReturn(true);
+        when(voteStore.get(1L, 100L)).thenReturn(false);
+
+        assertEquals(Optional.empty(), perkService.castVote(1L, 100L, false));
+
+        verify(voteStore).save(1L, 100L, null);
+        verify(perkRepository).addVotes(100L, 1);
+    }
+
+    @Test
+    void testCastVote_OppositeDirectionFlips() {
+        when(perkRepository.existsById(100L)).thenReturn(true);
+        when(voteStore.get(1L, 100L)).thenReturn(true);
+        when(perkRepository.addVotes(100L, -2)).thenReturn(Optional.of(3));
+
+        assertEquals(Optional.of(false), perkService.castVote(1L, 100L, false));
+
+        verify(voteStore).save(1L, 100L, false);
+        verify(perkRepository).addVotes(100L, -2);
+        verify(metrics).voted(-2);
+    }
+
+    @Test
+    void testCastVote_PerkNotFound() {
+        when(perkRepository.existsById(999L)).thenReturn(false);
+
+        assertEquals(Optional.empty(), perkService.castVote(1L, 999L, true));
+
+        verify(voteStore, never()).save(any(), any(), any());
+        verify(perkRepository, never()).addVotes(anyLong(), anyInt());
+    }
+
+    @Test
+    void testCastVote_FailureEvictsCachedVotes() {
+        when(perkRepository.existsById(100L)).thenReturn(true);
+        when(voteStore.get(1L, 100L)).thenReturn(null);
+        when(perkRepository.addVotes(100L, 1)).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> perkService.castVote(1L, 100L, true));
+
+        verify(voteStore).evict(1L);
+    }
+
+    @Test
+    void testFindUserVotes_OnlyPerksOnPage() {
+        when(voteStore.votesFor(1L, List.of(100L))).thenReturn(Map.of(100L, true));
+
+        assertEquals(Map.of(100L, true), perkService.findUserVotes(1L, List.of(perk)));
+        assertTrue(perkService.findUserVotes(1L, List.of()).isEmpty());
+        verify(voteStore, times(1)).votesFor(any(), any());
+    }
+
+    @Test
+    void testApplyVoteDelta_ReturnsNewCount() {
+        when(perkRepository.addVotes(100L, 2)).thenReturn(Optional.of(7));
+
+        assertEquals(Optional.of(7), perkService.applyVoteDelta(100L, 2));
+        verify(leaderboard).applyDelta(100L, 2);
+        verify(secondLevelCache).evict(Perk.class, 100L);
+        verify(voteBroadcaster).changed(100L);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void testApplyVoteDelta_UnknownPerkChangesNothing() {
+        when(perkRepository.addVotes(999L, 1)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), perkService.applyVoteDelta(999L, 1));
+        verify(leaderboard, never()).applyDelta(anyLong(), anyInt());
+        verify(catalogVersion, never()).bump();
+        verify(voteBroadcaster, never()).changed(anyLong());
+        verify(metrics, never()).voted(anyInt());
+    }
+
+    @Test
+    void testApplyVoteDelta_BufferedWhenWriteBehindEnabled() {
+        when(voteWriteBuffer.isEnabled()).thenReturn(true);
+        when(leaderboard.votes(100L)).thenReturn(Optional.of(3));
+
+        assertEquals(Optional.empty(), perkService.applyVoteDelta(100L, -1));
+        verify(voteWriteBuffer).record(100L, -1);
+        verify(leaderboard).applyDelta(100L, -1);
+        verify(perkRepository, never()).addVotes(anyLong(), anyInt());
+        verifyNoInteractions(secondLevelCache);
+    }
+
+    @Test
+    void testApplyVoteDelta_BufferedOnlyOnCommit() {
+        when(voteWriteBuffer.isEnabled()).thenReturn(true);
+        when(leaderboard.votes(100L)).thenReturn(Optional.of(3));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            perkService.applyVoteDelta(100L, 1);
+            verify(voteWriteBuffer, never()).record(anyLong(), anyInt());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(voteWriteBuffer).record(100L, 1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testApplyVoteDelta_UnknownPerkNotBuffered() {
+        when(voteWriteBuffer.isEnabled()).thenReturn(true);
+        when(perkRepository.existsById(999L)).thenReturn(false);
+
+        assertEquals(Optional.empty(), perkService.applyVoteDelta(999L, 1));
+        verify(voteWriteBuffer, never()).record(anyLong(), anyInt());
+        verify(leaderboard, never()).applyDelta(anyLong(), anyInt());
+    }
+
+    @Test
+    void testApplyVoteDelta_RejectsInvalidDelta() {
+        assertThrows(IllegalArgumentException.class, () -> perkService.applyVoteDelta(100L, 3));
+        assertThrows(IllegalArgumentException.class, () -> perkService.applyVoteDelta(100L, 0));
+        verify(perkRepository, never()).addVotes(anyLong(), anyInt());
+        verify(leaderboard, never()).applyDelta(anyLong(), anyInt());
+    }
+
+    @Test
+    void testSearchPerks_KeywordUsesIndexOrder() {
+        Perk other = new Perk("Other", "Description", "Region", LocalDate.now().plusDays(5), membershipType, user);
+        other.setId(200L);
+        when(searchIndex.search("Gold", "title")).thenReturn(List.of(200L, 100L));
+        when(perkRepository.findByIdIn(List.of(200L, 100L))).thenReturn(List.of(perk, other));
+
+        List<Perk> result = perkService.searchPerks("Gold", "title");
+
+        assertEquals(List.of(other, perk), result);
+        verify(metrics).searched(true, true);
+        verify(perkRepository, never()).findByMembershipType_NameIgnoreCaseAndExpiryDateGreaterThanEqual(any(), any());
+        verify(perkRepository, never()).findByExpiryDateGreaterThanEqual(any());
+    }
+
+    @Test
+    void testSearchPerks_KeywordNoMatches() {
+        when(searchIndex.search(null, "nothing")).thenReturn(List.of());
+
+        List<Perk> result = perkService.searchPerks(null, "nothing");
+
+        assertTrue(result.isEmpty());
+        verify(perkRepository, never()).findByIdIn(any());
+    }
+
+    @Test
+    void testSearchPerks_MembershipOnly() {
+        when(perkRepository.findByMembershipType_NameIgnoreCaseAndExpiryDateGreaterThanEqual("Gold", LocalDate.now()))
+                .thenReturn(List.of(perk));
+
+        List<Perk> result = perkService.searchPerks("Gold", "");
+
+        assertEquals(List.of(perk), result);
+        verify(metrics).searched(false, true);
+        verify(searchIndex, never()).search(any(), any());
+    }
+
+    @Test
+    void testDeletePerk_RemovesFromIndex() {
+        perkService.deletePerk(100L);
+
+        verify(perkRepository).deleteById(100L);
+        verify(searchIndex).remove(100L);
+        verify(voteWriteBuffer).discard(100L);
+        verify(voteStore).removePerk(100L);
+        verify(leaderboard).remove(100L);
+        verify(expiryIndex).remove(100L);
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void testSweepExpired_DropsFromSearchAndLeaderboard() {
+        when(expiryIndex.expireBefore(LocalDate.now())).thenReturn(List.of(100L, 101L));
+
+        assertEquals(2, perkService.sweepExpired());
+
+        verify(searchIndex).remove(100L);
+        verify(searchIndex).remove(101L);
+        verify(leaderboard).remove(100L);
+        verify(leaderboard).remove(101L);
+        verify(perkRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void testFindExpiringSummaries_ReadsExpiryIndexUpToHorizon() {
+        LocalDate today = LocalDate.now();
+        PerkSummary soon = new PerkSummary(7L, "A", "D", "R", today.plusDays(1), 0, "Gold", "u");
+        when(voteWriteBuffer.overlaySummaries(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(expiryIndex.page(null, today, null, today.plusDays(3), 2))
+                .thenReturn(List.of(new PerkExpiryIndex.Entry(today.plusDays(1), 7L),
+                        new PerkExpiryIndex.Entry(today.plusDays(2), 8L)));
+        when(perkRepository.findSummariesByIdIn(List.of(7L))).thenReturn(List.of(soon));
+
+        CursorPage<PerkSummary> page = perkService.findExpiringSummaries(3, null, 1);
+
+        assertEquals(List.of(soon), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.EXPIRY, today.plusDays(1).toEpochDay(), 7L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.EXPIRY));
+    }
+
+    @Test
+    void testFindExpiringSummaries_RejectsNegativeDays() {
+        assertThrows(IllegalArgumentException.class, () -> perkService.findExpiringSummaries(-1, null, 10));
+        verifyNoInteractions(expiryIndex);
+    }
+
+    @Test
+    void testFindPerkSummaryPage_SelectsSummariesAndBuildsCursor() {
+        PerkSummary first = new PerkSummary(5L, "A", "D", "R", LocalDate.now(), 9, "Gold", "u");
+        PerkSummary second = new PerkSummary(4L, "B", "D", "R", LocalDate.now(), 7, "Gold", "u");
+        when(voteWriteBuffer.overlaySummaries(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(leaderboard.top(null, null, 2))
+                .thenReturn(List.of(new PerkLeaderboard.Entry(9, 5L), new PerkLeaderboard.Entry(7, 4L)));
+        when(perkRepository.findSummariesByIdIn(List.of(5L))).thenReturn(List.of(first));
+
+        CursorPage<PerkSummary> page = perkService.findPerkSummaryPage(null, "relevance", null, 1);
+
+        assertEquals(List.of(first), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 9, 5L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.VOTES));
+        verify(perkRepository, never()).findByIdIn(any());
+    }
+
+    @Test
+    void testFindSummaryPageIds_LoadsNoRows() {
+        when(leaderboard.top(null, null, 2))
+                .thenReturn(List.of(new PerkLeaderboard.Entry(9, 5L), new PerkLeaderboard.Entry(7, 4L)));
+
+        CursorPage<Long> page = perkService.findSummaryPageIds(null, "votes", null, 1);
+
+        assertEquals(List.of(5L), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 9, 5L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.VOTES));
+        verifyNoInteractions(perkRepository);
+    }
+
+    @Test
+    void testInsertedElsewhere_IndexesAndDropsCachedQueries() {
+        org.hibernate.Cache hibernateCache = mock(org.hibernate.Cache.class);
+        when(secondLevelCache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+
+        perkService.insertedElsewhere(perk);
+
+        verify(searchIndex).add(perk);
+        verify(leaderboard).add(perk);
+        verify(expiryIndex).add(perk);
+        verify(hibernateCache).evictQueryRegion("perk-queries");
+        verify(metrics).created();
+    }
+
+    @Test
+    void testVotesWrittenElsewhere_MovesOnLeaderboardAndEvicts() {
+        perkService.votesWrittenElsewhere(100L, -1);
+
+        verify(leaderboard).applyDelta(100L, -1);
+        verify(secondLevelCache).evict(Perk.class, 100L);
+        verify(voteBroadcaster).changed(100L);
+        verify(metrics).voted(-1);
+        verifyNoInteractions(perkRepository, voteWriteBuffer);
+    }
+
+    @Test
+    void testFindPerkSummaryPage_NextExpiryPage() {
+        LocalDate expiry = LocalDate.now().plusDays(3);
+        String cursor = new PerkCursor(PerkCursor.Sort.EXPIRY, expiry.toEpochDay(), 4L).encode();
+        when(voteWriteBuffer.overlaySummaries(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(expiryIndex.page(eq("Gold"), eq(LocalDate.now()), eq(PerkCursor.decode(cursor, PerkCursor.Sort.EXPIRY)),
+                isNull(), eq(11))).thenReturn(List.of());
+
+        CursorPage<PerkSummary> page = perkService.findPerkSummaryPage("Gold", "expiry", cursor, 10);
+
+        assertTrue(page.items().isEmpty());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testFindPerkPage_FirstPageByVotes() {
+        Perk second = new Perk("Second", "Description", "Region", LocalDate.now().plusDays(5), membershipType, user);
+        second.setId(99L);
+        Perk third = new Perk("Third", "Description", "Region", LocalDate.now().plusDays(5), membershipType, user);
+        third.setId(98L);
+        when(leaderboard.top(null, null, 3)).thenReturn(List.of(new PerkLeaderboard.Entry(0, 100L),
+                new PerkLeaderboard.Entry(0, 99L), new PerkLeaderboard.Entry(0, 98L)));
+        // The database returns the page in its own order; the leaderboard's wins.
+        when(perkRepository.findByIdIn(List.of(100L, 99L))).thenReturn(List.of(second, perk));
+
+        CursorPage<Perk> page = perkService.findPerkPage(null, null, "votes", null, 2);
+
+        assertEquals(List.of(perk, second), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 0, 99L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.VOTES));
+        verify(perkRepository, never()).findAll();
+    }
+
+    @Test
+    void testFindPerkPage_VotesSeeksPastCursorInLeaderboard() {
+        PerkCursor after = new PerkCursor(PerkCursor.Sort.VOTES, 5, 120L);
+        when(leaderboard.top("Gold", after, 21)).thenReturn(List.of(new PerkLeaderboard.Entry(0, 100L)));
+        when(perkRepository.findByIdIn(List.of(100L))).thenReturn(List.of(perk));
+
+        CursorPage<Perk> page = perkService.findPerkPage("Gold", null, "votes", after.encode(), 20);
+
+        assertEquals(List.of(perk), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testIndexCatalog_RebuildsFromActivePerks() {
+        when(perkRepository.findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                LocalDate.now(), 0L, Limit.of(PerkService.INDEX_PAGE_SIZE))).thenReturn(List.of(perk));
+
+        perkService.indexCatalog();
+
+        verify(searchIndex).rebuild(List.of());
+        verify(leaderboard).rebuild(List.of());
+        verify(expiryIndex).rebuild(List.of());
+        verify(searchIndex).add(perk);
+        verify(leaderboard).add(perk);
+        verify(expiryIndex).add(perk);
+        verify(perkRepository, never()).findAll();
+    }
+
+    @Test
+    void testIndexCatalog_ReadsActivePerksInPages() {
+        List<Perk> full = new ArrayList<>();
+        for (long id = 1; id <= PerkService.INDEX_PAGE_SIZE; id++) {
+            Perk active = new Perk("Perk " + id, "Description", "Region", LocalDate.now().plusDays(1), membershipType, user);
+            active.setId(id);
+            full.add(active);
+        }
+        when(perkRepository.findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                LocalDate.now(), 0L, Limit.of(PerkService.INDEX_PAGE_SIZE))).thenReturn(full);
+        when(perkRepository.findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                LocalDate.now(), (long) PerkService.INDEX_PAGE_SIZE, Limit.of(PerkService.INDEX_PAGE_SIZE)))
+                .thenReturn(List.of(perk));
+
+        perkService.indexCatalog();
+
+        verify(leaderboard, times(PerkService.INDEX_PAGE_SIZE + 1)).add(any(Perk.class));
+        verify(perkRepository, times(2)).findByExpiryDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+    }
+
+    @Test
+    void testFindPerkPage_SeeksPastCursor() {
+        PerkCursor after = new PerkCursor(PerkCursor.Sort.EXPIRY, LocalDate.of(2030, 1, 1).toEpochDay(), 7L);
+        String cursor = after.encode();
+        when(expiryIndex.page("Gold", LocalDate.now(), after, null, 21))
+                .thenReturn(List.of(new PerkExpiryIndex.Entry(perk.getExpiryDate(), 100L)));
+        when(perkRepository.findByIdIn(List.of(100L))).thenReturn(List.of(perk));
+
+        CursorPage<Perk> page = perkService.findPerkPage("Gold", "", "expiry", cursor, 20);
+
+        assertEquals(List.of(perk), page.items());
+        assertNull(page.nextCursor());
+        verify(perkRepository, never()).findAll();
+    }
+
+    @Test
+    void testFindPerkPage_KeywordVotesWalksLeaderboardForMatches() {
+        Perk popular = new Perk("Popular", "Description", "Region", LocalDate.now().plusDays(5), membershipType, user);
+        popular.setId(200L);
+        popular.setVotes(10);
+        when(searchIndex.search(null, "title")).thenReturn(List.of(100L, 200L));
+        when(leaderboard.top(null, null, PerkService.INDEX_WALK_SIZE)).thenReturn(List.of(
+                new PerkLeaderboard.Entry(10, 200L), new PerkLeaderboard.Entry(5, 300L), new PerkLeaderboard.Entry(0, 100L)));
+        when(perkRepository.findByIdIn(List.of(200L))).thenReturn(List.of(popular));
+
+        CursorPage<Perk> first = perkService.findPerkPage(null, "title", "votes", null, 1);
+
+        assertEquals(List.of(popular), first.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 10, 200L),
+                PerkCursor.decode(first.nextCursor(), PerkCursor.Sort.VOTES));
+        verify(perkRepository).findByIdIn(List.of(200L));
+        verify(perkRepository, never()).findByIdIn(List.of(100L, 200L));
+    }
+
+    @Test
+    void testFindPerkPage_SparseKeywordRanksMatchesWithoutWalking() {
+        Perk popular = new Perk("Popular", "Description", "Region", LocalDate.now().plusDays(5), membershipType, user);
+        popular.setId(200L);
+        popular.setVotes(10);
+        when(searchIndex.search(null, "title")).thenReturn(List.of(100L, 200L, 300L));
+        when(leaderboard.size()).thenReturn(1_000_000);
+        when(leaderboard.entry(100L)).thenReturn(Optional.of(new PerkLeaderboard.Entry(0, 100L)));
+        when(leaderboard.entry(200L)).thenReturn(Optional.of(new PerkLeaderboard.Entry(10, 200L)));
+        when(leaderboard.entry(300L)).thenReturn(Optional.of(new PerkLeaderboard.Entry(20, 300L)));
+        when(perkRepository.findByIdIn(List.of(200L))).thenReturn(List.of(popular));
+        PerkCursor after = new PerkCursor(PerkCursor.Sort.VOTES, 20, 300L);
+
+        CursorPage<Perk> page = perkService.findPerkPage(null, "title", "votes", after.encode(), 1);
+
+        assertEquals(List.of(popular), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.VOTES, 10, 200L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.VOTES));
+        verify(leaderboard, never()).top(any(), any(), anyInt());
+    }
+
+    @Test
+    void testWalkIsCheaper_OnlyForDenseMatches() {
+        assertTrue(PerkService.walkIsCheaper(500_000, 1_000_000, 21));
+        assertFalse(PerkService.walkIsCheaper(100, 1_000_000, 21));
+        assertFalse(PerkService.walkIsCheaper(0, 1_000_000, 21));
+    }
+
+    @Test
+    void testFindPerkPage_KeywordRelevanceLoadsOnlyThePage() {
+        when(searchIndex.search(null, "title")).thenReturn(List.of(300L, 200L, 100L, 400L));
+        when(perkRepository.findByIdIn(List.of(100L))).thenReturn(List.of(perk));
+        PerkCursor after = new PerkCursor(PerkCursor.Sort.RELEVANCE, 1, 200L);
+
+        CursorPage<Perk> page = perkService.findPerkPage(null, "title", "relevance", after.encode(), 1);
+
+        assertEquals(List.of(perk), page.items());
+        assertEquals(new PerkCursor(PerkCursor.Sort.RELEVANCE, 2, 100L),
+                PerkCursor.decode(page.nextCursor(), PerkCursor.Sort.RELEVANCE));
+        verify(perkRepository).findByIdIn(List.of(100L));
+        verifyNoMoreInteractions(perkRepository);
+        verify(metrics, never()).searched(anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void testFindPerkPage_RejectsExpiryCursorOutOfRange() {
+        String cursor = new PerkCursor(PerkCursor.Sort.EXPIRY, Long.MAX_VALUE, 7L).encode();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> perkService.findPerkPage(null, null, "expiry", cursor, 20));
+        verifyNoInteractions(expiryIndex);
+    }
+
+    @Test
+    void testFindPerkPage_RejectsCursorOfOtherSort() {
+        String cursor = new PerkCursor(PerkCursor.Sort.VOTES, 3, 7L).encode();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> perkService.findPerkPage(null, null, "expiry", cursor, 20));
+    }
 }
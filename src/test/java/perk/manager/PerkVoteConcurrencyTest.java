@@ -0,0 +1,107 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the vote path against the real H2 database with many voters on one hot perk.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PerkVoteConcurrencyTest {
+
+    private static final int VOTERS = 64;
+    private static final int VOTES_PER_VOTER = 25;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PerkRepository perkRepository;
+
+    @Autowired
+    private PerkLeaderboard leaderboard;
+
+    @Autowired
+    private PerkVoteStore voteStore;
+
+    private User user;
+    private Perk perk;
+
+    @BeforeEach
+    void setUp() {
+        user = userService.findByUsername("demo").orElseThrow();
+        perk = perkService.createPerk("Hot Perk", "Everyone votes on this one", "Canada",
+                "Scene+", user.getId(), LocalDate.now().plusDays(30));
+    }
+
+    @Test
+    void testParallelVoters_NoLostUpdates() throws Exception {
+        runVoters(voter -> 1);
+
+        assertEquals(VOTERS * VOTES_PER_VOTER, currentVotes());
+        assertEquals(Optional.of(currentVotes()), leaderboard.votes(perk.getId()));
+    }
+
+    @Test
+    void testParallelFlips_NoLostUpdates() throws Exception {
+        // Even voters flip upward, odd voters flip downward, so the deltas cancel out exactly.
+        runVoters(voter -> voter % 2 == 0 ? 2 : -2);
+
+        assertEquals(0, currentVotes());
+        assertEquals(Optional.of(0), leaderboard.votes(perk.getId()));
+    }
+
+    @Test
+    void testCastVote_StoredVoteIsReadBackOutsideTransaction() {
+        perkService.castVote(user.getId(), perk.getId(), false);
+        voteStore.evict(user.getId());
+
+        assertEquals(Map.of(perk.getId(), false), perkService.findUserVotes(user.getId(), List.of(perk)));
+    }
+
+    private void runVoters(java.util.function.IntUnaryOperator deltaForVoter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(VOTERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> voters = new ArrayList<>();
+        try {
+            for (int voter = 0; voter < VOTERS; voter++) {
+                int delta = deltaForVoter.applyAsInt(voter);
+                voters.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < VOTES_PER_VOTER; i++) {
+                        perkService.applyVoteDelta(perk.getId(), delta);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> voter : voters) {
+                voter.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int currentVotes() {
+        return perkRepository.findById(perk.getId()).orElseThrow().getVotes();
+    }
+}
@@ -0,0 +1,138 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerkVoteStoreTest {
+
+    @Mock
+    private PerkVoteRepository perkVoteRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PerkRepository perkRepository;
+
+    private PerkVoteStore store;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new PerkVoteStore(perkVoteRepository, userRepository, perkRepository, 2);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("voter");
+    }
+
+    private PerkVote vote(long perkId, boolean upvote) {
+        Perk perk = new Perk("Perk " + perkId, "Description", "Region", LocalDate.now().plusDays(5), null, user);
+        perk.setId(perkId);
+        return new PerkVote(user, perk, upvote);
+    }
+
+    private PerkVoteRepository.UserVote userVote(long perkId, boolean upvote) {
+        return new PerkVoteRepository.UserVote() {
+            @Override
+            public Long getPerkId() {
+                return perkId;
+            }
+
+            @Override
+            public boolean isUpvote() {
+                return upvote;
+            }
+        };
+    }
+
+    @Test
+    void testVotesFor_LoadsAllOfAUsersVotesOnce() {
+        when(perkVoteRepository.findVotesByUser(1L)).thenReturn(List.of(userVote(10L, true), userVote(12L, false)));
+
+        assertEquals(Map.of(10L, true), store.votesFor(1L, List.of(10L, 11L)));
+        assertEquals(Map.of(12L, false), store.votesFor(1L, List.of(11L, 12L, 13L)));
+
+        verify(perkVoteRepository).findVotesByUser(1L);
+        verifyNoMoreInteractions(perkVoteRepository);
+    }
+
+    @Test
+    void testSave_InsertsNewVoteAndCachesIt() {
+        when(perkVoteRepository.findByUser_IdAndPerk_Id(1L, 10L)).thenReturn(Optional.empty());
+        store.votesFor(1L, List.of(10L));
+
+        store.save(1L, 10L, true);
+
+        verify(perkVoteRepository).save(any(PerkVote.class));
+        assertTrue(store.get(1L, 10L));
+        verify(perkVoteRepository, times(1)).findVotesByUser(1L);
+    }
+
+    @Test
+    void testSave_FlipsExistingVote() {
+        PerkVote existing = vote(10L, true);
+        when(perkVoteRepository.findByUser_IdAndPerk_Id(1L, 10L)).thenReturn(Optional.of(existing));
+        when(perkVoteRepository.findVotesByUser(1L)).thenReturn(List.of(userVote(10L, true)));
+        store.votesFor(1L, List.of(10L));
+
+        store.save(1L, 10L, false);
+
+        assertFalse(existing.isUpvote());
+        verify(perkVoteRepository).save(existing);
+        assertFalse(store.get(1L, 10L));
+    }
+
+    @Test
+    void testSave_NullDeletesVote() {
+        PerkVote existing = vote(10L, true);
+        when(perkVoteRepository.findByUser_IdAndPerk_Id(1L, 10L)).thenReturn(Optional.of(existing));
+
+        store.save(1L, 10L, null);
+
+        verify(perkVoteRepository).delete(existing);
+        assertNull(store.get(1L, 10L));
+    }
+
+    @Test
+    void testVotesFor_EvictsLeastRecentlyUsedUserOfStripe() {
+        // With 2 users over 64 stripes each stripe holds one user; users 1 and 65 share a stripe.
+        store.votesFor(1L, List.of(10L));
+        store.votesFor(2L, List.of(10L));
+        store.votesFor(65L, List.of(10L));
+
+        assertEquals(2, store.size());
+        store.votesFor(1L, List.of(10L));
+        store.votesFor(2L, List.of(10L));
+
+        verify(perkVoteRepository, times(2)).findVotesByUser(1L);
+        verify(perkVoteRepository, times(1)).findVotesByUser(2L);
+    }
+
+    @Test
+    void testRemovePerk_ForgetsCachedVote() {
+        when(perkVoteRepository.findVotesByUser(1L)).thenReturn(List.of(userVote(10L, true)));
+        store.votesFor(1L, List.of(10L));
+
+        store.removePerk(10L);
+
+        assertNull(store.get(1L, 10L));
+        verify(perkVoteRepository, times(1)).findVotesByUser(1L);
+    }
+
+    @Test
+    void testLockFor_SameUserSameLock() {
+        assertSame(store.lockFor(7L), store.lockFor(7L));
+    }
+}
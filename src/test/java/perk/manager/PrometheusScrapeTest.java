@@ -0,0 +1,45 @@
+package perk.manager;
+
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a Prometheus scrape carries the application's own meters alongside
+ * the connection pool, Hibernate and repository metrics Actuator registers.
+ *
+ * Tests only get a simple registry unless they ask for the configured exporters, which
+ * makes this a separate application context, so it uses its own database.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricsdb",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class PrometheusScrapeTest {
+
+    @Autowired
+    private PrometheusMeterRegistry registry;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Test
+    void testScrape_IncludesApplicationAndPlatformMeters() {
+        perkService.searchPerks(null, "coffee");
+
+        String scrape = registry.scrape();
+
+        assertTrue(scrape.contains("perk_searches_total{application=\"perk-manager\",filter=\"keyword\"}"));
+        assertTrue(scrape.contains("perk_index_size{application=\"perk-manager\",index=\"leaderboard\"}"));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hibernate_second_level_cache_requests_total"));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket"));
+    }
+}
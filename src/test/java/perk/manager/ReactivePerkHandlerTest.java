@@ -0,0 +1,194 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+class ReactivePerkHandlerTest {
+
+    @Mock
+    private ReactivePerkStore store;
+
+    @Mock
+    private PerkService perkService;
+
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
+    @Mock
+    private VoteWriteBuffer voteWriteBuffer;
+
+    private WebTestClient client;
+    private MembershipType membershipType;
+    private PerkSummary first;
+    private PerkSummary second;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(voteWriteBuffer.overlaySummaries(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ReactivePerkHandler handler = new ReactivePerkHandler(store, perkService, membershipCatalog, voteWriteBuffer);
+        client = WebTestClient.bindToRouterFunction(handler.routes(request -> true)).build();
+
+        membershipType = new MembershipType();
+        membershipType.setId(1L);
+        membershipType.setName("Gold");
+
+        first = new PerkSummary(5L, "A", "D", "R", LocalDate.now().plusDays(1), 9, "Gold", "john_doe");
+        second = new PerkSummary(4L, "B", "D", "R", LocalDate.now().plusDays(2), 7, "Gold", "john_doe");
+    }
+
+    @Test
+    void testGetAllPerks_RowsInIndexOrder() {
+        when(perkService.findSummaryPageIds(null, "votes", null, 2))
+                .thenReturn(new CursorPage<>(List.of(5L, 4L), "next"));
+        when(store.findSummariesByIdIn(List.of(5L, 4L))).thenReturn(Flux.just(second, first));
+
+        client.get().uri("/api/perks?size=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo(5)
+                .jsonPath("$.items[1].id").isEqualTo(4)
+                .jsonPath("$.nextCursor").isEqualTo("next");
+    }
+
+    @Test
+    void testGetAllPerks_EmptyPageReadsNoRows() {
+        when(perkService.findSummaryPageIds(null, "expiry", null, PerkService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        client.get().uri("/api/perks?sortBy=expiry").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.items").isEmpty();
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void testGetAllPerks_BadCursor() {
+        when(perkService.findSummaryPageIds(null, "votes", "bad", PerkService.DEFAULT_PAGE_SIZE))
+                .thenThrow(new IllegalArgumentException("Malformed cursor"));
+
+        client.get().uri("/api/perks?cursor=bad").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Malformed cursor");
+    }
+
+    @Test
+    void testSearchPerks_StreamsNdjsonWithPendingVotes() {
+        when(store.findSummariesByMembership("Gold", LocalDate.now())).thenReturn(Flux.just(second, first));
+        when(voteWriteBuffer.pendingVotes(5L)).thenReturn(2);
+
+        client.get().uri("/api/perks/search?membershipType=Gold").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(PerkSummary.class)
+                .isEqualTo(List.of(second, first.plusVotes(2)));
+    }
+
+    @Test
+    void testSearchPerks_JsonArrayByDefault() {
+        when(store.findSummariesByMembership("Gold", LocalDate.now())).thenReturn(Flux.just(first));
+
+        client.get().uri("/api/perks/search?membershipType=Gold").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$[0].title").isEqualTo("A");
+    }
+
+    @Test
+    void testSearchPerks_MembershipTypeRequired() {
+        client.get().uri("/api/perks/search").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("membershipType is required");
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void testCreatePerk_InsertsAndTellsService() {
+        LocalDate expiryDate = LocalDate.now().plusDays(30);
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(store.findUsername(1L)).thenReturn(Mono.just("john_doe"));
+        when(store.insert("Title", null, "Region", expiryDate, 1L, 1L)).thenReturn(Mono.just(101L));
+
+        client.post().uri("/api/perks").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Title", "region", "Region", "membershipType", "Gold",
+                        "userId", 1, "expiryDate", expiryDate.toString()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(101)
+                .jsonPath("$.createdBy").isEqualTo("john_doe")
+                .jsonPath("$.votes").isEqualTo(0);
+        verify(perkService).insertedElsewhere(argThat(perk -> perk.getId() == 101L
+                && perk.getMembershipType() == membershipType && expiryDate.equals(perk.getExpiryDate())));
+    }
+
+    @Test
+    void testCreatePerk_MembershipTypeNotFound() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.empty());
+
+        client.post().uri("/api/perks").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Title", "membershipType", "Gold", "userId", 1,
+                        "expiryDate", LocalDate.now().toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Membership Type not found");
+        verifyNoInteractions(store, perkService);
+    }
+
+    @Test
+    void testCreatePerk_UserNotFound() {
+        when(membershipCatalog.findByName("Gold")).thenReturn(Optional.of(membershipType));
+        when(store.findUsername(9L)).thenReturn(Mono.empty());
+
+        client.post().uri("/api/perks").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("title", "Title", "membershipType", "Gold", "userId", 9,
+                        "expiryDate", LocalDate.now().toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("User not found");
+        verify(store, never()).insert(any(), any(), any(), any(), anyLong(), anyLong());
+        verifyNoInteractions(perkService);
+    }
+
+    @Test
+    void testVotePerk_WritesAndTellsService() {
+        when(store.addVotes(5L, -1)).thenReturn(Mono.just(8));
+
+        client.post().uri("/api/perks/5/vote?upvote=false").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.success").isEqualTo(true);
+        verify(perkService).votesWrittenElsewhere(5L, -1);
+    }
+
+    @Test
+    void testVotePerk_UpvoteRequired() {
+        client.post().uri("/api/perks/5/vote").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("upvote is required");
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void testRoutes_RejectUnauthenticated() {
+        ReactivePerkHandler handler = new ReactivePerkHandler(store, perkService, membershipCatalog, voteWriteBuffer);
+        WebTestClient anonymous = WebTestClient.bindToRouterFunction(handler.routes(request -> false)).build();
+
+        anonymous.get().uri("/api/perks").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Login required");
+        verifyNoInteractions(store, perkService);
+    }
+}
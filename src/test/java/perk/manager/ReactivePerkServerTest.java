@@ -0,0 +1,159 @@
+package perk.manager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reactive API next to the servlet application against one database, and checks
+ * that what is written through either side is seen by the other.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivedb",
+        "perk.reactive.enabled=true",
+        "perk.reactive.port=0",
+        "spring.jpa.show-sql=false"
+})
+class ReactivePerkServerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReactivePerkServer reactiveServer;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private long userId;
+    private String session;
+
+    /**
+     * Logs in as a user of this test's own, since the demo user's lookup may be answered
+     * from a query cache shared with other test contexts.
+     */
+    @BeforeEach
+    void logIn() throws Exception {
+        userId = userService.findByUsername("reactive_tester")
+                .orElseGet(() -> userService.registerUser("reactive_tester", "demo123")).getId();
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString("username=reactive_tester&password=demo123"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, response.statusCode());
+        session = response.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+    }
+
+    private HttpResponse<String> send(int toPort, String path, HttpRequest.BodyPublisher post) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + toPort + path))
+                .header("Cookie", session);
+        if (post != null) {
+            request.header("Content-Type", "application/json").POST(post);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> reactive(String path) throws Exception {
+        return send(reactiveServer.getPort(), path, null);
+    }
+
+    @Test
+    void testR2dbcUrl_FromInMemoryH2Url() {
+        assertEquals("r2dbc:h2:mem:///perkdb", ReactivePerkServer.r2dbcUrl("jdbc:h2:mem:perkdb;DB_CLOSE_DELAY=-1"));
+        assertThrows(IllegalArgumentException.class, () -> ReactivePerkServer.r2dbcUrl("jdbc:h2:file:./perkdb"));
+    }
+
+    @Test
+    void testRequiresServletSession() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + reactiveServer.getPort() + "/api/perks")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(401, response.statusCode());
+    }
+
+    @Test
+    void testPage_SameAsServletApi() throws Exception {
+        HttpResponse<String> reactive = reactive("/api/perks?size=3&sortBy=expiry");
+        HttpResponse<String> servlet = send(port, "/api/perks?size=3&sortBy=expiry", null);
+
+        assertEquals(200, reactive.statusCode());
+        assertEquals(objectMapper.readTree(servlet.body()), objectMapper.readTree(reactive.body()));
+    }
+
+    @Test
+    void testCreateAndVote_SeenByServletSide() throws Exception {
+        // Cache the membership's search and later read the perk through the second-level cache.
+        int before = perkService.searchSummariesByMembership("CAA").size();
+
+        HttpResponse<String> created = send(reactiveServer.getPort(), "/api/perks",
+                HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of(
+                        "title", "Reactive roadside assistance",
+                        "region", "Ontario",
+                        "membershipType", "CAA",
+                        "userId", userId,
+                        "expiryDate", LocalDate.now().plusDays(30).toString()))));
+        assertEquals(201, created.statusCode(), created.body());
+        long id = objectMapper.readTree(created.body()).get("id").asLong();
+
+        assertEquals(before + 1, perkService.searchSummariesByMembership("CAA").size());
+        assertEquals(id, perkService.searchPerks(null, "roadside").get(0).getId());
+        assertEquals(0, perkService.findPerk(id).orElseThrow().getVotes());
+
+        assertEquals(200, send(reactiveServer.getPort(), "/api/perks/" + id + "/vote?upvote=true",
+                HttpRequest.BodyPublishers.noBody()).statusCode());
+        assertEquals(1, perkService.findPerk(id).orElseThrow().getVotes());
+
+        Perk viaHibernate = perkService.createPerk("Servlet perk", null, null, "CAA", userId, LocalDate.now().plusDays(5));
+        assertNotEquals(id, viaHibernate.getId());
+
+        JsonNode streamed = objectMapper.readTree(reactive("/api/perks/search?membershipType=caa").body());
+        assertEquals(before + 2, streamed.size());
+    }
+
+    @Test
+    void testSearch_StreamsEveryChunkInIdOrder() throws Exception {
+        List<PerkDraft> drafts = new ArrayList<>();
+        for (int i = 0; i < ReactivePerkStore.SEARCH_CHUNK * 2 + 1; i++) {
+            drafts.add(new PerkDraft("Bulk " + i, null, null, "PC Optimum", userId, LocalDate.now().plusDays(20)));
+        }
+        perkService.createPerks(drafts);
+        List<PerkSummary> expected = perkService.searchSummariesByMembership("PC Optimum");
+
+        JsonNode streamed = objectMapper.readTree(reactive("/api/perks/search?membershipType=PC%20Optimum").body());
+
+        assertEquals(expected.size(), streamed.size());
+        long previous = 0;
+        for (JsonNode perk : streamed) {
+            assertTrue(perk.get("id").asLong() > previous);
+            previous = perk.get("id").asLong();
+        }
+    }
+}
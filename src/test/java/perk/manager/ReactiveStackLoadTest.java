@@ -0,0 +1,225 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the servlet API with its reactive variant on the same application and catalog.
+ *
+ * First each stack is saturated with page requests at high concurrency. Then slow clients,
+ * reading a large search response 4 KB every 50 ms through a small receive buffer, hold
+ * connections open on one stack while a few fast clients page through it, to show how
+ * well each stack keeps serving others while writes are blocked on slow readers.
+ *
+ * Excluded from the normal build; run with {@code mvn test -Ploadtest
+ * -Dtest=ReactiveStackLoadTest}. Levels and durations are system properties, e.g.
+ * {@code -Dloadtest.concurrency=1000,5000 -Dloadtest.slow-clients=500 -Dloadtest.duration=60}.
+ */
+@Tag("loadtest")
+@ActiveProfiles("synthetic")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactiveloaddb",
+        "perk.reactive.enabled=true",
+        "perk.reactive.port=0",
+        "perk.synthetic.perks=50000",
+        "perk.synthetic.users=200",
+        "perk.synthetic.votes=20000",
+        "server.tomcat.max-connections=12000",
+        "server.tomcat.accept-count=12000",
+        "spring.jpa.show-sql=false",
+        "logging.level.perk.manager=INFO",
+        "logging.level.org.springframework.security=INFO",
+        // Slow clients are disconnected mid-response at the end of each run.
+        "logging.level.org.springframework.web.servlet.mvc.support.DefaultHandlerExceptionResolver=ERROR"
+})
+class ReactiveStackLoadTest {
+
+    private static final int FAST_CLIENTS = 20;
+    private static final int SLOW_READ_BYTES = 4096;
+    private static final Duration SLOW_READ_INTERVAL = Duration.ofMillis(50);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReactivePerkServer reactiveServer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static int[] concurrency() {
+        return Arrays.stream(System.getProperty("loadtest.concurrency", "1000,5000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+    }
+
+    private static Duration seconds(String name, double defaultValue) {
+        return Duration.ofMillis((long) (Double.parseDouble(System.getProperty("loadtest." + name,
+                String.valueOf(defaultValue))) * 1000));
+    }
+
+    private static HttpClient client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    private String session() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client().send(LoadTestHarness.request("http://localhost:" + port + "/login")
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "username=" + SyntheticDataGenerator.USERNAME_PREFIX + "1&password=demo123"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, response.statusCode(), "login failed");
+        return response.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+    }
+
+    /**
+     * @return the membership type with the most active perks, whose search response is the largest
+     */
+    private String largestMembership() {
+        return jdbcTemplate.queryForObject("select m.name from perk p join membership_type m " +
+                "on m.id = p.membership_type_id where p.expiry_date >= current_date " +
+                "group by m.name order by count(*) desc limit 1", String.class);
+    }
+
+    /**
+     * Clients that each request a search and read its response no faster than 4 KB every
+     * 50 ms, starting over when a response ends, until closed.
+     */
+    private static final class SlowClients implements AutoCloseable {
+
+        private final List<SocketChannel> channels = new ArrayList<>();
+        private final ScheduledExecutorService reader = Executors.newSingleThreadScheduledExecutor();
+        private final ByteBuffer buffer = ByteBuffer.allocate(SLOW_READ_BYTES);
+        private final AtomicLong responses = new AtomicLong();
+        private final int port;
+        private final byte[] request;
+
+        SlowClients(int count, int port, String path, String session) throws IOException {
+            this.port = port;
+            this.request = ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nCookie: " + session +
+                    "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < count; i++) {
+                channels.add(open());
+            }
+            reader.scheduleAtFixedRate(this::readAll, 0, SLOW_READ_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private SocketChannel open() throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, SLOW_READ_BYTES);
+            channel.connect(new InetSocketAddress("localhost", port));
+            channel.write(ByteBuffer.wrap(request));
+            channel.configureBlocking(false);
+            return channel;
+        }
+
+        private void readAll() {
+            for (int i = 0; i < channels.size(); i++) {
+                try {
+                    buffer.clear();
+                    if (channels.get(i).read(buffer) < 0) {
+                        channels.get(i).close();
+                        responses.incrementAndGet();
+                        channels.set(i, open());
+                    }
+                } catch (IOException e) {
+                    // The reader goes on with the other clients; a dropped one stays closed.
+                }
+            }
+        }
+
+        long completedResponses() {
+            return responses.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.shutdownNow();
+            for (SocketChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    @Test
+    void testServletAndReactiveStacks_SaturatedAndWithSlowClients() throws Exception {
+        String session = session();
+        Map<String, Integer> stacks = new LinkedHashMap<>();
+        stacks.put("servlet", port);
+        stacks.put("reactive", reactiveServer.getPort());
+        Duration duration = seconds("duration", 30);
+        Predicate<HttpResponse<Void>> ok = response -> response.statusCode() == 200;
+        Map<String, LoadTestHarness.Result> results = new LinkedHashMap<>();
+        Map<String, Double> throughput = new LinkedHashMap<>();
+
+        int[] levels = concurrency();
+        for (Map.Entry<String, Integer> stack : stacks.entrySet()) {
+            LoadTestHarness.RequestFactory page = (connection, step) ->
+                    LoadTestHarness.request("http://localhost:" + stack.getValue() + "/api/perks?size=20")
+                            .header("Cookie", session).build();
+            new LoadTestHarness(client()).saturate(levels[0], seconds("warmup", 10), page, ok);
+            for (int level : levels) {
+                LoadTestHarness.Result result = new LoadTestHarness(client()).saturate(level, duration, page, ok);
+                String name = stack.getKey() + "-" + level;
+                results.put(name, result);
+                throughput.put(name, result.latency().getTotalCount() / (duration.toMillis() / 1000.0));
+            }
+        }
+
+        int slowClients = Integer.parseInt(System.getProperty("loadtest.slow-clients", "300"));
+        String search = "/api/perks/search?membershipType=" + URLEncoder.encode(largestMembership(), StandardCharsets.UTF_8);
+        for (Map.Entry<String, Integer> stack : stacks.entrySet()) {
+            LoadTestHarness.RequestFactory page = (connection, step) ->
+                    LoadTestHarness.request("http://localhost:" + stack.getValue() + "/api/perks?size=20")
+                            .header("Cookie", session).build();
+            try (SlowClients slow = new SlowClients(slowClients, stack.getValue(), search, session)) {
+                // Let the slow clients fill their buffers and stall the server's writes first.
+                Thread.sleep(seconds("slow-start", 5).toMillis());
+                String name = stack.getKey() + "-slow-" + slowClients;
+                LoadTestHarness.Result result = new LoadTestHarness(client()).saturate(FAST_CLIENTS, duration, page, ok);
+                results.put(name, result);
+                throughput.put(name, result.latency().getTotalCount() / (duration.toMillis() / 1000.0));
+                System.out.printf("%s: slow clients completed %d search responses%n", name, slow.completedResponses());
+            }
+        }
+
+        LoadTestHarness.report(results, System.out);
+        throughput.forEach((name, perSecond) -> System.out.printf("%-22s %10.0f requests/s%n", name, perSecond));
+        LoadTestHarness.write(results, Path.of("target", "loadtest", "reactive"));
+        results.forEach((name, result) ->
+                assertTrue(result.latency().getTotalCount() > 0, name + " completed no requests"));
+    }
+}
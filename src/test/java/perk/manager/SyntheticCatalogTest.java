@@ -0,0 +1,99 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticCatalogTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+    private static final Instant NOW = Instant.parse("2025-01-15T12:00:00Z");
+
+    private SyntheticCatalog catalog(long seed) {
+        return new SyntheticCatalog(seed, 10_000, 500, 20, 20_000, 1.1, TODAY, NOW);
+    }
+
+    @Test
+    void testSameSeedGivesSameCatalog() {
+        SyntheticCatalog first = catalog(7);
+        SyntheticCatalog second = catalog(7);
+        SyntheticCatalog other = catalog(8);
+
+        assertEquals(first.perk(1234), second.perk(1234));
+        assertEquals(first.userVotes(), second.userVotes());
+        assertEquals(first.votePerk(100), second.votePerk(100));
+        assertNotEquals(first.perk(1234), other.perk(1234));
+    }
+
+    @Test
+    void testVotesAreSkewedTowardsFewPerks() {
+        SyntheticCatalog catalog = catalog(42);
+        int[] votes = new int[10_000];
+        for (int i = 0; i < votes.length; i++) {
+            votes[i] = Math.max(0, catalog.perk(i).votes());
+        }
+        Arrays.sort(votes);
+        long total = Arrays.stream(votes).asLongStream().sum();
+        long topPercent = Arrays.stream(votes, votes.length - 100, votes.length).asLongStream().sum();
+
+        assertTrue(topPercent > total / 5, "top 1% of perks should hold over 20 times their share of votes");
+        assertTrue(votes[votes.length / 2] <= 1, "the median perk should have almost no votes");
+    }
+
+    @Test
+    void testPerksStayWithinColumnsAndMostlyInHomeRegion() {
+        SyntheticCatalog catalog = catalog(42);
+        Map<Integer, Map<String, Integer>> regionsByMembership = new HashMap<>();
+        int expired = 0;
+        for (int i = 0; i < 10_000; i++) {
+            SyntheticCatalog.PerkRow perk = catalog.perk(i);
+            assertTrue(perk.description().length() >= 12 && perk.description().length() <= 255);
+            assertTrue(perk.title().length() <= 255);
+            assertTrue(perk.membership() >= 0 && perk.membership() < 20);
+            assertTrue(perk.creator() >= 0 && perk.creator() < 500);
+            assertFalse(perk.lastModified().isAfter(NOW));
+            if (!perk.expiryDate().isAfter(TODAY)) {
+                expired++;
+            }
+            regionsByMembership.computeIfAbsent(perk.membership(), m -> new HashMap<>())
+                    .merge(perk.region(), 1, Integer::sum);
+        }
+
+        assertTrue(expired > 300 && expired < 700, "about 5% of perks should be expired");
+        Map<String, Integer> popular = regionsByMembership.get(0);
+        int perksOfPopular = popular.values().stream().mapToInt(Integer::intValue).sum();
+        assertTrue(popular.values().stream().mapToInt(Integer::intValue).max().orElseThrow() > perksOfPopular / 2);
+    }
+
+    @Test
+    void testUserVotesAreUniquePerUserAndPerk() {
+        SyntheticCatalog catalog = catalog(42);
+        Set<Long> seen = new HashSet<>();
+        int down = 0;
+        for (int i = 0; i < catalog.userVotes(); i++) {
+            assertTrue(seen.add((long) catalog.voteUser(i) << 32 | catalog.votePerk(i)));
+            down += catalog.voteUp(i) ? 0 : 1;
+        }
+
+        assertEquals(20_000, catalog.userVotes());
+        assertTrue(down > 1_500 && down < 2_500, "about 10% of votes should be downvotes");
+    }
+
+    @Test
+    void testMembershipsOfAreDistinct() {
+        SyntheticCatalog catalog = catalog(42);
+        for (int user = 0; user < 500; user++) {
+            Set<Integer> held = new HashSet<>();
+            catalog.membershipsOf(user, membership -> assertTrue(held.add(membership)));
+            assertTrue(held.size() >= 1 && held.size() <= 3);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the synthetic profile loads the configured data next to the demo data,
+ * and that perks and users created afterwards through Hibernate do not collide with it.
+ * It uses its own database, since its context lives alongside the shared test context.
+ */
+@ActiveProfiles("synthetic")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:syntheticdb",
+        "perk.synthetic.users=50",
+        "perk.synthetic.perks=2000",
+        "perk.synthetic.memberships=15",
+        "perk.synthetic.votes=1000",
+        "perk.synthetic.batch-size=300"
+})
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private PerkService perkService;
+
+    @Autowired
+    private UserService userService;
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private int syntheticPerks() {
+        return count("select count(*) from perk where created_by_id in " +
+                "(select id from users where username like 'synthetic-%')");
+    }
+
+    @Test
+    void testGenerate_LoadsConfiguredData() {
+        assertEquals(50, count("select count(*) from users where username like 'synthetic-%'"));
+        assertEquals(15, count("select count(*) from membership_type"));
+        assertEquals(2000, syntheticPerks());
+        assertEquals(1000, count("select count(*) from perk_vote"));
+        assertTrue(count("select count(*) from user_membership") >= 50);
+        assertTrue(userService.verifyPassword("demo123",
+                userService.findByUsername("synthetic-7").orElseThrow().getPassword()));
+    }
+
+    @Test
+    void testGenerate_SkipsWhenAlreadyGenerated() {
+        int perks = count("select count(*) from perk");
+
+        generator.generate();
+
+        assertEquals(perks, count("select count(*) from perk"));
+    }
+
+    @Test
+    void testGenerate_LaterInsertsDoNotCollide() {
+        int perks = count("select count(*) from perk");
+        User user = userService.registerUser("after-synthetic", "secret123");
+        List<PerkDraft> drafts = new ArrayList<>();
+        // More than two blocks of perk_seq, so Hibernate has to fetch fresh IDs after the synthetic ones.
+        for (int i = 0; i < 120; i++) {
+            drafts.add(new PerkDraft("After synthetic " + i, "Created through Hibernate", "Canada", "Scene+",
+                    user.getId(), LocalDate.now().plusDays(10)));
+        }
+
+        BulkPerkResult result = perkService.createPerks(drafts);
+
+        assertEquals(120, result.created());
+        assertEquals(perks + 120, count("select count(*) from perk"));
+
+        result.items().forEach(item -> perkService.deletePerk(item.id()));
+        jdbcTemplate.update("delete from users where id = ?", user.getId());
+    }
+}
@@ -0,0 +1,109 @@
+package perk.manager;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the dashboard throughput Tomcat sustains on its platform thread pool and on
+ * virtual threads, with 1,000 and 10,000 clients each keeping a request in flight.
+ *
+ * Excluded from the normal build; run with {@code mvn test -Ploadtest
+ * -Dtest=ThreadingModeLoadTest}. Each mode starts its own application on a random
+ * port, and the virtual mode keeps its connection pool below the carriers. The
+ * levels and durations are system properties, e.g. {@code -Dloadtest.concurrency=1000,5000
+ * -Dloadtest.duration=60}. Client and server share this process, so 10,000
+ * connections need an open file limit above 20,000.
+ */
+@Tag("loadtest")
+class ThreadingModeLoadTest {
+
+    private static int[] concurrency() {
+        return Arrays.stream(System.getProperty("loadtest.concurrency", "1000,10000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+    }
+
+    private static Duration seconds(String name, double defaultValue) {
+        return Duration.ofMillis((long) (Double.parseDouble(System.getProperty("loadtest." + name,
+                String.valueOf(defaultValue))) * 1000));
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, int maxConnections) {
+        String mode = virtual ? "virtual" : "platform";
+        return new SpringApplicationBuilder(ServingWebContentApplication.class)
+                .profiles("synthetic")
+                .run("--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--perk.threads.virtual.limit-pool=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:threading-" + mode,
+                        "--server.tomcat.max-connections=" + maxConnections,
+                        "--server.tomcat.accept-count=" + maxConnections,
+                        "--perk.synthetic.perks=20000",
+                        "--perk.synthetic.users=200",
+                        "--perk.synthetic.votes=20000",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.perk.manager=INFO",
+                        "--logging.level.org.springframework.security=INFO");
+    }
+
+    /**
+     * Measures one threading mode at every concurrency level, after a warmup at the lowest.
+     */
+    private void measure(boolean virtual, int[] levels, Map<String, LoadTestHarness.Result> results,
+                         Map<String, Double> throughput) {
+        int maxConnections = Arrays.stream(levels).max().orElseThrow() + 1_000;
+        Duration duration = seconds("duration", 30);
+        Predicate<HttpResponse<Void>> ok = response -> response.statusCode() == 200;
+        try (ConfigurableApplicationContext context = start(virtual, maxConnections)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestHarness.RequestFactory dashboard = (connection, step) ->
+                    LoadTestHarness.request("http://localhost:" + port + "/perks/dashboard").build();
+
+            new LoadTestHarness(client()).saturate(levels[0], seconds("warmup", 10), dashboard, ok);
+            for (int level : levels) {
+                // A fresh client per level, so connections left open by the previous level are not reused.
+                LoadTestHarness.Result result = new LoadTestHarness(client()).saturate(level, duration, dashboard, ok);
+                String name = (virtual ? "virtual-" : "platform-") + level;
+                results.put(name, result);
+                throughput.put(name, result.latency().getTotalCount() / (duration.toMillis() / 1000.0));
+            }
+        }
+    }
+
+    private static HttpClient client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Test
+    void testDashboardThroughput_PlatformAndVirtualThreads() throws Exception {
+        int[] levels = concurrency();
+        Map<String, LoadTestHarness.Result> results = new LinkedHashMap<>();
+        Map<String, Double> throughput = new LinkedHashMap<>();
+
+        measure(false, levels, results, throughput);
+        measure(true, levels, results, throughput);
+
+        LoadTestHarness.report(results, System.out);
+        throughput.forEach((name, perSecond) -> System.out.printf("%-18s %10.0f requests/s%n", name, perSecond));
+        LoadTestHarness.write(results, Path.of("target", "loadtest", "threading"));
+        results.forEach((name, result) ->
+                assertTrue(result.latency().getTotalCount() > 0, name + " completed no requests"));
+    }
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class UserControllerTest {
@@ -109,6 +110,29 @@ class UserControllerTest {
         verify(userService, never()).registerUser(anyString(), anyString());
     }
 
+    @Test
+    void testRegister_HasherBusy() {
+        jakarta.servlet.http.HttpServletRequest request = mock(HttpServletRequest.class);
+        when(userService.findByUsername("newuser")).thenReturn(Optional.empty());
+        when(userService.registerUser("newuser", "password")).thenThrow(new PasswordHasher.BusyException());
+
+        assertThrows(PasswordHasher.BusyException.class,
+                () -> userController.register("newuser", "password", "email@test.com", model, request));
+    }
+
+    @Test
+    void testRegister_LoginRefusedByBusyHasher() throws Exception {
+        jakarta.servlet.http.HttpServletRequest request = mock(HttpServletRequest.class);
+        when(userService.findByUsername("newuser")).thenReturn(Optional.empty());
+        when(userService.registerUser("newuser", "password")).thenReturn(user);
+        doThrow(new jakarta.servlet.ServletException("busy", new PasswordHasher.BusyException()))
+                .when(request).login("newuser", "password");
+
+        String viewName = userController.register("newuser", "password", "email@test.com", model, request);
+
+        assertEquals("redirect:/login", viewName);
+    }
+
     @Test
     void testRegister_Exception() {
         jakarta.servlet.http.HttpServletRequest request = mock(HttpServletRequest.class);
@@ -123,7 +147,7 @@ class UserControllerTest {
 
     @Test
     void testProfile_WhenUserLoggedIn() {
-        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userService.findProfile("testuser")).thenReturn(Optional.of(user));
 
         String viewName = userController.profile(principal, model);
 
@@ -21,6 +21,9 @@ class UserMembershipServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MembershipCatalog membershipCatalog;
+
     @InjectMocks
     private UserMembershipService userMembershipService;
 
@@ -71,14 +74,12 @@ class UserMembershipServiceTest {
 
     @Test
     void testGetMembershipsForUser() {
-        UserMembership um1 = new UserMembership(user, membership);
         MembershipType membership2 = new MembershipType();
         membership2.setId(2L);
         membership2.setName("Pc optimum");
-        UserMembership um2 = new UserMembership(user, membership2);
-
-        user.getMemberships().add(um1);
-        user.getMemberships().add(um2);
+        when(userMembershipRepository.findMembershipTypeIdsByUserId(1L)).thenReturn(List.of(1L, 2L));
+        when(membershipCatalog.findById(1L)).thenReturn(Optional.of(membership));
+        when(membershipCatalog.findById(2L)).thenReturn(Optional.of(membership2));
 
         List<MembershipType> memberships = userMembershipService.getMembershipsForUser(user);
 
@@ -129,12 +130,12 @@ class UserMembershipServiceTest {
         List<MembershipType> memberships = userMembershipService.getMembershipsForUser(null);
 
         assertEquals(0, memberships.size());
-        verify(userMembershipRepository, never()).findAll();
+        verify(userMembershipRepository, never()).findMembershipTypeIdsByUserId(anyLong());
     }
 
     @Test
     void testGetMembershipsForUser_NoMemberships() {
-        when(userMembershipRepository.findAll()).thenReturn(List.of());
+        when(userMembershipRepository.findMembershipTypeIdsByUserId(1L)).thenReturn(List.of());
 
         List<MembershipType> memberships = userMembershipService.getMembershipsForUser(user);
 
@@ -0,0 +1,81 @@
+package perk.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPrincipalCacheTest {
+
+    private UserPrincipalCache cache;
+    private AtomicInteger loads;
+    private Function<String, Optional<String>> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserPrincipalCache(2);
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            return username.startsWith("missing") ? Optional.empty() : Optional.of("hash-" + username);
+        };
+    }
+
+    @Test
+    void testGet_LoadsOnceThenHits() {
+        Optional<UserDetails> first = cache.get("alice", loader);
+        Optional<UserDetails> second = cache.get("alice", loader);
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertEquals("hash-alice", second.get().getPassword());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_ReturnsFreshPrincipalEachTime() {
+        UserDetails first = cache.get("alice", loader).orElseThrow();
+        UserDetails second = cache.get("alice", loader).orElseThrow();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void testGet_UnknownUserNotCached() {
+        assertTrue(cache.get("missing", loader).isEmpty());
+        assertTrue(cache.get("missing", loader).isEmpty());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsed() {
+        cache.get("alice", loader);
+        cache.get("bob", loader);
+        cache.get("alice", loader);
+        cache.get("carol", loader);
+
+        assertEquals(2, cache.size());
+
+        loads.set(0);
+        cache.get("alice", loader);
+        assertEquals(0, loads.get());
+        cache.get("bob", loader);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidate() {
+        cache.get("alice", loader);
+        cache.invalidate("alice");
+        cache.get("alice", loader);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -67,6 +67,18 @@ class UserRestControllerTest {
         assertEquals("testuser", body.get("username"));
     }
 
+    @Test
+    void testRegister_HasherBusy() {
+        when(userService.findByUsername("newuser")).thenReturn(Optional.empty());
+        when(userService.registerUser("newuser", "password123")).thenThrow(new PasswordHasher.BusyException());
+
+        ResponseEntity<?> response = userRestController.register(Map.of("username", "newuser", "password", "password123"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(PasswordHasher.RETRY_AFTER_SECONDS, response.getHeaders().getFirst("Retry-After"));
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("error"));
+    }
+
     @Test
     void testRegister_UsernameExists() {
         Map<String, String> payload = Map.of(
@@ -118,7 +130,7 @@ class UserRestControllerTest {
         ResponseEntity<?> response = userRestController.addMembership(1L, payload);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        assertEquals(userMembership, response.getBody());
+        assertEquals(UserMembershipSummary.from(userMembership), response.getBody());
     }
 
     @Test
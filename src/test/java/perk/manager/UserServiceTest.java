@@ -8,7 +8,6 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +21,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserPrincipalCache principalCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -56,6 +58,7 @@ class UserServiceTest {
         User saved = captor.getValue();
         assertEquals("john_doe", saved.getUsername());
         assertEquals("hashed_password", saved.getPassword());
+        verify(principalCache).invalidate("john_doe");
     }
 
     @Test
@@ -97,16 +100,28 @@ class UserServiceTest {
         user2.setId(2L);
         user2.setUsername("jane_doe");
 
-        when(userRepository.findAll()).thenReturn(List.of(user, user2));
+        when(userRepository.findByUsername("jane_doe")).thenReturn(Optional.of(user2));
 
         Optional<User> result = userService.findByUsername("jane_doe");
         assertTrue(result.isPresent());
         assertEquals(user2, result.get());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void testUpdatePasswordHash_SavesAndDropsCachedPrincipal() {
+        when(userRepository.findByUsername("john_doe")).thenReturn(Optional.of(user));
+
+        userService.updatePasswordHash("john_doe", "rehashed_password");
+
+        assertEquals("rehashed_password", user.getPassword());
+        verify(userRepository).save(user);
+        verify(principalCache).invalidate("john_doe");
     }
 
     @Test
     void testFindByUsername_NotFound() {
-        when(userRepository.findAll()).thenReturn(List.of(user));
+        when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
 
         Optional<User> result = userService.findByUsername("nonexistent");
         assertFalse(result.isPresent());
@@ -0,0 +1,42 @@
+package perk.manager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTest {
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(10);
+    }
+
+    @Test
+    void testLimitPool_KeepsOneCarrierFree() {
+        VirtualThreadConfig.limitPool(dataSource, 4);
+
+        assertEquals(3, dataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    void testLimitPool_SingleCarrierKeepsOneConnection() {
+        dataSource.setMinimumIdle(5);
+
+        VirtualThreadConfig.limitPool(dataSource, 1);
+
+        assertEquals(1, dataSource.getMaximumPoolSize());
+        assertEquals(1, dataSource.getMinimumIdle());
+    }
+
+    @Test
+    void testLimitPool_SmallerPoolUnchanged() {
+        VirtualThreadConfig.limitPool(dataSource, 16);
+
+        assertEquals(10, dataSource.getMaximumPoolSize());
+    }
+}
@@ -0,0 +1,218 @@
+package perk.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VoteBroadcasterTest {
+
+    @Mock
+    private PerkLeaderboard leaderboard;
+
+    private VoteBroadcaster broadcaster;
+
+    /**
+     * Records what each send writes, one string per flush.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        final BlockingQueue<String> flushes = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            flushes.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        broadcaster = new VoteBroadcaster(leaderboard, 256, 1, 2, 100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void testBroadcast_OneEventPerChangedPerk() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+        when(leaderboard.votes(1L)).thenReturn(Optional.of(5));
+        when(leaderboard.votes(2L)).thenReturn(Optional.of(-1));
+
+        broadcaster.changed(1L);
+        broadcaster.changed(1L);
+        broadcaster.changed(2L);
+        broadcaster.changed(1L);
+        broadcaster.broadcast();
+
+        String flush = emitter.flushes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(flush);
+        assertTrue(flush.contains("event:perk-votes-1\ndata:5 votes\n\n"));
+        assertTrue(flush.contains("event:perk-votes-2\ndata:-1 votes\n\n"));
+        verify(leaderboard, times(1)).votes(1L);
+
+        broadcaster.broadcast();
+        assertNull(emitter.flushes.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testBroadcast_EveryStreamGetsTheCounts() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        broadcaster.subscribe(first);
+        broadcaster.subscribe(second);
+        when(leaderboard.votes(7L)).thenReturn(Optional.of(3));
+
+        broadcaster.changed(7L);
+        broadcaster.broadcast();
+
+        assertEquals("event:perk-votes-7\ndata:3 votes\n\n", first.flushes.poll(5, TimeUnit.SECONDS));
+        assertEquals("event:perk-votes-7\ndata:3 votes\n\n", second.flushes.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testChanged_IgnoredWithoutSubscribers() {
+        broadcaster.changed(1L);
+        broadcaster.subscribe(new RecordingEmitter());
+
+        broadcaster.broadcast();
+
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    void testBroadcast_SkipsPerksOffLeaderboard() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+        when(leaderboard.votes(3L)).thenReturn(Optional.empty());
+
+        broadcaster.changed(3L);
+        broadcaster.broadcast();
+
+        assertNull(emitter.flushes.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testBroadcast_FailedSendDropsSubscriber() throws Exception {
+        broadcaster.subscribe(new SseEmitter() {
+            @Override
+            public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+        when(leaderboard.votes(1L)).thenReturn(Optional.of(1));
+
+        broadcaster.changed(1L);
+        broadcaster.broadcast();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testSubscribe_RefusedPastMaxStreams() {
+        broadcaster.subscribe(new RecordingEmitter());
+        broadcaster.subscribe(new RecordingEmitter());
+
+        assertThrows(VoteBroadcaster.FullException.class, () -> broadcaster.subscribe(new RecordingEmitter()));
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testBroadcast_StalledSendDropsOnlyItsSubscriber() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        broadcaster.subscribe(new SseEmitter() {
+            @Override
+            public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void complete() {
+                completed.countDown();
+            }
+        });
+        RecordingEmitter healthy = new RecordingEmitter();
+        broadcaster.subscribe(healthy);
+        when(leaderboard.votes(1L)).thenReturn(Optional.of(1));
+        when(leaderboard.votes(2L)).thenReturn(Optional.of(2));
+
+        broadcaster.changed(1L);
+        broadcaster.broadcast();
+        assertNotNull(healthy.flushes.poll(5, TimeUnit.SECONDS));
+
+        Thread.sleep(200);
+        broadcaster.changed(2L);
+        broadcaster.broadcast();
+
+        assertEquals("event:perk-votes-2\ndata:2 votes\n\n", healthy.flushes.poll(5, TimeUnit.SECONDS),
+                "the healthy stream still gets counts while the only core sender is blocked");
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertEquals(1, broadcaster.getStalledSubscribers());
+
+        release.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS), "the stalled stream is completed once its write returns");
+    }
+
+    @Test
+    void testSubscriber_NewerCountReplacesQueuedOne() {
+        VoteBroadcaster.Subscriber subscriber = new VoteBroadcaster.Subscriber(new SseEmitter(), 10, new AtomicLong());
+
+        assertTrue(subscriber.offer(Map.of(1L, 5)));
+        assertFalse(subscriber.offer(Map.of(2L, 1)));
+        assertFalse(subscriber.offer(Map.of(1L, 6)));
+
+        Map<Long, Integer> batch = subscriber.take();
+        assertEquals(List.of(2L, 1L), List.copyOf(batch.keySet()));
+        assertEquals(6, batch.get(1L));
+        assertNull(subscriber.take());
+        assertTrue(subscriber.offer(Map.of(3L, 0)), "a new sender starts once the buffer was drained");
+    }
+
+    @Test
+    void testSubscriber_DropsOldestWhenFull() {
+        AtomicLong dropped = new AtomicLong();
+        VoteBroadcaster.Subscriber subscriber = new VoteBroadcaster.Subscriber(new SseEmitter(), 2, dropped);
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        counts.put(1L, 10);
+        counts.put(2L, 20);
+        counts.put(3L, 30);
+
+        subscriber.offer(counts);
+
+        assertEquals(List.of(2L, 3L), List.copyOf(subscriber.take().keySet()));
+        assertEquals(1, dropped.get());
+    }
+}
@@ -0,0 +1,191 @@
+package perk.manager;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VoteWriteBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    private VoteWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        buffer = new VoteWriteBuffer(jdbcTemplate, transactionTemplate, taskScheduler, entityManagerFactory, true, 3);
+    }
+
+    @Test
+    void testRecord_AccumulatesPendingVotes() {
+        buffer.record(1L, 1);
+        buffer.record(1L, 2);
+        buffer.record(2L, -1);
+
+        assertEquals(3, buffer.pendingVotes(1L));
+        assertEquals(-1, buffer.pendingVotes(2L));
+        assertEquals(0, buffer.pendingVotes(3L));
+        assertEquals(2, buffer.getPendingPerks());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_WritesOneBatchAndClearsPending() {
+        buffer.record(1L, 1);
+        buffer.record(1L, 1);
+        buffer.record(2L, -1);
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals(0, buffer.pendingVotes(1L));
+        assertEquals(0, buffer.getPendingPerks());
+        assertEquals(2, buffer.getLastBatchSize());
+        assertEquals(3, buffer.getFlushedVotes());
+        assertEquals(1, buffer.getFlushCount());
+        verify(secondLevelCache).evict(Perk.class, 1L);
+        verify(secondLevelCache).evict(Perk.class, 2L);
+    }
+
+    @Test
+    void testFlush_RemovesWrittenPerksAndKeepsLaterVotes() {
+        buffer.record(1L, 1);
+        buffer.record(2L, -1);
+
+        buffer.flush();
+        assertEquals(0, buffer.size());
+
+        buffer.record(1L, 2);
+        assertEquals(2, buffer.pendingVotes(1L));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void testFlush_BatchStillCountsAsPendingUntilCommitted() {
+        buffer.record(1L, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            buffer.record(1L, 1);
+            assertEquals(3, buffer.pendingVotes(1L));
+            return new int[]{1};
+        });
+
+        buffer.flush();
+
+        verify(transactionTemplate).executeWithoutResult(any());
+        assertEquals(1, buffer.pendingVotes(1L), "the vote recorded during the write waits for the next flush");
+        assertEquals(1, buffer.getFlushedVotes());
+    }
+
+    @Test
+    void testFlush_NothingPendingSkipsDatabase() {
+        buffer.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, buffer.getFlushCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_FailureKeepsDeltasForRetry() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[]{1});
+        buffer.record(1L, 2);
+
+        buffer.flush();
+        assertEquals(2, buffer.pendingVotes(1L));
+
+        buffer.flush();
+        assertEquals(0, buffer.pendingVotes(1L));
+        assertEquals(1, buffer.getFlushCount());
+    }
+
+    @Test
+    void testRecord_ThresholdSchedulesEarlyFlushOnce() {
+        buffer.record(1L, 1);
+        buffer.record(1L, 1);
+        verifyNoInteractions(taskScheduler);
+
+        buffer.record(1L, 1);
+        buffer.record(1L, 1);
+
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void testOverlay_AddsPendingVotesToStoredCount() {
+        Perk perk = new Perk("Title", "Description", "Region", LocalDate.now().plusDays(5), null, null);
+        perk.setId(1L);
+        perk.setVotes(10);
+        buffer.record(1L, -2);
+
+        buffer.overlay(List.of(perk));
+
+        assertEquals(8, perk.getVotes());
+    }
+
+    @Test
+    void testOverlaySummaries_AddsPendingVotes() {
+        PerkSummary voted = new PerkSummary(1L, "A", "D", "R", LocalDate.now(), 10, "Gold", "u");
+        PerkSummary untouched = new PerkSummary(2L, "B", "D", "R", LocalDate.now(), 3, "Gold", "u");
+        buffer.record(1L, 2);
+
+        List<PerkSummary> overlaid = buffer.overlaySummaries(List.of(voted, untouched));
+
+        assertEquals(12, overlaid.get(0).votes());
+        assertSame(untouched, overlaid.get(1));
+    }
+
+    @Test
+    void testDisabled_OverlayAndScheduledFlushDoNothing() {
+        VoteWriteBuffer disabled = new VoteWriteBuffer(jdbcTemplate, transactionTemplate, taskScheduler, entityManagerFactory, false, 3);
+        Perk perk = new Perk("Title", "Description", "Region", LocalDate.now().plusDays(5), null, null);
+        perk.setId(1L);
+        perk.setVotes(10);
+
+        disabled.overlay(List.of(perk));
+        disabled.scheduledFlush();
+
+        assertEquals(10, perk.getVotes());
+        assertFalse(disabled.isEnabled());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}